@@ -0,0 +1,7 @@
+package com.example.trading.order_service.Enums;
+
+public enum BulkItemStatus {
+    ACCEPTED,
+    DUPLICATE,   // clientOrderId already used by this user, orderId points at the original
+    REJECTED
+}
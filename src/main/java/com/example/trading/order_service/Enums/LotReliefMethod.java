@@ -0,0 +1,11 @@
+package com.example.trading.order_service.Enums;
+
+/**
+ * Which open buy lots a sale relieves first.
+ */
+public enum LotReliefMethod {
+    FIFO,           // oldest lot first
+    LIFO,           // newest lot first
+    HIFO,           // highest cost lot first
+    AVERAGE_COST    // one pooled lot at the weighted average cost
+}
@@ -0,0 +1,6 @@
+package com.example.trading.order_service.Enums;
+
+public enum OrderLane {
+    HIGH,    // cancels, MARKET and immediate-or-cancel/fill-or-kill orders
+    NORMAL
+}
@@ -11,5 +11,21 @@ public enum OrderStatus {
     PARTIALLY_FILLED,
     FILLED,
     CANCELLED,
-    EXECUTED
+    EXECUTED,
+    PENDING_CANCEL,   // cancel sent to the exchange, waiting for confirmation
+    EXPIRED;          // DAY / GOOD_TILL_DATE order reached its expiry before reaching the exchange
+
+    /**
+     * No further transitions are expected from this status.
+     */
+    public boolean isTerminal() {
+        return this == REJECTED || this == FILLED || this == CANCELLED || this == EXECUTED || this == EXPIRED;
+    }
+
+    /**
+     * The order has not been sent to the exchange yet, so it can be cancelled locally.
+     */
+    public boolean isPreRouting() {
+        return this == NEW || this == PENDING_VALIDATION || this == PENDING_WALLET_CHECK || this == PENDING_COMPLIANCE;
+    }
 }
@@ -1,13 +1,23 @@
 package com.example.trading.order_service.config;
 
+import com.example.trading.order_service.utility.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
     @Bean
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(
+            @Value("${spring.jpa.properties.snowflake.node-id:0}") long nodeId) {
+        return new SnowflakeIdGenerator(nodeId);
+    }
 }
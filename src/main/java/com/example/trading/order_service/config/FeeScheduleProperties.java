@@ -0,0 +1,35 @@
+package com.example.trading.order_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution fees in basis points of the fill notional. The tier is the last one whose min-volume the
+ * user's traded notional this month has reached, unless user-tiers pins the user to a tier index.
+ * An instrument listed under instruments uses its own tiers instead of the default ones.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fees")
+public class FeeScheduleProperties {
+
+    private boolean enabled = true;
+    private BigDecimal minFee = BigDecimal.ZERO;
+    private List<Tier> tiers = new ArrayList<>();
+    private Map<String, List<Tier>> instruments = new HashMap<>();
+    private Map<Long, Integer> userTiers = new HashMap<>();
+
+    @Data
+    public static class Tier {
+        private BigDecimal minVolume = BigDecimal.ZERO;
+        private BigDecimal makerBps = BigDecimal.ZERO;
+        private BigDecimal takerBps = BigDecimal.ZERO;
+    }
+}
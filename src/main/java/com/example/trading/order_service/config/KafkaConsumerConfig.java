@@ -58,6 +58,25 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * Consumers for the HIGH lane topics: their own threads and small polls,
+     * so a time-sensitive order is never stuck behind a large batch.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventEnvelope> priorityKafkaListenerContainerFactory(
+            @Value("${order-lanes.high.concurrency:3}") int concurrency,
+            @Value("${order-lanes.high.max-poll-records:2}") int maxPollRecords) {
+        ConcurrentKafkaListenerContainerFactory<String, EventEnvelope> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
     @Bean
     public CommonErrorHandler errorHandler() {
         // Retry 3 times with 1 second interval
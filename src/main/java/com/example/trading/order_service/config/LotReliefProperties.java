@@ -0,0 +1,25 @@
+package com.example.trading.order_service.config;
+
+import com.example.trading.order_service.Enums.LotReliefMethod;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lot relief method used for each user's P&L: the one in users.{userId}, or default-method.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pnl.lot-relief")
+public class LotReliefProperties {
+
+    private LotReliefMethod defaultMethod = LotReliefMethod.FIFO;
+    private Map<Long, LotReliefMethod> users = new HashMap<>();
+
+    public LotReliefMethod methodFor(Long userId) {
+        return users.getOrDefault(userId, defaultMethod);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.trading.order_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order intake rate limits. Each user gets the tier named in user-tiers, or default-tier.
+ * With per-instrument enabled, each (user, instrumentSymbol) pair is limited as well.
+ * Bulk baskets are charged against a separate per-user bucket sized for whole baskets.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private String defaultTier = "standard";
+    private Map<String, Tier> tiers = new HashMap<>();
+    private Map<Long, String> userTiers = new HashMap<>();
+    private PerInstrument perInstrument = new PerInstrument();
+    private Bulk bulk = new Bulk();
+
+    @Data
+    public static class Tier {
+        private double ordersPerSecond = 20;
+        private int burst = 40;
+    }
+
+    @Data
+    public static class PerInstrument {
+        private boolean enabled = false;
+        private double ordersPerSecond = 10;
+        private int burst = 20;
+    }
+
+    @Data
+    public static class Bulk {
+        private double ordersPerSecond = 200;
+        private int burst = 1000; // a basket larger than this is always rejected
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.trading.order_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-trade risk limits. Each user gets the defaults, with any field set under users.{userId} overriding them.
+ * Limits under instruments.{symbol} apply on top to each user's orders in that instrument.
+ * Unset limits are not checked.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "risk")
+public class RiskLimitProperties {
+
+    private boolean enabled = true;
+    private Limits defaults = new Limits();
+    private Map<Long, Limits> users = new HashMap<>();
+    private Map<String, Limits> instruments = new HashMap<>();
+    private Approval approval = new Approval();
+
+    @Data
+    public static class Limits {
+        private BigDecimal maxOrderQuantity;
+        private BigDecimal maxOrderNotional;
+        private Integer maxOpenOrders;
+        private BigDecimal maxDailyNotional;
+        private BigDecimal maxOpenNotional;     // unfilled buy + sell notional across open orders
+
+        /**
+         * Copy of these limits with unset fields taken from the fallback.
+         */
+        public Limits orElse(Limits fallback) {
+            Limits merged = new Limits();
+            merged.maxOrderQuantity = maxOrderQuantity != null ? maxOrderQuantity : fallback.maxOrderQuantity;
+            merged.maxOrderNotional = maxOrderNotional != null ? maxOrderNotional : fallback.maxOrderNotional;
+            merged.maxOpenOrders = maxOpenOrders != null ? maxOpenOrders : fallback.maxOpenOrders;
+            merged.maxDailyNotional = maxDailyNotional != null ? maxDailyNotional : fallback.maxDailyNotional;
+            merged.maxOpenNotional = maxOpenNotional != null ? maxOpenNotional : fallback.maxOpenNotional;
+            return merged;
+        }
+    }
+
+    /**
+     * Orders on the legacy order-topic flow that pass the limits but still need manual approval.
+     */
+    @Data
+    public static class Approval {
+        private BigDecimal largeQuantity = new BigDecimal("1000");
+        private BigDecimal maxPrice = new BigDecimal("1000000");
+        private Set<String> highRiskTypes = new HashSet<>(Set.of("STOP_MARKET", "STOP_LIMIT", "TRAILING_STOP", "ICEBERG"));
+    }
+}
@@ -8,7 +8,8 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 
 /**
  * WebSocket configuration for real-time order status updates to frontend
- * Clients can subscribe to /topic/orders/{userId} to receive updates
+ * Clients can subscribe to /topic/orders/{userId} to receive updates (see OrderStatusDelta)
+ * and to /topic/pnl/{userId} for streamed P&L (see PnlStreamService)
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -0,0 +1,33 @@
+package com.example.trading.order_service.controller;
+
+import com.example.trading.order_service.dto.compliance.ComplianceRuleSetInfo;
+import com.example.trading.order_service.service.ComplianceRuleEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/compliance")
+public class ComplianceController {
+
+    private final ComplianceRuleEngine ruleEngine;
+
+    @GetMapping("/rules")
+    public ResponseEntity<ComplianceRuleSetInfo> getRules() {
+        return ResponseEntity.ok(ruleEngine.info());
+    }
+
+    @PostMapping("/rules/reload")
+    public ResponseEntity<ComplianceRuleSetInfo> reloadRules() {
+        log.info("📥 [API] Received compliance rules RELOAD request");
+        boolean changed = ruleEngine.reload();
+        log.info("✅ [API] Compliance rules reload done - Changed: {}", changed);
+        return ResponseEntity.ok(ruleEngine.info());
+    }
+}
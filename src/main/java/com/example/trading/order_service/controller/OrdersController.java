@@ -1,22 +1,47 @@
 package com.example.trading.order_service.controller;
 
+import com.example.trading.order_service.dto.AmendOrderRequest;
+import com.example.trading.order_service.dto.AmendOrderResponse;
+import com.example.trading.order_service.dto.BulkOrderRequest;
+import com.example.trading.order_service.dto.CancelAllProgress;
+import com.example.trading.order_service.dto.BulkOrderResponse;
 import com.example.trading.order_service.dto.CreateMarketOrderRequest;
 import com.example.trading.order_service.dto.CreateMarketOrderResponse;
+import com.example.trading.order_service.dto.ExposureResponse;
+import com.example.trading.order_service.dto.OrderCancelResponse;
+import com.example.trading.order_service.dto.OrderStatusDelta;
+import com.example.trading.order_service.dto.WalletBalance;
+import com.example.trading.order_service.dto.pnl.EodPnlProgress;
 import com.example.trading.order_service.dto.pnl.PnlResult;
+import com.example.trading.order_service.entity.DailyPnlSnapshot;
 import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.repository.DailyPnlSnapshotRepository;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.service.EodPnlService;
+import com.example.trading.order_service.service.ExposureBook;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.OrderCancellationService;
 import com.example.trading.order_service.service.OrderService;
+import com.example.trading.order_service.service.OrderSnapshotCache;
+import com.example.trading.order_service.service.OrderStatusNotificationService;
 import com.example.trading.order_service.service.ProfitAndLossService;
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -27,9 +52,15 @@ public class OrdersController {
     private final OrderRepository orderRepo;
     private final OrderService orderService;
     private final ProfitAndLossService pnlService;
+    private final OrderStatusNotificationService notificationService;
+    private final FundsReservationService fundsService;
+    private final OrderSnapshotCache orderCache;
+    private final OrderCancellationService cancellationService;
+    private final ExposureBook exposureBook;
+    private final EodPnlService eodPnlService;
+    private final DailyPnlSnapshotRepository snapshotRepo;
 
     @PostMapping("/orders")
-    @Transactional
     public ResponseEntity<CreateMarketOrderResponse> createMarketOrder(@Valid @RequestBody CreateMarketOrderRequest req) {
         log.info("📥 [API] Received CREATE ORDER request - User: {}, Symbol: {}, Side: {}, Type: {}, Quantity: {}, Price: {}",
                 req.getUserId(), req.getInstrumentSymbol(), req.getOrderSide(), req.getOrderType(),
@@ -47,6 +78,34 @@ public class OrdersController {
         }
     }
 
+    @PostMapping("/orders/submit")
+    public ResponseEntity<CreateMarketOrderResponse> submitOrder(@Valid @RequestBody CreateMarketOrderRequest req) {
+        log.info("📥 [API] Received SUBMIT ORDER request - User: {}, Symbol: {}, Side: {}, Type: {}, Quantity: {}, Price: {}",
+                req.getUserId(), req.getInstrumentSymbol(), req.getOrderSide(), req.getOrderType(),
+                req.getQuantity(), req.getPrice());
+
+        try {
+            CreateMarketOrderResponse response = orderService.submitOrder(req);
+            log.info("✅ [API] Order submitted to pipeline - OrderID: {}, Status: {}, ClientOrderId: {}",
+                    response.getOrderId(), response.getOrderStatus(), req.getClientOrderId());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("❌ [API] Failed to submit order - User: {}, Symbol: {}, Error: {}",
+                    req.getUserId(), req.getInstrumentSymbol(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @PostMapping("/orders/bulk")
+    public ResponseEntity<BulkOrderResponse> createBulkOrders(@Valid @RequestBody BulkOrderRequest req) {
+        log.info("📥 [API] Received BULK CREATE request - Orders: {}, Submit: {}", req.getOrders().size(), req.isSubmit());
+
+        BulkOrderResponse response = orderService.createBulkOrders(req.getOrders(), req.isSubmit());
+        log.info("✅ [API] Bulk create done - Accepted: {}, Duplicates: {}, Rejected: {}",
+                response.getAccepted(), response.getDuplicates(), response.getRejected());
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}/review-confirm")
     public ResponseEntity<CreateMarketOrderResponse> reviewAndConfirmOrder(@PathVariable Long id) {
         log.info("🔍 [API] Received REVIEW & CONFIRM request - OrderID: {}", id);
@@ -63,16 +122,93 @@ public class OrdersController {
     }
 
     @GetMapping("/orders/{orderId}")
-    public ResponseEntity<Order> getOrder(@PathVariable Long orderId) {
+    public ResponseEntity<byte[]> getOrder(@PathVariable Long orderId, WebRequest request) {
         log.debug("🔎 [API] GET order request - OrderID: {}", orderId);
 
-        return orderRepo.findById(orderId)
-                .map(order -> {
-                    log.debug("✅ [API] Order found - OrderID: {}, Status: {}", orderId, order.getStatus());
-                    return ResponseEntity.ok(order);
+        OrderSnapshotCache.CachedOrder cached = orderCache.get(orderId).orElse(null);
+        if (cached == null) {
+            log.warn("⚠️ [API] Order not found - OrderID: {}", orderId);
+            return ResponseEntity.notFound().build();
+        }
+        // Handles "*", weak W/ tags and comma-separated lists; on a match the 304 and ETag are already set
+        if (request.checkNotModified(cached.getEtag())) {
+            log.debug("✅ [API] Order unchanged - OrderID: {}", orderId);
+            return null;
+        }
+        log.debug("✅ [API] Order found - OrderID: {}", orderId);
+        return ResponseEntity.ok()
+                .eTag(cached.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.getBody());
+    }
+
+    @PatchMapping("/orders/{orderId}")
+    public ResponseEntity<AmendOrderResponse> amendOrder(@PathVariable Long orderId,
+                                                         @Valid @RequestBody AmendOrderRequest req) {
+        log.info("📥 [API] Received AMEND request - OrderID: {}, Qty: {}, LimitPrice: {}",
+                orderId, req.getQuantity(), req.getLimitPrice());
+
+        AmendOrderResponse response = orderService.amendOrder(orderId, req);
+        log.info("✅ [API] Amend handled - OrderID: {}, Mode: {}, ReplacementID: {}",
+                orderId, response.getMode(), response.getReplacementOrderId());
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/orders/{orderId}")
+    public ResponseEntity<OrderCancelResponse> cancelOrder(@PathVariable Long orderId,
+                                                           @RequestParam(value = "reason", defaultValue = "Cancelled by user") String reason) {
+        log.info("📥 [API] Received CANCEL request - OrderID: {}", orderId);
+
+        OrderCancelResponse response = cancellationService.cancel(orderId, reason);
+        log.info("✅ [API] Cancel handled - OrderID: {}, Status: {}", orderId, response.getOrderStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/users/{userId}/orders/cancel-all")
+    public ResponseEntity<CancelAllProgress> cancelAllOrders(@PathVariable Long userId,
+                                                             @RequestParam(value = "instrumentSymbol", required = false) String instrumentSymbol,
+                                                             @RequestParam(value = "ocoGroupId", required = false) String ocoGroupId) {
+        log.info("📥 [API] Received CANCEL-ALL request - UserID: {}, Symbol: {}, OcoGroup: {}",
+                userId, instrumentSymbol, ocoGroupId);
+        return ResponseEntity.ok(cancellationService.cancelAll(userId, instrumentSymbol, ocoGroupId, progress -> { }));
+    }
+
+    /**
+     * Same as cancel-all, streaming a progress event after every chunk.
+     */
+    @PostMapping(value = "/users/{userId}/orders/cancel-all", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter cancelAllOrdersStreaming(@PathVariable Long userId,
+                                               @RequestParam(value = "instrumentSymbol", required = false) String instrumentSymbol,
+                                               @RequestParam(value = "ocoGroupId", required = false) String ocoGroupId) {
+        log.info("📥 [API] Received streaming CANCEL-ALL request - UserID: {}, Symbol: {}, OcoGroup: {}",
+                userId, instrumentSymbol, ocoGroupId);
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(5));
+        cancellationService.cancelAllAsync(userId, instrumentSymbol, ocoGroupId, progress -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("progress").data(progress));
+                    } catch (IOException e) {
+                        log.debug("Cancel-all progress client went away - UserID: {}", userId);
+                    }
                 })
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("❌ [API] Cancel-all failed - UserID: {}, Error: {}", userId, ex.getMessage(), ex);
+                        emitter.completeWithError(ex);
+                    } else {
+                        emitter.complete();
+                    }
+                });
+        return emitter;
+    }
+
+    @GetMapping("/orders/{orderId}/snapshot")
+    public ResponseEntity<OrderStatusDelta> resyncOrderUpdates(@PathVariable Long orderId) {
+        log.debug("🔄 [API] Order update resync request - OrderID: {}", orderId);
+
+        return orderRepo.findById(orderId)
+                .map(order -> ResponseEntity.ok(notificationService.resync(order)))
                 .orElseGet(() -> {
-                    log.warn("⚠️ [API] Order not found - OrderID: {}", orderId);
+                    log.warn("⚠️ [API] Order not found for resync - OrderID: {}", orderId);
                     return ResponseEntity.notFound().build();
                 });
     }
@@ -92,10 +228,31 @@ public class OrdersController {
         return orders;
     }
 
+    @GetMapping("/users/{userId}/funds")
+    public ResponseEntity<WalletBalance> getFunds(@PathVariable Long userId) {
+        log.debug("🔎 [API] GET funds - UserID: {}", userId);
+        return ResponseEntity.ok(fundsService.getBalance(userId));
+    }
+
+    @GetMapping("/users/{userId}/exposure")
+    public ResponseEntity<ExposureResponse> getExposure(@PathVariable Long userId) {
+        log.debug("🔎 [API] GET exposure - UserID: {}", userId);
+        return ResponseEntity.ok(exposureBook.getExposure(userId));
+    }
+
+    @GetMapping("/pnl/{userId}")
+    public ResponseEntity<PnlResult> getPnlForUser(@PathVariable Long userId) {
+        log.info("📊 [API] P&L request at cached market prices - UserID: {}", userId);
+        return ResponseEntity.ok(pnlService.calculatePnlForUser(userId, Map.of()));
+    }
+
     @PostMapping("/pnl/calculate/{userId}")
     public ResponseEntity<PnlResult> calculatePnlForUser(
             @PathVariable Long userId,
-            @RequestBody Map<String, BigDecimal> marketPrices) {
+            @RequestBody(required = false) Map<String, BigDecimal> marketPrices) {
+        if (marketPrices == null) {
+            marketPrices = Map.of(); // price everything from the local cache
+        }
 
         log.info("📊 [API] Calculate P&L request - UserID: {}, Market prices for {} symbols",
                 userId, marketPrices.size());
@@ -110,4 +267,30 @@ public class OrdersController {
             throw e;
         }
     }
+
+    @PostMapping("/pnl/eod/run")
+    public ResponseEntity<EodPnlProgress> runEodPnl(
+            @RequestParam(value = "businessDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        LocalDate date = businessDate != null ? businessDate : eodPnlService.today();
+        log.info("📅 [API] EOD P&L run requested - BusinessDate: {}", date);
+        if (!eodPnlService.start(date)) {
+            log.warn("⚠️ [API] EOD P&L run already active");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(eodPnlService.getProgress());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(eodPnlService.getProgress());
+    }
+
+    @GetMapping("/pnl/eod/status")
+    public ResponseEntity<EodPnlProgress> getEodPnlStatus() {
+        EodPnlProgress progress = eodPnlService.getProgress();
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/pnl/eod/{userId}")
+    public ResponseEntity<List<DailyPnlSnapshot>> getDailyPnl(
+            @PathVariable Long userId,
+            @RequestParam("businessDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        return ResponseEntity.ok(snapshotRepo.findByUserIdAndBusinessDate(userId, businessDate));
+    }
 }
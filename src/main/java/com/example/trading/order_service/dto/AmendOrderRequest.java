@@ -0,0 +1,20 @@
+package com.example.trading.order_service.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * New quantity and/or limit price for an open order. Omitted fields keep their current value.
+ */
+@Data
+public class AmendOrderRequest {
+
+    @DecimalMin(value = "0.00000001")
+    private BigDecimal quantity;
+
+    @PositiveOrZero
+    private BigDecimal limitPrice;
+}
@@ -0,0 +1,31 @@
+package com.example.trading.order_service.dto;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AmendOrderResponse {
+
+    public enum Mode {
+        MODIFIED,   // changed in place, modify request sent to the exchange if routed
+        REPLACED    // original cancelled, replacement sent through the pipeline once the cancel is confirmed
+    }
+
+    private String orderId;
+    private Mode mode;
+    private OrderStatus orderStatus;
+    private BigDecimal quantity;
+    private BigDecimal limitPrice;
+    private String replacementOrderId;  // null while the exchange has not confirmed the cancel
+    private String message;
+}
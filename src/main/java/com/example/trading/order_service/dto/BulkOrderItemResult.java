@@ -0,0 +1,24 @@
+package com.example.trading.order_service.dto;
+
+import com.example.trading.order_service.Enums.BulkItemStatus;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderItemResult {
+
+    private int index;              // position in the submitted basket
+    private String clientOrderId;
+    private BulkItemStatus status;
+    private String orderId;
+    private OrderStatus orderStatus;
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.example.trading.order_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Basket of orders submitted in one call. Items are validated individually,
+ * so one bad order doesn't fail the rest of the basket.
+ */
+@Data
+public class BulkOrderRequest {
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<CreateMarketOrderRequest> orders;
+
+    private boolean submit; // true = confirm and start the wallet check pipeline right away
+}
@@ -0,0 +1,20 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOrderResponse {
+
+    private int accepted;
+    private int duplicates;
+    private int rejected;
+    private List<BulkOrderItemResult> results;
+}
@@ -0,0 +1,26 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a cancel-all run, streamed after every chunk and returned as the final result.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class CancelAllProgress {
+
+    private Long userId;
+    private String instrumentSymbol;
+    private String ocoGroupId;
+    private int matched;            // open orders matching the filter
+    private int processed;
+    private int cancelled;          // cancelled locally, never reached the exchange
+    private int cancelRequested;    // routed orders now PENDING_CANCEL
+    private boolean done;
+    private long elapsedMs;
+}
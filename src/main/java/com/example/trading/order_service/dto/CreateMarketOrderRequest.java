@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NonNull;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 @Data
 public class CreateMarketOrderRequest {
@@ -33,6 +34,8 @@ public class CreateMarketOrderRequest {
 
     private TimeInForce timeInForce = TimeInForce.IMMEDIATE_OR_CANCEL;
 
+    private OffsetDateTime expiresAt; // required for GOOD_TILL_DATE
+
     @Size(max = 64)
     private String clientOrderId; // idempotency
 
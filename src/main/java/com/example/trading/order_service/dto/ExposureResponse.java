@@ -0,0 +1,27 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Outstanding exposure of a user across all open orders.
+ * MARKET orders are valued at the market price seen when they were last updated.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExposureResponse {
+    private Long userId;
+    private int openOrders;
+    private BigDecimal openBuyNotional;
+    private BigDecimal openSellNotional;
+    private List<InstrumentExposure> instruments;
+    private OffsetDateTime asOf;
+}
@@ -0,0 +1,24 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Unfilled quantity and notional of a user's open orders in one instrument.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InstrumentExposure {
+    private String instrumentSymbol;
+    private int openOrders;
+    private BigDecimal openBuyQuantity;
+    private BigDecimal openBuyNotional;
+    private BigDecimal openSellQuantity;
+    private BigDecimal openSellNotional;
+}
@@ -0,0 +1,23 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * DTO for price ticks published to market.prices.v1
+ * symbol uses the same key as the P&L result (the instrument id stored on executions)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MarketPriceEvent {
+    private String symbol;
+    private BigDecimal price;
+    private Instant timestamp;
+}
@@ -0,0 +1,24 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cancel request sent to the Exchange Service on orders.exchange.v1.
+ * The exchange confirms on failed.v1 (handled by OrderCancellationConsumer).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderCancelRequest {
+
+    private String orderId;
+    private String userId;
+    private String symbol;
+    private String clientOrderId;
+    private String reason;
+    private Long timestamp;
+}
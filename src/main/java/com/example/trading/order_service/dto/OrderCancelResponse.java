@@ -0,0 +1,18 @@
+package com.example.trading.order_service.dto;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderCancelResponse {
+
+    private String orderId;
+    private OrderStatus orderStatus;    // CANCELLED, or PENDING_CANCEL while the exchange confirms
+    private String message;
+}
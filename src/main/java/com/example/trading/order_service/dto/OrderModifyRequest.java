@@ -0,0 +1,26 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Modify request sent to the Exchange Service on orders.exchange.v1 for an in-place amend.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderModifyRequest {
+
+    private String orderId;
+    private String userId;
+    private String symbol;
+    private String clientOrderId;
+    private BigDecimal quantity;
+    private BigDecimal limitPrice;
+    private Long timestamp;
+}
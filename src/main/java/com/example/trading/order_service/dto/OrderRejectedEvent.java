@@ -10,4 +10,5 @@ import lombok.NoArgsConstructor;
 public class OrderRejectedEvent {
     private String orderId;
     private String reason;
+    private String rule;    // id of the compliance rule that fired, if any
 }
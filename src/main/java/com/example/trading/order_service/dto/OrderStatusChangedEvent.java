@@ -0,0 +1,63 @@
+package com.example.trading.order_service.dto;
+
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.entity.Order;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * In-process event published whenever an order is created, changes status or gets a fill.
+ * Carries a copy of the fields listeners need, since the entity keeps changing after publishing.
+ */
+@Value
+@Builder
+public class OrderStatusChangedEvent {
+    Long orderId;
+    Long userId;
+    String instrumentSymbol;
+    String ocoGroupId;
+    OrderSide orderSide;
+    OrderStatus previousStatus;     // null for a new order
+    OrderStatus status;
+    BigDecimal totalQuantity;
+    BigDecimal filledQuantity;
+    BigDecimal limitPrice;
+    BigDecimal fillQuantity;        // set for fills only
+    BigDecimal fillNotional;
+
+    public static OrderStatusChangedEvent of(Order order, OrderStatus previousStatus) {
+        return fill(order, previousStatus, null, null);
+    }
+
+    public static OrderStatusChangedEvent fill(Order order, OrderStatus previousStatus,
+                                               BigDecimal fillQuantity, BigDecimal fillNotional) {
+        return OrderStatusChangedEvent.builder()
+                .orderId(order.getId())
+                .userId(order.getUserId())
+                .instrumentSymbol(order.getInstrumentSymbol())
+                .ocoGroupId(order.getOcoGroupId())
+                .orderSide(order.getOrderSide())
+                .previousStatus(previousStatus)
+                .status(order.getStatus())
+                .totalQuantity(order.getTotalQuantity())
+                .filledQuantity(order.getFilledQuantity())
+                .limitPrice(order.getLimitPrice())
+                .fillQuantity(fillQuantity)
+                .fillNotional(fillNotional)
+                .build();
+    }
+
+    public boolean isCreated() {
+        return previousStatus == null;
+    }
+
+    /**
+     * True if the order stopped being open with this change.
+     */
+    public boolean isClosed() {
+        return previousStatus != null && !previousStatus.isTerminal() && status.isTerminal();
+    }
+}
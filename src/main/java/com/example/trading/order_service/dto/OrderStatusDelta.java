@@ -0,0 +1,31 @@
+package com.example.trading.order_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Versioned order update frame sent to frontend via WebSocket.
+ * The first frame for an order is a snapshot carrying every populated field; later frames
+ * carry only the fields that changed. Sequence numbers increase by one per order, so a
+ * client that sees a gap should call GET /api/orders/{orderId}/snapshot to resync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusDelta {
+    public static final String PROTOCOL_VERSION = "v2";
+
+    private String version;
+    private Long orderId;
+    private Long userId;
+    private long sequence;
+    private boolean snapshot;       // true = full state, false = changed fields only
+    private Map<String, Object> fields;
+}
@@ -0,0 +1,27 @@
+package com.example.trading.order_service.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Last known price of an instrument as held by MarketPriceCache.
+ * timestamp is the exchange time of the tick, receivedAtMillis the local receive time
+ * used for staleness checks.
+ */
+@Value
+public class PriceQuote {
+    String symbol;
+    BigDecimal price;
+    Instant timestamp;
+    long receivedAtMillis;
+
+    public long ageMillis(long nowMillis) {
+        return nowMillis - receivedAtMillis;
+    }
+
+    public boolean isStale(long maxAgeMillis, long nowMillis) {
+        return ageMillis(nowMillis) > maxAgeMillis;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.trading.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Cash position of an account as seen by the funds reservation engine
+ * total = available + reserved
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletBalance {
+    private Long accountId;
+    private BigDecimal available;
+    private BigDecimal reserved;
+    private BigDecimal total;
+}
@@ -0,0 +1,17 @@
+package com.example.trading.order_service.dto.compliance;
+
+import lombok.Value;
+
+@Value
+public class ComplianceDecision {
+
+    public static final ComplianceDecision APPROVED = new ComplianceDecision(true, null, null);
+
+    boolean approved;
+    String ruleId;      // rule that rejected the order, null when approved
+    String reason;
+
+    public static ComplianceDecision rejected(String ruleId, String reason) {
+        return new ComplianceDecision(false, ruleId, reason);
+    }
+}
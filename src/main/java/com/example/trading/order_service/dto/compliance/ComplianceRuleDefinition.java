@@ -0,0 +1,38 @@
+package com.example.trading.order_service.dto.compliance;
+
+import com.example.trading.order_service.Enums.OrderType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One rule as written in the rules file. Which fields apply depends on the type:
+ * BLOCKED_USERS uses userIds; BLOCKED_SYMBOLS uses symbols; MAX_NOTIONAL uses maxNotional
+ * (optionally only for symbols); ORDER_TYPE_RESTRICTION uses orderTypes (optionally only for symbols);
+ * TRADING_HOURS uses open, close and zone (optionally only for orderTypes).
+ */
+@Data
+public class ComplianceRuleDefinition {
+
+    public enum Type {
+        BLOCKED_USERS,
+        BLOCKED_SYMBOLS,
+        MAX_NOTIONAL,
+        ORDER_TYPE_RESTRICTION,
+        TRADING_HOURS
+    }
+
+    private String id;
+    private Type type;
+    private boolean enabled = true;
+    private String reason;
+
+    private List<Long> userIds;
+    private List<String> symbols;
+    private List<OrderType> orderTypes;
+    private BigDecimal maxNotional;
+    private String open;     // HH:mm
+    private String close;    // HH:mm
+    private String zone;
+}
@@ -0,0 +1,15 @@
+package com.example.trading.order_service.dto.compliance;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contents of the compliance rules file. Rules are evaluated in file order; the first one that fires rejects the order.
+ */
+@Data
+public class ComplianceRuleSetDefinition {
+    private String version;
+    private List<ComplianceRuleDefinition> rules = new ArrayList<>();
+}
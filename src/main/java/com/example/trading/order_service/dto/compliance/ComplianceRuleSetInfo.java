@@ -0,0 +1,20 @@
+package com.example.trading.order_service.dto.compliance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComplianceRuleSetInfo {
+    private String version;
+    private String source;
+    private List<String> activeRules;
+    private Instant loadedAt;
+}
@@ -0,0 +1,28 @@
+package com.example.trading.order_service.dto.pnl;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Progress of the current or last end-of-day P&L run.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class EodPnlProgress {
+
+    private LocalDate businessDate;
+    private String status;              // RUNNING, COMPLETED or FAILED
+    private long usersProcessed;
+    private long usersFailed;
+    private long executionsRead;
+    private long snapshotsWritten;
+    private double usersPerSecond;
+    private boolean done;
+    private long elapsedMs;
+}
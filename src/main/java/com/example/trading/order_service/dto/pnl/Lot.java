@@ -7,7 +7,7 @@ import java.math.BigDecimal;
 /**
  * Represents a unit of holding (a block of bought or sold quantity of a symbol at a specific cost basis).
  * Whenever you buy, a new Lot is created.
- * when you sell, quantity is matched against one or more FIFO lots.
+ * when you sell, quantity is matched against one or more lots, in the order of the user's lot relief method.
  */
 @Value
 public class Lot {
@@ -0,0 +1,25 @@
+package com.example.trading.order_service.dto.pnl;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Incremental P&L push sent to /topic/pnl/{userId}.
+ * Only the symbols whose P&L changed since the previous push are included,
+ * except for the first push after subscribing which carries every symbol.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PnlUpdate {
+    private Long userId;
+    private boolean snapshot;
+    private List<SymbolPnl> symbols;
+    private OffsetDateTime asOf;
+}
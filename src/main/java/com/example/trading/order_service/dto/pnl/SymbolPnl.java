@@ -4,16 +4,21 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class SymbolPnl {
     private String symbol;
     private BigDecimal positionQty;    // positive = net long, negative = net short
-    private BigDecimal avgCost;        // average cost of open position
-    private BigDecimal marketPrice;    // latest price for unrealized PnL
+    private BigDecimal avgCost;        // average cost (or short sale price) of open position
+    private BigDecimal marketPrice;    // latest price for unrealized PnL, null when unpriced
+    private boolean priced;            // false when no price is known; unrealizedPnl is then zero, not marked to market
+    private Instant priceTimestamp;    // tick time when the price came from the price cache
+    private Boolean priceStale;        // true when the cached price is older than market-data.stale-after-ms
     private BigDecimal realizedPnl;
     private BigDecimal unrealizedPnl;
-    private List<Lot> openLots;        // FIFO lots still open
+    private List<Lot> openLots;        // buy lots still open, in relief order
+    private List<Lot> openShortLots;   // short lots still open, covered FIFO
 }
@@ -1,5 +1,6 @@
 package com.example.trading.order_service.entity;
 
+import com.example.trading.order_service.utility.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,7 +24,7 @@ import java.time.OffsetDateTime;
 )
 public class Assets {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(name = "user_id", nullable = false)
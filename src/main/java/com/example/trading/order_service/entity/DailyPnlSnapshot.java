@@ -0,0 +1,62 @@
+package com.example.trading.order_service.entity;
+
+import com.example.trading.order_service.utility.SnowflakeId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * End-of-day P&L of one instrument for one user, written by the EOD P&L batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "daily_pnl_snapshots",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uq_pnl_snap_date_user_instr",
+                        columnNames = {"business_date", "user_id", "instrument_id"})
+        },
+        indexes = {
+                @Index(name = "ix_pnl_snap_user_date", columnList = "user_id, business_date")
+        }
+)
+public class DailyPnlSnapshot {
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "instrument_id", nullable = false, length = 64)
+    private String instrumentId;
+
+    @Column(name = "position_qty", nullable = false, precision = 18, scale = 8)
+    private BigDecimal positionQty;
+
+    @Column(name = "avg_cost", nullable = false, precision = 18, scale = 8)
+    private BigDecimal avgCost;
+
+    @Column(name = "market_price", precision = 18, scale = 8)
+    private BigDecimal marketPrice;
+
+    @Column(name = "realized_pnl", nullable = false, precision = 20, scale = 8)
+    private BigDecimal realizedPnl;
+
+    @Column(name = "unrealized_pnl", nullable = false, precision = 20, scale = 8)
+    private BigDecimal unrealizedPnl;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.example.trading.order_service.entity;
 
+import com.example.trading.order_service.utility.SnowflakeId;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -23,7 +24,7 @@ import java.time.OffsetDateTime;
 )
 public class Executions {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
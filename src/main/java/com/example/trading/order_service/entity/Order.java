@@ -1,6 +1,7 @@
 package com.example.trading.order_service.entity;
 
 import com.example.trading.order_service.Enums.*;
+import com.example.trading.order_service.utility.SnowflakeId;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -21,7 +22,9 @@ import java.util.List;
 @Table(name = "orders",
         indexes = {
                 @Index(name = "ix_orders_user_time", columnList = "user_id, placed_at DESC"),
-                @Index(name = "ix_orders_instr_time", columnList = "instrument_id, placed_at DESC")
+                @Index(name = "ix_orders_instr_time", columnList = "instrument_id, placed_at DESC"),
+                @Index(name = "ix_orders_expires_at", columnList = "expires_at"),
+                @Index(name = "ix_orders_active_slice", columnList = "active_slice_id")
         },
         uniqueConstraints = {
                 @UniqueConstraint(name = "uq_orders_client_order", columnNames = {"user_id", "client_order_id"})
@@ -30,7 +33,7 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -78,11 +81,20 @@ public class Order {
     @Column(name = "display_quantity")
     private Integer displayQuantity;
 
+    @Column(name = "active_slice_id")
+    private Long activeSliceId; // ICEBERG: exchange order id of the child slice currently working
+
+    @Column(name = "replace_quantity", precision = 18, scale = 8)
+    private BigDecimal replaceQuantity; // cancel-replace waiting for the cancel: new total quantity
+
+    @Column(name = "replace_limit_price")
+    private BigDecimal replaceLimitPrice;
+
     @Column(name = "limit_price")
     private BigDecimal limitPrice;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "time_in_force", nullable = false, length = 8)
+    @Column(name = "time_in_force", nullable = false, length = 20)
     private TimeInForce timeInForce = TimeInForce.IMMEDIATE_OR_CANCEL;
 
     @Column(name = "client_order_id", length = 64)
@@ -97,6 +109,9 @@ public class Order {
     @Column(name = "executed_at")
     private OffsetDateTime executedAt;
 
+    @Column(name = "expires_at")
+    private OffsetDateTime expiresAt; // DAY: session close, GOOD_TILL_DATE: requested by the client
+
     @Column(name = "isConfirmed")
     private boolean isConfirmed;
 
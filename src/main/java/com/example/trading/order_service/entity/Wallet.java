@@ -1,10 +1,16 @@
 package com.example.trading.order_service.entity;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class Wallet {
     private Long walletId;
     private Long accountId;
-    private Double balance;
+    private BigDecimal balance;
 }
@@ -4,4 +4,9 @@ public class DuplicateOrderException extends RuntimeException {
     public DuplicateOrderException(String clientOrderId) {
         super("Order with client-order id " + clientOrderId + " is duplicate");
     }
+
+    public DuplicateOrderException(String clientOrderId, Long orderId, String mismatchedFields) {
+        super("Client-order id " + clientOrderId + " was already used for order " + orderId
+                + " with a different " + mismatchedFields);
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.trading.order_service.exception;
+
+public class OrderNotAmendableException extends RuntimeException {
+    public OrderNotAmendableException(String message) {
+        super(message);
+    }
+}
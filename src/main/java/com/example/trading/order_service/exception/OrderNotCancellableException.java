@@ -0,0 +1,9 @@
+package com.example.trading.order_service.exception;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+
+public class OrderNotCancellableException extends RuntimeException {
+    public OrderNotCancellableException(Long orderId, OrderStatus status) {
+        super(String.format("Order %d cannot be cancelled in status %s", orderId, status));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.trading.order_service.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(Long userId, long retryAfterSeconds) {
+        super(String.format("Order rate limit exceeded for user %d. Retry after %d s", userId, retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.trading.order_service.exception;
+
+public class RiskLimitExceededException extends RuntimeException {
+    public RiskLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -2,14 +2,21 @@ package com.example.trading.order_service.kafka;
 
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.dto.ExchangeOrderRequest;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.OrderNotFoundException;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.service.ComplianceApprovalCache;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.IcebergSlicer;
+import com.example.trading.order_service.service.OrderLaneRouter;
 import com.example.trading.order_service.service.OrderStatusNotificationService;
+import com.example.trading.order_service.service.StopTriggerEngine;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -18,8 +25,8 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.time.OffsetDateTime;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -30,6 +37,12 @@ public class ComplianceResponseConsumer {
     private final OrderRepository orderRepo;
     private final OrderEventsProducer producer;
     private final OrderStatusNotificationService notificationService;
+    private final FundsReservationService fundsService;
+    private final OrderLaneRouter laneRouter;
+    private final ComplianceApprovalCache approvalCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StopTriggerEngine stopTriggerEngine;
+    private final IcebergSlicer icebergSlicer;
 
     /**
      * Listens to orders.approved.v1 topic for compliance-approved orders
@@ -56,8 +69,9 @@ public class ComplianceResponseConsumer {
                         return new OrderNotFoundException(Long.parseLong(orderId));
                     });
 
-            // Idempotency check
-            if (order.getStatus() == OrderStatus.APPROVED || order.getStatus() == OrderStatus.EXECUTED) {
+            // Idempotency check; also skips orders the user cancelled while compliance was running
+            if (order.getStatus() == OrderStatus.APPROVED || order.getStatus().isTerminal()
+                    || order.getStatus() == OrderStatus.PENDING_CANCEL) {
                 log.warn("⚠️ [KAFKA-COMPLIANCE] Order already processed - OrderID: {}, CurrentStatus: {}, Skipping",
                         orderId, order.getStatus());
                 ack.acknowledge();
@@ -68,10 +82,31 @@ public class ComplianceResponseConsumer {
 
             // Update order to APPROVED
             log.debug("💾 [KAFKA-COMPLIANCE] Updating order status to APPROVED - OrderID: {}", orderId);
-            order.setStatus(OrderStatus.APPROVED);
-            order.setUpdatedAt(OffsetDateTime.now());
-            orderRepo.save(order);
+            OrderStatus previousStatus = order.getStatus();
+            Optional<Order> moved = orderRepo.transitionAndReload(order, OrderStatus.APPROVED);
+            if (moved.isEmpty()) {
+                log.warn("⚠️ [KAFKA-COMPLIANCE] Order changed during compliance, not approved - OrderID: {}", orderId);
+                ack.acknowledge();
+                return;
+            }
+            order = moved.get();
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
             log.info("✅ [KAFKA-COMPLIANCE] Order marked as APPROVED - OrderID: {}", orderId);
+            approvalCache.recordApproval(order);
+
+            // Stop orders rest in the trigger engine until the market reaches them
+            if (stopTriggerEngine.arm(order)) {
+                notificationService.sendOrderUpdate(order.getUserId(), order, "Stop order armed", null);
+                ack.acknowledge();
+                return;
+            }
+
+            // Icebergs are worked here, the exchange only sees their slices
+            if (icebergSlicer.start(order)) {
+                notificationService.sendOrderUpdate(order.getUserId(), order, "Order approved by compliance", null);
+                ack.acknowledge();
+                return;
+            }
 
             // Build exchange-compatible order request
             log.debug("🔄 [KAFKA-COMPLIANCE] Building exchange order request - OrderID: {}", orderId);
@@ -91,7 +126,8 @@ public class ComplianceResponseConsumer {
 
             // Publish to exchange service topic (this is what exchange service will consume)
             log.info("📤 [KAFKA-COMPLIANCE] Publishing to exchange service - OrderID: {}", orderId);
-            producer.publish("orders.exchange.v1", orderId, exchangeEnvelope);
+            producer.publish("orders.exchange.v1", orderId, exchangeEnvelope,
+                    laneRouter.headers(laneRouter.laneFor(order)));
             log.info("✅ [KAFKA-COMPLIANCE] Order published to exchange service - OrderID: {}", orderId);
 
             // Send real-time notification to frontend via WebSocket
@@ -134,8 +170,9 @@ public class ComplianceResponseConsumer {
                     });
 
             // Idempotency check
-            if (order.getStatus() == OrderStatus.REJECTED) {
-                log.warn("⚠️ [KAFKA-COMPLIANCE] Order already marked as REJECTED - OrderID: {}, Skipping", orderId);
+            if (order.getStatus().isTerminal()) {
+                log.warn("⚠️ [KAFKA-COMPLIANCE] Order already in terminal state - OrderID: {}, Status: {}, Skipping",
+                        orderId, order.getStatus());
                 ack.acknowledge();
                 return;
             }
@@ -151,15 +188,21 @@ public class ComplianceResponseConsumer {
 
             // Update order to REJECTED
             log.debug("💾 [KAFKA-COMPLIANCE] Updating order status to REJECTED - OrderID: {}", orderId);
-            order.setStatus(OrderStatus.REJECTED);
-            order.setUpdatedAt(OffsetDateTime.now());
-            orderRepo.save(order);
+            OrderStatus previousStatus = order.getStatus();
+            Optional<Order> moved = orderRepo.transitionAndReload(order, OrderStatus.REJECTED);
+            if (moved.isEmpty()) {
+                log.warn("⚠️ [KAFKA-COMPLIANCE] Order changed during compliance, not rejected - OrderID: {}", orderId);
+                ack.acknowledge();
+                return;
+            }
+            order = moved.get();
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
             log.info("✅ [KAFKA-COMPLIANCE] Order marked as REJECTED - OrderID: {}, Reason: {}", orderId, rejectionReason);
 
-            // TODO: Release reserved funds in wallet service
-            log.debug("🔓 [KAFKA-COMPLIANCE] Releasing funds (TODO: implement) - OrderID: {}, UserID: {}",
+            // Release reserved funds
+            log.debug("🔓 [KAFKA-COMPLIANCE] Releasing funds - OrderID: {}, UserID: {}",
                     orderId, order.getUserId());
-            // walletService.releaseFunds(order.getUserId(), order.getId());
+            fundsService.release(order.getId());
 
             // Send real-time notification to frontend via WebSocket
             String message = String.format("Order rejected by compliance: %s", rejectionReason);
@@ -194,7 +237,7 @@ public class ComplianceResponseConsumer {
      * - STOP_MARKET: stopPrice
      * - STOP_LIMIT: stopPrice + limitPrice
      * - TRAILING_STOP: trailingOffset + trailingType
-     * - ICEBERG: limitPrice + displayQuantity
+     * - ICEBERG: limitPrice + displayQuantity (only if not sliced by the IcebergSlicer)
      */
     private ExchangeOrderRequest buildExchangeOrderRequest(Order order) {
         ExchangeOrderRequest.ExchangeOrderRequestBuilder builder = ExchangeOrderRequest.builder()
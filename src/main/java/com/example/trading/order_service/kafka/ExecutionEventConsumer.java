@@ -1,15 +1,23 @@
 package com.example.trading.order_service.kafka;
 
+import com.example.trading.order_service.Enums.OrderSide;
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.entity.Executions;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.OrderNotFoundException;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.repository.executionRepository;
+import com.example.trading.order_service.service.FeeEngine;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.IcebergSlicer;
 import com.example.trading.order_service.service.OrderStatusNotificationService;
+import com.example.trading.order_service.service.PnlStreamService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -27,8 +35,16 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ExecutionEventConsumer {
 
+    private static final int MAX_FILL_ATTEMPTS = 3;
+
     private final OrderRepository orderRepo;
     private final OrderStatusNotificationService notificationService;
+    private final PnlStreamService pnlStreamService;
+    private final FundsReservationService fundsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IcebergSlicer icebergSlicer;
+    private final FeeEngine feeEngine;
+    private final executionRepository executionRepo;
 
     /**
      * Listens to execution.v1 topic for order execution updates from Exchange Service
@@ -55,24 +71,6 @@ public class ExecutionEventConsumer {
             String status = String.valueOf(payload.get("status"));
             log.info("📦 [KAFKA-EXECUTION] Processing execution - OrderID: {}, Status: {}", orderId, status);
 
-            log.debug("🔍 [KAFKA-EXECUTION] Fetching order from database - OrderID: {}", orderId);
-            Order order = orderRepo.findById(Long.parseLong(orderId))
-                    .orElseThrow(() -> {
-                        log.error("❌ [KAFKA-EXECUTION] Order not found - OrderID: {}", orderId);
-                        return new OrderNotFoundException(Long.parseLong(orderId));
-                    });
-
-            // Idempotency check - if order is already in terminal state, skip
-            if (order.getStatus() == OrderStatus.FILLED ||
-                order.getStatus() == OrderStatus.CANCELLED) {
-                log.warn("⚠️ [KAFKA-EXECUTION] Order already in terminal state - OrderID: {}, Status: {}, Skipping",
-                        orderId, order.getStatus());
-                ack.acknowledge();
-                return;
-            }
-            log.debug("✅ [KAFKA-EXECUTION] Idempotency check passed - OrderID: {}, CurrentStatus: {}",
-                    orderId, order.getStatus());
-
             // Extract execution data
             BigDecimal executionQuantity = parseBigDecimal(payload.get("quantity"));
             BigDecimal executionPrice = parseBigDecimal(payload.get("price"));
@@ -90,10 +88,96 @@ public class ExecutionEventConsumer {
                     log.warn("⚠️ [KAFKA-EXECUTION] Could not parse executedAt timestamp, using current time - OrderID: {}", orderId);
                 }
             }
+            BigDecimal fillNotional = notionalValue != null && notionalValue.signum() > 0
+                    ? notionalValue
+                    : executionQuantity.multiply(executionPrice);
+            Long exchangeOrderId = Long.parseLong(orderId);
+
+            // Only the fill columns are written, and only if the order did not change since it was read;
+            // otherwise it is read again, so a concurrent cancel or amend is never overwritten
+            Order order;
+            OrderStatus previousStatus;
+            OrderStatus newStatus;
+            BigDecimal newFilledQuantity;
+            boolean slice;
+            for (int attempt = 1; ; attempt++) {
+                log.debug("🔍 [KAFKA-EXECUTION] Fetching order from database - OrderID: {}", orderId);
+                order = icebergSlicer.findOrder(exchangeOrderId)
+                        .orElseThrow(() -> {
+                            log.error("❌ [KAFKA-EXECUTION] Order not found - OrderID: {}", orderId);
+                            return new OrderNotFoundException(exchangeOrderId);
+                        });
+                slice = icebergSlicer.isSlice(order, exchangeOrderId);
+
+                // Idempotency check - if order is already in terminal state, skip
+                if (order.getStatus() == OrderStatus.FILLED ||
+                    order.getStatus() == OrderStatus.CANCELLED) {
+                    log.warn("⚠️ [KAFKA-EXECUTION] Order already in terminal state - OrderID: {}, Status: {}, Skipping",
+                            orderId, order.getStatus());
+                    ack.acknowledge();
+                    return;
+                }
+                log.debug("✅ [KAFKA-EXECUTION] Idempotency check passed - OrderID: {}, CurrentStatus: {}",
+                        orderId, order.getStatus());
+
+                // Update order filled quantity and average fill price
+                BigDecimal previousFilled = order.getFilledQuantity() != null ?
+                        order.getFilledQuantity() : BigDecimal.ZERO;
+                newFilledQuantity = previousFilled.add(executionQuantity);
+
+                // Calculate weighted average fill price
+                BigDecimal avgPrice;
+                BigDecimal totalNotional = order.getNotionalValue();
+                if (order.getAvgFillPrice() == null) {
+                    avgPrice = executionPrice;
+                } else {
+                    totalNotional = (totalNotional != null ? totalNotional : BigDecimal.ZERO).add(notionalValue);
+                    avgPrice = totalNotional.divide(newFilledQuantity, 8, RoundingMode.HALF_UP);
+                }
+
+                // Update order status based on execution status from exchange
+                previousStatus = order.getStatus();
+                newStatus = mapExecutionStatus(status);
+                if (slice) {
+                    newStatus = icebergSlicer.parentStatus(order, newFilledQuantity);
+                }
+                if (previousStatus == OrderStatus.PENDING_CANCEL && newStatus != OrderStatus.FILLED) {
+                    newStatus = OrderStatus.PENDING_CANCEL; // partial fill while the cancel is in flight
+                }
+                OffsetDateTime orderExecutedAt = newStatus == OrderStatus.FILLED ? executedAt : order.getExecutedAt();
+                OffsetDateTime now = OffsetDateTime.now();
+
+                log.debug("💾 [KAFKA-EXECUTION] Saving order updates - OrderID: {}", orderId);
+                if (orderRepo.applyFill(order.getId(), newFilledQuantity, avgPrice, totalNotional, newStatus,
+                        orderExecutedAt, order.getUpdatedAt(), now) == 1) {
+                    // The update detached the entity; bring the copy in hand up to date for what follows
+                    order.setFilledQuantity(newFilledQuantity);
+                    order.setAvgFillPrice(avgPrice);
+                    order.setNotionalValue(totalNotional);
+                    order.setStatus(newStatus);
+                    order.setExecutedAt(orderExecutedAt);
+                    order.setUpdatedAt(now);
+                    log.debug("💰 [KAFKA-EXECUTION] Updated fill - OrderID: {}, Previous: {}, New: {}, Total: {}, AvgPrice: {}",
+                            orderId, previousFilled, executionQuantity, newFilledQuantity, avgPrice);
+                    break;
+                }
+                if (attempt >= MAX_FILL_ATTEMPTS) {
+                    throw new IllegalStateException("Order " + order.getId() + " kept changing while applying a fill");
+                }
+                log.debug("🔁 [KAFKA-EXECUTION] Order changed while applying fill, retrying - OrderID: {}, Attempt: {}",
+                        orderId, attempt);
+            }
+            if (newStatus == OrderStatus.FILLED) {
+                log.info("✅ [KAFKA-EXECUTION] Order fully filled - OrderID: {}, ExecutedAt: {}", orderId, executedAt);
+            }
+
+            // The exchange reports MAKER when the fill added liquidity; anything else pays the taker rate
+            boolean maker = "MAKER".equalsIgnoreCase(String.valueOf(payload.get("liquidity")));
+            BigDecimal fees = feeEngine.feeFor(order.getUserId(), order.getInstrumentSymbol(), fillNotional, maker);
 
             // Create execution record
             log.debug("📝 [KAFKA-EXECUTION] Creating execution record - OrderID: {}", orderId);
-            Executions execution = Executions.builder()
+            Executions execution = executionRepo.save(Executions.builder()
                     .order(order)
                     .instrumentId(order.getInstrumentId())
                     .quantity(executionQuantity)
@@ -101,50 +185,22 @@ public class ExecutionEventConsumer {
                     .notional(notionalValue)
                     .executionId(counterOrderId)
                     .executedAt(executedAt)
-                    .fees(BigDecimal.ZERO) // TODO: Calculate fees
-                    .build();
-
-            order.getItems().add(execution);
-            log.debug("✅ [KAFKA-EXECUTION] Execution record added - OrderID: {}, Total executions: {}",
-                    orderId, order.getItems().size());
-
-            // Update order filled quantity and average fill price
-            BigDecimal previousFilled = order.getFilledQuantity() != null ?
-                    order.getFilledQuantity() : BigDecimal.ZERO;
-            BigDecimal newFilledQuantity = previousFilled.add(executionQuantity);
-            order.setFilledQuantity(newFilledQuantity);
-            log.debug("💰 [KAFKA-EXECUTION] Updated filled quantity - OrderID: {}, Previous: {}, New: {}, Total: {}",
-                    orderId, previousFilled, executionQuantity, newFilledQuantity);
-
-            // Calculate weighted average fill price
-            if (order.getAvgFillPrice() == null) {
-                order.setAvgFillPrice(executionPrice);
-                log.debug("💵 [KAFKA-EXECUTION] Set initial average fill price - OrderID: {}, AvgPrice: {}",
-                        orderId, executionPrice);
-            } else {
-                BigDecimal totalNotional = order.getNotionalValue() != null ?
-                        order.getNotionalValue() : BigDecimal.ZERO;
-                totalNotional = totalNotional.add(notionalValue);
-                order.setNotionalValue(totalNotional);
-
-                BigDecimal avgPrice = totalNotional.divide(newFilledQuantity, 8, RoundingMode.HALF_UP);
-                order.setAvgFillPrice(avgPrice);
-                log.debug("💵 [KAFKA-EXECUTION] Updated average fill price - OrderID: {}, AvgPrice: {}, TotalNotional: {}",
-                        orderId, avgPrice, totalNotional);
-            }
-
-            // Update order status based on execution status from exchange
-            OrderStatus newStatus = mapExecutionStatus(status);
-            order.setStatus(newStatus);
-            order.setUpdatedAt(OffsetDateTime.now());
+                    .fees(fees)
+                    .build());
 
-            if (newStatus == OrderStatus.FILLED) {
-                order.setExecutedAt(executedAt);
-                log.info("✅ [KAFKA-EXECUTION] Order fully filled - OrderID: {}, ExecutedAt: {}", orderId, executedAt);
+            if (slice && mapExecutionStatus(status) == OrderStatus.FILLED) {
+                icebergSlicer.replenish(order, exchangeOrderId);
             }
 
-            log.debug("💾 [KAFKA-EXECUTION] Saving order updates - OrderID: {}", orderId);
-            orderRepo.save(order);
+            // Settle the fill against the order's funds reservation once this transaction commits
+            if (order.getOrderSide() == OrderSide.BUY) {
+                fundsService.settleBuy(order.getUserId(), order.getId(), counterOrderId, fillNotional,
+                        newStatus == OrderStatus.FILLED);
+            } else {
+                fundsService.settleSell(order.getUserId(), order.getId(), counterOrderId, fillNotional);
+            }
+            eventPublisher.publishEvent(
+                    OrderStatusChangedEvent.fill(order, previousStatus, executionQuantity, fillNotional));
 
             log.info("✅ [KAFKA-EXECUTION] Order updated successfully - OrderID: {}, Status: {}, Filled: {}/{}, AvgPrice: {}",
                     orderId, newStatus, newFilledQuantity, order.getTotalQuantity(), order.getAvgFillPrice());
@@ -155,6 +211,9 @@ public class ExecutionEventConsumer {
                     orderId, order.getUserId());
             notificationService.sendOrderUpdate(order.getUserId(), order, message, execution);
 
+            // Push the affected symbol's P&L to subscribed dashboards
+            pnlStreamService.onFill(order);
+
             ack.acknowledge();
 
         } catch (OrderNotFoundException e) {
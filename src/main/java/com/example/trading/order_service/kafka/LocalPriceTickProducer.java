@@ -0,0 +1,63 @@
+package com.example.trading.order_service.kafka;
+
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.MarketPriceEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the market data feed, for development and tests without a real price source.
+ * Publishes a random walk for the configured symbols to market.prices.v1.
+ * Enable with market-data.simulator.enabled=true
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "market-data.simulator.enabled", havingValue = "true")
+public class LocalPriceTickProducer {
+
+    private final OrderEventsProducer producer;
+    private final List<String> symbols;
+    private final Map<String, BigDecimal> prices = new ConcurrentHashMap<>();
+
+    public LocalPriceTickProducer(OrderEventsProducer producer,
+                                  @Value("${market-data.simulator.symbols:AAPL,MSFT,GOOGL}") List<String> symbols,
+                                  @Value("${market-data.simulator.start-price:100}") BigDecimal startPrice) {
+        this.producer = producer;
+        this.symbols = symbols;
+        symbols.forEach(symbol -> prices.put(symbol, startPrice));
+        log.info("📈 [PRICE-SIMULATOR] Publishing simulated ticks for {}", symbols);
+    }
+
+    @Scheduled(fixedRateString = "${market-data.simulator.interval-ms:1000}")
+    public void publishTicks() {
+        for (String symbol : symbols) {
+            // +/- 0.5% step, never below one cent
+            double step = ThreadLocalRandom.current().nextDouble(-0.005, 0.005);
+            BigDecimal price = prices.compute(symbol, (s, p) -> p.multiply(BigDecimal.valueOf(1 + step))
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .max(new BigDecimal("0.01")));
+
+            EventEnvelope<MarketPriceEvent> envelope = new EventEnvelope<>(
+                    "MarketPriceTick",
+                    "v1",
+                    UUID.randomUUID().toString(),
+                    "price-simulator",
+                    Instant.now().toString(),
+                    new MarketPriceEvent(symbol, price, Instant.now())
+            );
+            producer.publish("market.prices.v1", symbol, envelope);
+        }
+    }
+}
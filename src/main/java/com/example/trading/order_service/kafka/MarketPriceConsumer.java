@@ -0,0 +1,68 @@
+package com.example.trading.order_service.kafka;
+
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.service.MarketPriceCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MarketPriceConsumer {
+
+    private final MarketPriceCache priceCache;
+
+    /**
+     * Listens to market.prices.v1 topic for last-trade price ticks
+     * Ticks are fire-and-forget: a bad tick is logged and skipped, never retried.
+     * The cache keeps only the newest tick per symbol, so bursts are conflated before they reach P&L
+     */
+    @KafkaListener(
+            topics = "market.prices.v1",
+            groupId = "market-price-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumePriceTick(
+            @Payload EventEnvelope<Map<String, Object>> envelope,
+            Acknowledgment ack
+    ) {
+        try {
+            Map<String, Object> payload = envelope.getPayload();
+            Object symbol = payload != null ? payload.get("symbol") : null;
+            Object price = payload != null ? payload.get("price") : null;
+            if (symbol == null || price == null) {
+                log.warn("⚠️ [KAFKA-PRICE] Ignoring malformed price tick - Payload: {}", payload);
+                ack.acknowledge();
+                return;
+            }
+
+            BigDecimal marketPrice = new BigDecimal(String.valueOf(price));
+            Object timestamp = payload.get("timestamp");
+            Instant tickTime = timestamp != null ? parseTimestamp(timestamp) : null;
+            log.debug("📈 [KAFKA-PRICE] Price tick - Symbol: {}, Price: {}, Timestamp: {}", symbol, marketPrice, tickTime);
+            priceCache.update(String.valueOf(symbol), marketPrice, tickTime);
+
+        } catch (Exception e) {
+            log.warn("⚠️ [KAFKA-PRICE] Failed to process price tick - Error: {}", e.getMessage());
+        }
+        ack.acknowledge();
+    }
+
+    // Accepts ISO-8601 strings as well as epoch millis / epoch seconds with fraction (Jackson's Instant format)
+    private Instant parseTimestamp(Object value) {
+        if (value instanceof Number number) {
+            return number instanceof Long || number instanceof Integer
+                    ? Instant.ofEpochMilli(number.longValue())
+                    : Instant.ofEpochMilli((long) (number.doubleValue() * 1000));
+        }
+        return Instant.parse(String.valueOf(value));
+    }
+}
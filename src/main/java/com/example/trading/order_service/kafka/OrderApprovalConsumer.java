@@ -3,8 +3,10 @@ package com.example.trading.order_service.kafka;
 import com.example.trading.order_service.dto.EventEnvelope;
 import com.example.trading.order_service.dto.OrderApprovalEvent;
 import com.example.trading.order_service.dto.OrderRejectedEvent;
+import com.example.trading.order_service.dto.compliance.ComplianceDecision;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.service.ComplianceRuleEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -12,7 +14,6 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -25,6 +26,9 @@ public class OrderApprovalConsumer {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ComplianceRuleEngine complianceRules;
+
     @KafkaListener(
             topics = "order-waiting-approval-topic",
             groupId = "order-approval-group"
@@ -34,29 +38,11 @@ public class OrderApprovalConsumer {
         String orderId = event.getOrderId();
 
         Optional<Order> orderOpt = orderRepository.findById(Long.valueOf(orderId));
-        boolean approved = false;
-        String rejectionReason = "Unknown error";
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            // EXAMPLE LOGIC: block certain users/symbols
-            Set<Long> blockedUsers = Set.of(911L, 1313L);
-            Set<String> blockedSymbols = Set.of("XYZHALTED", "SUSPENDEDSTOCK");
-
-            if (blockedUsers.contains(order.getUserId())) {
-                approved = false;
-                rejectionReason = "User is blocked.";
-            } else if (blockedSymbols.contains(order.getInstrumentSymbol())) {
-                approved = false;
-                rejectionReason = "Instrument is halted.";
-            } else {
-                approved = true;
-            }
-        } else {
-            approved = false;
-            rejectionReason = "Order not found in DB";
-        }
+        ComplianceDecision decision = orderOpt
+                .map(complianceRules::evaluate)
+                .orElseGet(() -> ComplianceDecision.rejected(null, "Order not found in DB"));
 
-        if (approved) {
+        if (decision.isApproved()) {
             EventEnvelope<OrderApprovalEvent> approveEnvelope = new EventEnvelope<>(
                     "OrderApproved", "v1", UUID.randomUUID().toString(),
                     "approval-service", Instant.now().toString(),
@@ -64,10 +50,11 @@ public class OrderApprovalConsumer {
             );
             producer.publish("order-approved-topic", orderId, approveEnvelope);
         } else {
+            log.info("Order {} rejected by compliance rule {}: {}", orderId, decision.getRuleId(), decision.getReason());
             EventEnvelope<OrderRejectedEvent> rejectEnvelope = new EventEnvelope<>(
                     "OrderRejected", "v1", UUID.randomUUID().toString(),
                     "approval-service", Instant.now().toString(),
-                    new OrderRejectedEvent(orderId, rejectionReason)
+                    new OrderRejectedEvent(orderId, decision.getReason(), decision.getRuleId())
             );
             producer.publish("order-rejected-topic", orderId, rejectEnvelope);
         }
@@ -2,14 +2,19 @@ package com.example.trading.order_service.kafka;
 
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.dto.OrderCancelledEvent;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.OrderNotFoundException;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.IcebergSlicer;
+import com.example.trading.order_service.service.OrderService;
 import com.example.trading.order_service.service.OrderStatusNotificationService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -18,15 +23,25 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class OrderCancellationConsumer {
 
+    private static final Set<OrderStatus> OPEN_STATUSES = EnumSet.copyOf(
+            Arrays.stream(OrderStatus.values()).filter(s -> !s.isTerminal()).toList());
+
     private final OrderRepository orderRepo;
     private final OrderStatusNotificationService notificationService;
+    private final FundsReservationService fundsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IcebergSlicer icebergSlicer;
+    private final OrderService orderService;
 
     /**
      * Listens to failed.v1 topic for order cancellation events from Exchange Service
@@ -53,7 +68,7 @@ public class OrderCancellationConsumer {
 
             log.info("Processing cancellation for order: {}, reason: {}", orderId, reason);
 
-            Order order = orderRepo.findById(Long.parseLong(orderId))
+            Order order = icebergSlicer.findOrder(Long.parseLong(orderId))
                     .orElseThrow(() -> new OrderNotFoundException(Long.parseLong(orderId)));
 
             // Idempotency check - if already cancelled, skip
@@ -70,26 +85,36 @@ public class OrderCancellationConsumer {
                 return;
             }
 
-            // Update order status to CANCELLED
-            order.setStatus(OrderStatus.CANCELLED);
-            order.setUpdatedAt(OffsetDateTime.now());
-
             // Parse cancelledAt timestamp if available
+            OffsetDateTime cancelledAt = order.getExecutedAt(); // Reusing executedAt for cancellation time
             if (payload.get("cancelledAt") != null) {
                 try {
-                    OffsetDateTime cancelledAt = OffsetDateTime.parse(String.valueOf(payload.get("cancelledAt")));
-                    order.setExecutedAt(cancelledAt); // Reusing executedAt for cancellation time
+                    cancelledAt = OffsetDateTime.parse(String.valueOf(payload.get("cancelledAt")));
                 } catch (Exception e) {
                     log.warn("Could not parse cancelledAt timestamp", e);
                 }
             }
 
-            orderRepo.save(order);
+            // Update order status to CANCELLED, writing only the status so a fill committed meanwhile is kept
+            OrderStatus previousStatus = order.getStatus();
+            OffsetDateTime now = OffsetDateTime.now();
+            if (orderRepo.confirmCancel(order.getId(), OPEN_STATUSES, cancelledAt, now) != 1) {
+                log.warn("Order {} left status {} before the cancel was confirmed, skipping", orderId, previousStatus);
+                ack.acknowledge();
+                return;
+            }
+            // Read back, so the replacement below is sized from fills that committed before the cancel
+            Long id = order.getId();
+            order = orderRepo.findById(id).orElseThrow(() -> new OrderNotFoundException(id));
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
 
             log.info("Order {} marked as CANCELLED. Reason: {}", orderId, reason);
 
-            // TODO: Release reserved funds in wallet service
-            // walletService.releaseFunds(order.getUserId(), order.getId());
+            // Release reserved funds
+            fundsService.release(order.getId());
+
+            // A cancel-replace sends its replacement now that the filled quantity is final
+            orderService.completeReplace(order);
 
             // Send real-time notification to frontend via WebSocket
             String message = String.format("Order cancelled: %s", reason);
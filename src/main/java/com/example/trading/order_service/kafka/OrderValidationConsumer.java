@@ -2,6 +2,7 @@ package com.example.trading.order_service.kafka;
 
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.OrderNotFoundException;
 import com.example.trading.order_service.exception.ValidationException;
@@ -9,6 +10,7 @@ import com.example.trading.order_service.repository.OrderRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -17,8 +19,8 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 @Slf4j
@@ -28,6 +30,7 @@ public class OrderValidationConsumer {
     private final OrderRepository orderRepo;
     private final OrderEventsProducer producer;
     private final com.example.trading.order_service.service.PositionService positionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @KafkaListener(
             topics = "orders.validation.v1",
@@ -73,9 +76,14 @@ public class OrderValidationConsumer {
 
             // 3. Update status
             log.debug("💾 [KAFKA-VALIDATION] Updating order status to PENDING_WALLET_CHECK - OrderID: {}", extractedOrderId);
-            order.setStatus(OrderStatus.PENDING_WALLET_CHECK);
-            order.setUpdatedAt(OffsetDateTime.now());
-            orderRepo.save(order);
+            Optional<Order> moved = orderRepo.transitionAndReload(order, OrderStatus.PENDING_WALLET_CHECK);
+            if (moved.isEmpty()) {
+                log.warn("⚠️ [KAFKA-VALIDATION] Order changed during validation, not forwarded - OrderID: {}", extractedOrderId);
+                ack.acknowledge();
+                return;
+            }
+            order = moved.get();
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, OrderStatus.PENDING_VALIDATION));
             log.info("✅ [KAFKA-VALIDATION] Order status updated - OrderID: {}, NewStatus: PENDING_WALLET_CHECK", extractedOrderId);
 
             // 4. Publish to next topic
@@ -189,11 +197,15 @@ public class OrderValidationConsumer {
         try {
             log.info("🚫 [KAFKA-VALIDATION] Handling validation failure - OrderID: {}, Reason: {}", orderId, e.getMessage());
             Order order = orderRepo.findById(Long.parseLong(orderId)).orElse(null);
-            if (order != null) {
-                order.setStatus(OrderStatus.REJECTED);
-                order.setUpdatedAt(OffsetDateTime.now());
-                orderRepo.save(order);
+            Optional<Order> moved = order != null && order.getStatus() == OrderStatus.PENDING_VALIDATION
+                    ? orderRepo.transitionAndReload(order, OrderStatus.REJECTED)
+                    : Optional.empty();
+            if (moved.isPresent()) {
+                eventPublisher.publishEvent(OrderStatusChangedEvent.of(moved.get(), OrderStatus.PENDING_VALIDATION));
                 log.info("✅ [KAFKA-VALIDATION] Order marked as REJECTED - OrderID: {}, Reason: {}", orderId, e.getMessage());
+            } else if (order != null) {
+                log.warn("⚠️ [KAFKA-VALIDATION] Order no longer PENDING_VALIDATION, not rejected - OrderID: {}, Status: {}",
+                        orderId, order.getStatus());
             } else {
                 log.warn("⚠️ [KAFKA-VALIDATION] Could not find order to mark as REJECTED - OrderID: {}", orderId);
             }
@@ -1,16 +1,23 @@
 package com.example.trading.order_service.kafka;
 
+import com.example.trading.order_service.Enums.OrderLane;
+import com.example.trading.order_service.Enums.OrderSide;
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.dto.ExchangeOrderRequest;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.InsufficientFundsException;
 import com.example.trading.order_service.exception.OrderNotFoundException;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.MarketPriceCache;
+import com.example.trading.order_service.service.OrderLaneRouter;
 import com.example.trading.order_service.service.OrderStatusNotificationService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -20,8 +27,8 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.OffsetDateTime;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -32,9 +39,13 @@ public class WalletCheckConsumer {
     private final OrderRepository orderRepo;
     private final OrderEventsProducer producer;
     private final OrderStatusNotificationService notificationService;
+    private final MarketPriceCache priceCache;
+    private final FundsReservationService fundsService;
+    private final OrderLaneRouter laneRouter;
+    private final ApplicationEventPublisher eventPublisher;
 
     @KafkaListener(
-            topics = "orders.wallet-check.v1",
+            topics = OrderLaneRouter.WALLET_CHECK_TOPIC,
             groupId = "wallet-check-group",
             containerFactory = "kafkaListenerContainerFactory"
     )
@@ -44,9 +55,32 @@ public class WalletCheckConsumer {
             @Header(KafkaHeaders.RECEIVED_KEY) String orderId,
             Acknowledgment ack
     ) {
+        processWalletCheck(envelope, orderId, ack, OrderLane.NORMAL);
+    }
+
+    /**
+     * HIGH lane: MARKET/IOC/FOK orders, consumed by a separate container.
+     */
+    @KafkaListener(
+            topics = OrderLaneRouter.PRIORITY_WALLET_CHECK_TOPIC,
+            groupId = "wallet-check-group",
+            containerFactory = "priorityKafkaListenerContainerFactory"
+    )
+    @Transactional
+    public void consumePriorityOrderForWalletCheck(
+            @Payload EventEnvelope<Map<String, Object>> envelope,
+            @Header(KafkaHeaders.RECEIVED_KEY) String orderId,
+            Acknowledgment ack
+    ) {
+        processWalletCheck(envelope, orderId, ack, OrderLane.HIGH);
+    }
+
+    private void processWalletCheck(EventEnvelope<Map<String, Object>> envelope, String orderId,
+                                    Acknowledgment ack, OrderLane lane) {
         try {
-            log.info("🔔 [KAFKA-WALLET] Received wallet check request - OrderID: {}, EventType: {}",
-                    orderId, envelope.getEventType());
+            log.info("🔔 [KAFKA-WALLET] Received wallet check request - OrderID: {}, EventType: {}, Lane: {}",
+                    orderId, envelope.getEventType(), lane);
+            laneRouter.recordWalletCheckLatency(lane, envelope.getTimeStamp());
 
             // Extract orderId from payload Map
             Map<String, Object> payload = envelope.getPayload();
@@ -75,11 +109,10 @@ public class WalletCheckConsumer {
             log.info("💰 [KAFKA-WALLET] Required amount calculated - OrderID: {}, Amount: {}, User: {}",
                     extractedOrderId, requiredAmount, order.getUserId());
 
-            // Check wallet balance
-            // TODO: Replace with actual wallet service call
+            // Check wallet balance and reserve funds in one step
             log.info("🔍 [KAFKA-WALLET] Checking wallet balance - OrderID: {}, UserID: {}, Required: {}",
                     extractedOrderId, order.getUserId(), requiredAmount);
-            boolean hasSufficientFunds = checkWalletBalance(order.getUserId(), requiredAmount);
+            boolean hasSufficientFunds = checkAndReserveFunds(order, requiredAmount);
 
             if (!hasSufficientFunds) {
                 log.warn("❌ [KAFKA-WALLET] Insufficient funds - OrderID: {}, UserID: {}, Required: {}",
@@ -90,15 +123,19 @@ public class WalletCheckConsumer {
             }
             log.info("✅ [KAFKA-WALLET] Sufficient funds available - OrderID: {}, Amount: {}", extractedOrderId, requiredAmount);
 
-            // TODO: Reserve funds in wallet service
-            log.debug("🔒 [KAFKA-WALLET] Reserving funds (TODO: implement) - OrderID: {}, Amount: {}", orderId, requiredAmount);
-            // reserveFunds(order.getUserId(), requiredAmount, order.getId());
-
             // Update order status
             log.debug("💾 [KAFKA-WALLET] Updating order status to PENDING_COMPLIANCE - OrderID: {}", extractedOrderId);
-            order.setStatus(OrderStatus.PENDING_COMPLIANCE);
-            order.setUpdatedAt(OffsetDateTime.now());
-            orderRepo.save(order);
+            OrderStatus previousStatus = order.getStatus();
+            Optional<Order> moved = orderRepo.transitionAndReload(order, OrderStatus.PENDING_COMPLIANCE);
+            if (moved.isEmpty()) {
+                // Cancelled while the funds were being reserved; give them back
+                log.warn("⚠️ [KAFKA-WALLET] Order changed during wallet check, releasing funds - OrderID: {}", extractedOrderId);
+                fundsService.release(order.getId());
+                ack.acknowledge();
+                return;
+            }
+            order = moved.get();
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
             log.info("✅ [KAFKA-WALLET] Order status updated - OrderID: {}, NewStatus: PENDING_COMPLIANCE", extractedOrderId);
 
             // Send WebSocket notification to frontend
@@ -124,7 +161,7 @@ public class WalletCheckConsumer {
 
             // Publish to compliance topic with exchange format
             log.info("📤 [KAFKA-WALLET] Publishing to compliance topic - OrderID: {}", orderId);
-            producer.publish("orders.compliance.v1", orderId, exchangeEnvelope);
+            producer.publish("orders.compliance.v1", orderId, exchangeEnvelope, laneRouter.headers(lane));
             log.info("✅ [KAFKA-WALLET] Order wallet check passed and forwarded - OrderID: {}", orderId);
 
             ack.acknowledge();
@@ -151,30 +188,41 @@ public class WalletCheckConsumer {
             return order.getLimitPrice().multiply(order.getTotalQuantity());
         }
 
+        // MARKET orders carry no price: use the last cached market price if it is fresh
+        if (order.getTotalQuantity() != null) {
+            BigDecimal marketPrice = priceCache.getFreshPrice(order.getInstrumentId())
+                    .or(() -> priceCache.getFreshPrice(order.getInstrumentSymbol()))
+                    .orElse(null);
+            if (marketPrice != null) {
+                return marketPrice.multiply(order.getTotalQuantity());
+            }
+        }
+
         log.warn("Unable to calculate required amount for order {}. Using total quantity as fallback.", order.getId());
         return order.getTotalQuantity();
     }
 
-    private boolean checkWalletBalance(Long userId, BigDecimal requiredAmount) {
-        // TODO: Implement actual wallet service call
-        // This is a placeholder - replace with actual wallet check logic
-        // Example:
-        // WalletBalance balance = walletService.getBalance(userId);
-        // return balance.getAvailableBalance().compareTo(requiredAmount) >= 0;
-
-        log.debug("Checking wallet balance for user {}. Required: {}", userId, requiredAmount);
+    private boolean checkAndReserveFunds(Order order, BigDecimal requiredAmount) {
+        // Only BUY orders spend cash; SELL orders are covered by the position check in validation
+        if (order.getOrderSide() != OrderSide.BUY) {
+            return true;
+        }
 
-        // For now, returning true to allow flow to continue
-        // In production, implement actual wallet check
-        return true;
+        log.debug("🔒 [KAFKA-WALLET] Reserving funds - OrderID: {}, Amount: {}", order.getId(), requiredAmount);
+        return fundsService.reserve(order.getUserId(), order.getId(), requiredAmount);
     }
 
     private void handleInsufficientFunds(Order order, BigDecimal requiredAmount) {
         try {
             log.info("🚫 [KAFKA-WALLET] Handling insufficient funds - OrderID: {}, Required: {}", order.getId(), requiredAmount);
-            order.setStatus(OrderStatus.REJECTED);
-            order.setUpdatedAt(OffsetDateTime.now());
-            orderRepo.save(order);
+            OrderStatus previousStatus = order.getStatus();
+            Optional<Order> moved = orderRepo.transitionAndReload(order, OrderStatus.REJECTED);
+            if (moved.isEmpty()) {
+                log.warn("⚠️ [KAFKA-WALLET] Order changed during wallet check, not rejected - OrderID: {}", order.getId());
+                return;
+            }
+            order = moved.get();
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
             log.info("✅ [KAFKA-WALLET] Order marked as REJECTED due to insufficient funds - OrderID: {}", order.getId());
 
             // Send WebSocket notification to frontend
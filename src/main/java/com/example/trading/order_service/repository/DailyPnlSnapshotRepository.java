@@ -0,0 +1,22 @@
+package com.example.trading.order_service.repository;
+
+import com.example.trading.order_service.entity.DailyPnlSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyPnlSnapshotRepository extends JpaRepository<DailyPnlSnapshot, Long> {
+
+    List<DailyPnlSnapshot> findByUserIdAndBusinessDate(Long userId, LocalDate businessDate);
+
+    /**
+     * Removes the snapshots of a business date so a rerun replaces them.
+     */
+    @Modifying
+    @Query("delete from DailyPnlSnapshot s where s.businessDate = :businessDate")
+    int deleteByBusinessDate(@Param("businessDate") LocalDate businessDate);
+}
@@ -1,15 +1,75 @@
 package com.example.trading.order_service.repository;
 
+import com.example.trading.order_service.Enums.OrderSide;
 import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.Enums.OrderType;
 import com.example.trading.order_service.entity.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    interface OrderExpiryView {
+        Long getId();
+
+        OffsetDateTime getExpiresAt();
+    }
+
+    interface OpenOrderView {
+        Long getId();
+
+        Long getUserId();
+
+        String getInstrumentSymbol();
+
+        OrderSide getOrderSide();
+
+        OrderStatus getStatus();
+
+        BigDecimal getTotalQuantity();
+
+        BigDecimal getFilledQuantity();
+
+        BigDecimal getLimitPrice();
+    }
+
+    interface OcoMemberView {
+        Long getId();
+
+        Long getUserId();
+
+        String getOcoGroupId();
+
+        OrderStatus getStatus();
+
+        BigDecimal getFilledQuantity();
+    }
+
+    interface OpenOrderCountView {
+        Long getUserId();
+
+        String getInstrumentSymbol();
+
+        long getOpenOrders();
+    }
+
     Optional<Order> findByUserIdAndClientOrderId(Long userId, String clientOrderId);
 
+    List<Order> findByUserIdAndClientOrderIdIn(Long userId, Collection<String> clientOrderIds);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long id);
+
     List<Order> findByUserIdOrderByPlacedAtDesc(Long userId);
 
     List<Order> findByUserIdAndInstrumentIdOrderByPlacedAtDesc(Long userId, String instrumentId);
@@ -17,4 +77,140 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserIdAndInstrumentSymbol(Long userId, String instrumentSymbol);
 
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
+
+    List<Order> findByStatusAndTypeIn(OrderStatus status, Collection<OrderType> types);
+
+    Optional<Order> findByActiveSliceId(Long activeSliceId);
+
+    List<OcoMemberView> findByOcoGroupIdIsNotNullAndStatusIn(Collection<OrderStatus> statuses);
+
+    @Query("select o from Order o where o.userId = :userId and o.status in :statuses"
+            + " and (:symbol is null or o.instrumentSymbol = :symbol)"
+            + " and (:ocoGroupId is null or o.ocoGroupId = :ocoGroupId)")
+    List<Order> findOpenForCancel(@Param("userId") Long userId,
+                                  @Param("statuses") Collection<OrderStatus> statuses,
+                                  @Param("symbol") String instrumentSymbol,
+                                  @Param("ocoGroupId") String ocoGroupId);
+
+    @Query("select o.userId as userId, o.instrumentSymbol as instrumentSymbol, count(o) as openOrders"
+            + " from Order o where o.status in :statuses group by o.userId, o.instrumentSymbol")
+    List<OpenOrderCountView> countByUserAndSymbolInStatus(@Param("statuses") Collection<OrderStatus> statuses);
+
+    List<OpenOrderView> findOpenByStatusIn(Collection<OrderStatus> statuses);
+
+    List<OrderExpiryView> findByExpiresAtIsNotNullAndStatusIn(Collection<OrderStatus> statuses);
+
+    @Query("select o.id from Order o where o.id in :ids and o.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    /**
+     * Set-based variant of {@link #transitionStatus} for a chunk of orders.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :to, o.updatedAt = :now where o.id in :ids and o.status in :from")
+    int transitionStatusIn(@Param("ids") Collection<Long> ids,
+                           @Param("from") Collection<OrderStatus> from,
+                           @Param("to") OrderStatus to,
+                           @Param("now") OffsetDateTime now);
+
+    /**
+     * Applies an amend unless the order changed since it was read (a fill or status change moves updatedAt).
+     *
+     * @return 1 if the order was amended, 0 if it changed concurrently
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.totalQuantity = :quantity, o.limitPrice = :limitPrice, o.notionalValue = :notional,"
+            + " o.updatedAt = :now where o.id = :id and o.updatedAt = :expectedUpdatedAt")
+    int amend(@Param("id") Long id,
+              @Param("quantity") BigDecimal quantity,
+              @Param("limitPrice") BigDecimal limitPrice,
+              @Param("notional") BigDecimal notional,
+              @Param("expectedUpdatedAt") OffsetDateTime expectedUpdatedAt,
+              @Param("now") OffsetDateTime now);
+
+    /**
+     * Writes only the columns a fill changes, unless the order changed since it was read. Everything
+     * else on the row, such as an amended quantity or a pending replace, is left as it is.
+     *
+     * @return 1 if the fill was applied, 0 if the order changed concurrently
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.filledQuantity = :filled, o.avgFillPrice = :avgFillPrice, o.notionalValue = :notional,"
+            + " o.status = :status, o.executedAt = :executedAt, o.updatedAt = :now"
+            + " where o.id = :id and o.updatedAt = :expectedUpdatedAt")
+    int applyFill(@Param("id") Long id,
+                  @Param("filled") BigDecimal filled,
+                  @Param("avgFillPrice") BigDecimal avgFillPrice,
+                  @Param("notional") BigDecimal notional,
+                  @Param("status") OrderStatus status,
+                  @Param("executedAt") OffsetDateTime executedAt,
+                  @Param("expectedUpdatedAt") OffsetDateTime expectedUpdatedAt,
+                  @Param("now") OffsetDateTime now);
+
+    /**
+     * Confirms a cancel reported by the exchange if the order is still in one of the given statuses,
+     * writing only the status and the cancel time.
+     *
+     * @return 1 if the order was cancelled, 0 if its status had already moved on
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = com.example.trading.order_service.Enums.OrderStatus.CANCELLED,"
+            + " o.executedAt = :cancelledAt, o.updatedAt = :now where o.id = :id and o.status in :from")
+    int confirmCancel(@Param("id") Long id,
+                      @Param("from") Collection<OrderStatus> from,
+                      @Param("cancelledAt") OffsetDateTime cancelledAt,
+                      @Param("now") OffsetDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.activeSliceId = :sliceId where o.id = :id")
+    int setActiveSlice(@Param("id") Long id, @Param("sliceId") Long sliceId);
+
+    /**
+     * Records the replacement a cancel-replace sends once the cancel is confirmed, or clears it with nulls.
+     *
+     * @return 1 if the order was updated, 0 if it was no longer in one of the expected statuses
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.replaceQuantity = :quantity, o.replaceLimitPrice = :limitPrice"
+            + " where o.id = :id and o.status in :statuses")
+    int setReplace(@Param("id") Long id,
+                   @Param("quantity") BigDecimal quantity,
+                   @Param("limitPrice") BigDecimal limitPrice,
+                   @Param("statuses") Collection<OrderStatus> statuses);
+
+    /**
+     * Takes the pending replace off the order so exactly one caller sends the replacement, and hands
+     * its clientOrderId over to the replacement.
+     *
+     * @return 1 if the caller claimed the replace, 0 if none was pending or another caller won
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.replaceQuantity = null, o.replaceLimitPrice = null, o.clientOrderId = null"
+            + " where o.id = :id and o.replaceQuantity is not null")
+    int claimReplace(@Param("id") Long id);
+
+    /**
+     * Moves the order to the new status only if it is still in one of the expected ones.
+     *
+     * @return 1 if the order was updated, 0 if its status had already moved on
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :to, o.updatedAt = :now where o.id = :id and o.status in :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<OrderStatus> from,
+                         @Param("to") OrderStatus to,
+                         @Param("now") OffsetDateTime now);
+
+    /**
+     * Moves the order on from the status it was read with, so a concurrent change such as a local
+     * cancel is never overwritten by a stale copy of the entity.
+     *
+     * @return the order reloaded after the change, or empty if its status had already moved on
+     */
+    default Optional<Order> transitionAndReload(Order order, OrderStatus to) {
+        if (transitionStatus(order.getId(), EnumSet.of(order.getStatus()), to, OffsetDateTime.now()) != 1) {
+            return Optional.empty();
+        }
+        return findById(order.getId());
+    }
 }
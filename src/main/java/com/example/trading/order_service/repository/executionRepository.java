@@ -1,10 +1,41 @@
 package com.example.trading.order_service.repository;
 
 import com.example.trading.order_service.entity.Executions;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface executionRepository extends JpaRepository<Executions, Long> {
+
+    interface TradedNotionalView {
+        Long getUserId();
+
+        String getInstrumentSymbol();
+
+        BigDecimal getNotional();
+    }
+
     List<Executions> findByOrderId(Long orderId);
+
+    @Query("select o.userId as userId, o.instrumentSymbol as instrumentSymbol, sum(e.notional) as notional"
+            + " from Executions e join e.order o where e.executedAt >= :since group by o.userId, o.instrumentSymbol")
+    List<TradedNotionalView> sumNotionalByUserAndSymbolSince(@Param("since") OffsetDateTime since);
+
+    /**
+     * Streams every execution before the cutoff with its order, grouped by user and in fill order
+     * within a user. Must be consumed inside a transaction and closed; the MySQL driver only streams
+     * rows instead of buffering the whole result with a fetch size of Integer.MIN_VALUE.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("select e from Executions e join fetch e.order o where e.executedAt < :before"
+            + " order by o.userId, e.executedAt, e.id")
+    Stream<Executions> streamByUserExecutedBefore(@Param("before") OffsetDateTime before);
 }
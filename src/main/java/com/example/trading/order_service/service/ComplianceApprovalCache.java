@@ -0,0 +1,70 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quantity and notional each order was approved by compliance with.
+ * An amend that stays within these limits is risk-reducing and can skip compliance.
+ * Entries expire after orders.compliance-approvals.ttl-ms.
+ */
+@Component
+@Slf4j
+public class ComplianceApprovalCache {
+
+    private final long ttlMs;
+    private final Map<Long, Approval> approvals = new ConcurrentHashMap<>();
+
+    public ComplianceApprovalCache(@Value("${orders.compliance-approvals.ttl-ms:86400000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public void recordApproval(Order order) {
+        approvals.put(order.getId(), new Approval(order.getTotalQuantity(), notional(order), System.currentTimeMillis()));
+    }
+
+    /**
+     * Whether the order with the new quantity and limit price stays within what compliance approved.
+     * Without a cached approval the order's current values are used, as they were approved too.
+     */
+    public boolean isWithinApproval(Order order, BigDecimal newQuantity, BigDecimal newLimitPrice) {
+        Approval approval = approvals.get(order.getId());
+        BigDecimal approvedQty = approval != null ? approval.quantity : order.getTotalQuantity();
+        BigDecimal approvedNotional = approval != null ? approval.notional : notional(order);
+
+        if (approvedQty == null || newQuantity.compareTo(approvedQty) > 0) {
+            return false;
+        }
+        if (newLimitPrice == null || approvedNotional == null) {
+            return newLimitPrice == null; // MARKET orders: quantity alone decides
+        }
+        return newLimitPrice.multiply(newQuantity).compareTo(approvedNotional) <= 0;
+    }
+
+    public void remove(Long orderId) {
+        approvals.remove(orderId);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.compliance-approvals.cleanup-interval-ms:600000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMs;
+        approvals.values().removeIf(approval -> approval.approvedAtMillis < cutoff);
+    }
+
+    private static BigDecimal notional(Order order) {
+        if (order.getLimitPrice() == null || order.getTotalQuantity() == null) {
+            return null;
+        }
+        return order.getLimitPrice().multiply(order.getTotalQuantity());
+    }
+
+    private record Approval(BigDecimal quantity, BigDecimal notional, long approvedAtMillis) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.dto.compliance.ComplianceDecision;
+import com.example.trading.order_service.dto.compliance.ComplianceRuleDefinition;
+import com.example.trading.order_service.dto.compliance.ComplianceRuleSetDefinition;
+import com.example.trading.order_service.dto.compliance.ComplianceRuleSetInfo;
+import com.example.trading.order_service.entity.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compliance rules loaded from compliance.rules.location (a JSON file) and compiled into an
+ * immutable rule set: blocked users become a sorted long[] searched with binary search, symbol
+ * lists become hash sets, order types become EnumSets. Evaluating an order touches no locks
+ * and allocates nothing unless a rule fires.
+ *
+ * The file is re-read every compliance.rules.reload-interval-ms and on demand; a changed file is
+ * compiled off to the side and swapped in atomically. A file that fails to compile is logged and
+ * the current rules stay in force.
+ */
+@Service
+@Slf4j
+public class ComplianceRuleEngine {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String location;
+
+    private final AtomicReference<CompiledRuleSet> current = new AtomicReference<>();
+
+    public ComplianceRuleEngine(ResourceLoader resourceLoader,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${compliance.rules.location:classpath:compliance-rules.json}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.location = location;
+        // Refuse to start without a valid rule set rather than approving everything
+        current.set(compile(read()));
+        log.info("📜 [COMPLIANCE] Loaded rule set version {} with {} active rules from {}",
+                current.get().version, current.get().rules.length, location);
+    }
+
+    public ComplianceDecision evaluate(Order order) {
+        CompiledRuleSet rules = current.get();
+        for (CompiledRule rule : rules.rules) {
+            if (rule.violatedBy(order)) {
+                meterRegistry.counter("compliance.rule.fired", "rule", rule.id()).increment();
+                return ComplianceDecision.rejected(rule.id(), rule.reason());
+            }
+        }
+        return ComplianceDecision.APPROVED;
+    }
+
+    /**
+     * Re-reads the rules file and swaps in the new rule set if the file changed.
+     *
+     * @return true if a new rule set was installed
+     */
+    public boolean reload() {
+        RawRules raw = read();
+        if (raw.digest.equals(current.get().digest)) {
+            return false;
+        }
+        CompiledRuleSet compiled = compile(raw);
+        current.set(compiled);
+        log.info("📜 [COMPLIANCE] Reloaded rule set version {} with {} active rules",
+                compiled.version, compiled.rules.length);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${compliance.rules.reload-interval-ms:30000}",
+            initialDelayString = "${compliance.rules.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("❌ [COMPLIANCE] Failed to reload rules from {}, keeping version {}",
+                    location, current.get().version, e);
+        }
+    }
+
+    public ComplianceRuleSetInfo info() {
+        CompiledRuleSet rules = current.get();
+        return ComplianceRuleSetInfo.builder()
+                .version(rules.version)
+                .source(location)
+                .activeRules(Arrays.stream(rules.rules).map(CompiledRule::id).toList())
+                .loadedAt(rules.loadedAt)
+                .build();
+    }
+
+    private RawRules read() {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            byte[] bytes = in.readAllBytes();
+            return new RawRules(bytes, DigestUtils.md5DigestAsHex(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read compliance rules from " + location, e);
+        }
+    }
+
+    private CompiledRuleSet compile(RawRules raw) {
+        ComplianceRuleSetDefinition definition;
+        try {
+            definition = objectMapper.readValue(raw.bytes, ComplianceRuleSetDefinition.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid compliance rules in " + location, e);
+        }
+        CompiledRule[] rules = definition.getRules().stream()
+                .filter(ComplianceRuleDefinition::isEnabled)
+                .map(this::compileRule)
+                .toArray(CompiledRule[]::new);
+        return new CompiledRuleSet(definition.getVersion(), raw.digest, rules, Instant.now());
+    }
+
+    // Rejects a rule missing the fields its type needs, so a bad file fails the reload instead of every evaluation
+    private CompiledRule compileRule(ComplianceRuleDefinition def) {
+        String id = def.getId();
+        if (id == null || id.isBlank()) {
+            throw invalidRule("a rule", "id");
+        }
+        if (def.getType() == null) {
+            throw invalidRule(id, "type");
+        }
+        String reason = def.getReason() != null ? def.getReason() : "Rejected by compliance rule " + id;
+        Set<String> symbols = def.getSymbols() != null ? Set.copyOf(def.getSymbols()) : null;
+        Set<OrderType> orderTypes = def.getOrderTypes() != null && !def.getOrderTypes().isEmpty()
+                ? EnumSet.copyOf(def.getOrderTypes()) : null;
+
+        return switch (def.getType()) {
+            case BLOCKED_USERS -> {
+                if (def.getUserIds() == null || def.getUserIds().isEmpty() || def.getUserIds().contains(null)) {
+                    throw invalidRule(id, "userIds");
+                }
+                long[] users = def.getUserIds().stream().mapToLong(Long::longValue).sorted().toArray();
+                yield new CompiledRule(id, reason,
+                        order -> order.getUserId() != null && Arrays.binarySearch(users, order.getUserId()) >= 0);
+            }
+            case BLOCKED_SYMBOLS -> {
+                if (symbols == null || symbols.isEmpty()) {
+                    throw invalidRule(id, "symbols");
+                }
+                yield new CompiledRule(id, reason,
+                        order -> order.getInstrumentSymbol() != null && symbols.contains(order.getInstrumentSymbol()));
+            }
+            case MAX_NOTIONAL -> {
+                BigDecimal max = def.getMaxNotional();
+                if (max == null) {
+                    throw invalidRule(id, "maxNotional");
+                }
+                yield new CompiledRule(id, reason,
+                        order -> appliesTo(symbols, order)
+                                && order.getNotionalValue() != null
+                                && order.getNotionalValue().compareTo(max) > 0);
+            }
+            case ORDER_TYPE_RESTRICTION -> {
+                if (orderTypes == null) {
+                    throw invalidRule(id, "orderTypes");
+                }
+                yield new CompiledRule(id, reason,
+                        order -> appliesTo(symbols, order) && orderTypes.contains(order.getType()));
+            }
+            case TRADING_HOURS -> {
+                LocalTime open = parseTime(def.getOpen(), id, "open");
+                LocalTime close = parseTime(def.getClose(), id, "close");
+                ZoneId zone;
+                try {
+                    zone = ZoneId.of(def.getZone() != null ? def.getZone() : "UTC");
+                } catch (DateTimeException e) {
+                    throw invalidRule(id, "zone");
+                }
+                yield new CompiledRule(id, reason, order -> {
+                    if (orderTypes != null && !orderTypes.contains(order.getType())) {
+                        return false;
+                    }
+                    LocalTime now = LocalTime.now(zone);
+                    return now.isBefore(open) || !now.isBefore(close);
+                });
+            }
+        };
+    }
+
+    private static LocalTime parseTime(String value, String id, String field) {
+        if (value == null) {
+            throw invalidRule(id, field);
+        }
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw invalidRule(id, field);
+        }
+    }
+
+    private static IllegalStateException invalidRule(String id, String field) {
+        return new IllegalStateException("Compliance rule " + id + " has a missing or invalid " + field);
+    }
+
+    private static boolean appliesTo(Set<String> symbols, Order order) {
+        return symbols == null || symbols.contains(order.getInstrumentSymbol());
+    }
+
+    private interface Check {
+        boolean violatedBy(Order order);
+    }
+
+    private record CompiledRule(String id, String reason, Check check) {
+        boolean violatedBy(Order order) {
+            return check.violatedBy(order);
+        }
+    }
+
+    private record CompiledRuleSet(String version, String digest, CompiledRule[] rules, Instant loadedAt) {
+    }
+
+    private record RawRules(byte[] bytes, String digest) {
+    }
+}
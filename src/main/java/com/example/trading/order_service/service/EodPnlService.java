@@ -0,0 +1,334 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.dto.pnl.EodPnlProgress;
+import com.example.trading.order_service.dto.pnl.PnlResult;
+import com.example.trading.order_service.dto.pnl.SymbolPnl;
+import com.example.trading.order_service.entity.DailyPnlSnapshot;
+import com.example.trading.order_service.entity.Executions;
+import com.example.trading.order_service.repository.DailyPnlSnapshotRepository;
+import com.example.trading.order_service.repository.executionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * End-of-day P&L for the whole book. One read-only transaction streams every execution up to the
+ * end of the business date, ordered by user; the reader hands each user's executions to a
+ * ForkJoinPool, which prices them with one market price snapshot taken when the run starts.
+ * The resulting per-instrument rows are written to daily_pnl_snapshots with batched inserts.
+ *
+ * Realized P&L in a snapshot is cumulative, so the P&L of a day is the difference to the previous
+ * day's snapshot. A rerun for the same date replaces its snapshots. Only one run can be active.
+ */
+@Service
+@Slf4j
+public class EodPnlService {
+
+    private final executionRepository executionRepo;
+    private final DailyPnlSnapshotRepository snapshotRepo;
+    private final ProfitAndLossService pnlService;
+    private final MarketPriceCache priceCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ZoneId zone;
+    private final boolean enabled;
+    private final int parallelism;
+    private final int batchSize;
+    private final double targetUsersPerSecond;
+    private final Counter usersCounter;
+    private final Counter snapshotsCounter;
+    private final Counter failuresCounter;
+    private final Timer runTimer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run current;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "eod-pnl");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EodPnlService(executionRepository executionRepo,
+                         DailyPnlSnapshotRepository snapshotRepo,
+                         ProfitAndLossService pnlService,
+                         MarketPriceCache priceCache,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${orders.expiry.zone:America/New_York}") String zone,
+                         @Value("${pnl.eod.enabled:true}") boolean enabled,
+                         @Value("${pnl.eod.parallelism:0}") int parallelism,
+                         @Value("${pnl.eod.batch-size:500}") int batchSize,
+                         @Value("${pnl.eod.target-users-per-second:500}") double targetUsersPerSecond) {
+        this.executionRepo = executionRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.pnlService = pnlService;
+        this.priceCache = priceCache;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // Snapshot batches commit on their own while the read transaction keeps streaming
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(zone);
+        this.enabled = enabled;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.targetUsersPerSecond = targetUsersPerSecond;
+        this.usersCounter = meterRegistry.counter("pnl.eod.users");
+        this.snapshotsCounter = meterRegistry.counter("pnl.eod.snapshots");
+        this.failuresCounter = meterRegistry.counter("pnl.eod.failures");
+        this.runTimer = Timer.builder("pnl.eod.duration")
+                .description("Duration of an end-of-day P&L run")
+                .register(meterRegistry);
+        meterRegistry.gauge("pnl.eod.users.processed", this, s -> s.current != null ? s.current.users.get() : 0);
+        meterRegistry.gauge("pnl.eod.users.per.second", this, s -> s.current != null ? s.current.usersPerSecond() : 0);
+    }
+
+    @Scheduled(cron = "${pnl.eod.cron:0 30 16 * * MON-FRI}", zone = "${orders.expiry.zone:America/New_York}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        // Runs on its own thread so the shared scheduler thread is not held for the whole batch
+        LocalDate businessDate = LocalDate.now(zone);
+        if (!start(businessDate)) {
+            log.warn("⚠️ [EOD-PNL] Scheduled run skipped, a run is already active - BusinessDate: {}", businessDate);
+        }
+    }
+
+    /**
+     * Starts a run for the business date in the background.
+     *
+     * @return false if a run is already active
+     */
+    public boolean start(LocalDate businessDate) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Run run = new Run(businessDate);
+        current = run;
+        runner.execute(() -> execute(run));
+        return true;
+    }
+
+    /**
+     * @return the progress of the active or last run, or null if there was none since startup
+     */
+    public EodPnlProgress getProgress() {
+        Run run = current;
+        return run != null ? run.progress() : null;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void execute(Run run) {
+        log.info("📅 [EOD-PNL] Run started - BusinessDate: {}, Parallelism: {}", run.businessDate, parallelism);
+        int maxInFlight = parallelism * 4;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Queue<DailyPnlSnapshot> pending = new ConcurrentLinkedQueue<>();
+        AtomicInteger pendingCount = new AtomicInteger();
+        try {
+            Map<String, BigDecimal> prices = priceCache.snapshot();
+            OffsetDateTime cutoff = run.businessDate.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+            writeTransaction.executeWithoutResult(tx -> {
+                int deleted = snapshotRepo.deleteByBusinessDate(run.businessDate);
+                if (deleted > 0) {
+                    log.info("📅 [EOD-PNL] Replacing {} existing snapshots - BusinessDate: {}", deleted, run.businessDate);
+                }
+            });
+
+            readTransaction.executeWithoutResult(tx -> {
+                try (Stream<Executions> stream = executionRepo.streamByUserExecutedBefore(cutoff)) {
+                    Iterator<Executions> rows = stream.iterator();
+                    Long userId = null;
+                    List<Executions> userExecutions = new ArrayList<>();
+                    while (rows.hasNext()) {
+                        Executions ex = rows.next();
+                        Long owner = ex.getOrder().getUserId();
+                        if (userId != null && !userId.equals(owner)) {
+                            submit(run, pool, inFlight, pending, pendingCount, userId, userExecutions, prices);
+                            userExecutions = new ArrayList<>();
+                            // The user's rows were handed off; keep the persistence context from growing
+                            entityManager.clear();
+                            flush(run, pending, pendingCount, false);
+                        }
+                        userId = owner;
+                        userExecutions.add(ex);
+                        run.executions.incrementAndGet();
+                    }
+                    if (userId != null) {
+                        submit(run, pool, inFlight, pending, pendingCount, userId, userExecutions, prices);
+                    }
+                }
+            });
+
+            // Every permit back means every user task has finished
+            inFlight.acquireUninterruptibly(maxInFlight);
+            flush(run, pending, pendingCount, true);
+            run.finish("COMPLETED");
+        } catch (RuntimeException e) {
+            run.finish("FAILED");
+            log.error("❌ [EOD-PNL] Run failed - BusinessDate: {}, UsersProcessed: {}, Error: {}",
+                    run.businessDate, run.users.get(), e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+            runTimer.record(run.elapsedNanos(), TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+
+        EodPnlProgress progress = run.progress();
+        log.info("✅ [EOD-PNL] Run {} - BusinessDate: {}, Users: {}, Failed: {}, Executions: {}, Snapshots: {}, "
+                        + "Elapsed: {} ms, Users/sec: {}",
+                progress.getStatus(), progress.getBusinessDate(), progress.getUsersProcessed(),
+                progress.getUsersFailed(), progress.getExecutionsRead(), progress.getSnapshotsWritten(),
+                progress.getElapsedMs(), String.format("%.1f", progress.getUsersPerSecond()));
+        if (progress.getUsersProcessed() > 0 && progress.getUsersPerSecond() < targetUsersPerSecond) {
+            log.warn("⚠️ [EOD-PNL] Throughput below target - Users/sec: {}, Target: {}",
+                    String.format("%.1f", progress.getUsersPerSecond()), targetUsersPerSecond);
+        }
+    }
+
+    // Blocks the reader while maxInFlight users are being priced, so memory stays bounded
+    private void submit(Run run, ForkJoinPool pool, Semaphore inFlight, Queue<DailyPnlSnapshot> pending,
+                        AtomicInteger pendingCount, Long userId, List<Executions> executions,
+                        Map<String, BigDecimal> prices) {
+        inFlight.acquireUninterruptibly();
+        try {
+            pool.execute(() -> {
+                try {
+                    PnlResult result = pnlService.calculatePnl(userId, executions, prices);
+                    OffsetDateTime now = OffsetDateTime.now();
+                    for (SymbolPnl symbolPnl : result.getBySymbol().values()) {
+                        pending.add(toSnapshot(run.businessDate, userId, symbolPnl, now));
+                        pendingCount.incrementAndGet();
+                    }
+                    run.users.incrementAndGet();
+                    usersCounter.increment();
+                } catch (RuntimeException e) {
+                    run.failures.incrementAndGet();
+                    failuresCounter.increment();
+                    log.error("❌ [EOD-PNL] P&L failed - UserID: {}, Error: {}", userId, e.getMessage(), e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // Writes full batches, or everything that is left when final; only called from the reader thread
+    private void flush(Run run, Queue<DailyPnlSnapshot> pending, AtomicInteger pendingCount, boolean all) {
+        while (pendingCount.get() >= batchSize || (all && pendingCount.get() > 0)) {
+            List<DailyPnlSnapshot> batch = new ArrayList<>(batchSize);
+            DailyPnlSnapshot snapshot;
+            while (batch.size() < batchSize && (snapshot = pending.poll()) != null) {
+                batch.add(snapshot);
+            }
+            pendingCount.addAndGet(-batch.size());
+            writeTransaction.executeWithoutResult(tx -> snapshotRepo.saveAll(batch));
+            run.snapshots.addAndGet(batch.size());
+            snapshotsCounter.increment(batch.size());
+        }
+    }
+
+    private DailyPnlSnapshot toSnapshot(LocalDate businessDate, Long userId, SymbolPnl symbolPnl, OffsetDateTime now) {
+        return DailyPnlSnapshot.builder()
+                .businessDate(businessDate)
+                .userId(userId)
+                .instrumentId(symbolPnl.getSymbol())
+                .positionQty(symbolPnl.getPositionQty())
+                .avgCost(symbolPnl.getAvgCost())
+                .marketPrice(symbolPnl.getMarketPrice()) // null marks an unpriced symbol, whose unrealized P&L is zero
+                .realizedPnl(symbolPnl.getRealizedPnl())
+                .unrealizedPnl(symbolPnl.getUnrealizedPnl())
+                .createdAt(now)
+                .build();
+    }
+
+    private static final class Run {
+        private final LocalDate businessDate;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong users = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong snapshots = new AtomicLong();
+        private volatile String status = "RUNNING";
+        private volatile long endNanos;
+
+        private Run(LocalDate businessDate) {
+            this.businessDate = businessDate;
+        }
+
+        private void finish(String status) {
+            this.endNanos = System.nanoTime();
+            this.status = status;
+        }
+
+        private long elapsedNanos() {
+            long end = endNanos;
+            return (end != 0 ? end : System.nanoTime()) - startNanos;
+        }
+
+        private double usersPerSecond() {
+            long nanos = elapsedNanos();
+            return nanos > 0 ? users.get() * 1_000_000_000d / nanos : 0;
+        }
+
+        private EodPnlProgress progress() {
+            String state = status;
+            return EodPnlProgress.builder()
+                    .businessDate(businessDate)
+                    .status(state)
+                    .usersProcessed(users.get())
+                    .usersFailed(failures.get())
+                    .executionsRead(executions.get())
+                    .snapshotsWritten(snapshots.get())
+                    .usersPerSecond(usersPerSecond())
+                    .done(!"RUNNING".equals(state))
+                    .elapsedMs(elapsedNanos() / 1_000_000)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.ExposureResponse;
+import com.example.trading.order_service.dto.InstrumentExposure;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.dto.PriceQuote;
+import com.example.trading.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live book of open order exposure per user and per (user, instrument): unfilled buy and sell
+ * quantity and notional across all non-terminal orders.
+ * Each open order's contribution is remembered, so a status change, fill or amend only applies the
+ * difference to the aggregates and lookups are O(1). Totals are updated from
+ * {@link OrderStatusChangedEvent}s after commit and checked against the orders table on startup and
+ * every orders.exposure.reconcile-interval-ms.
+ */
+@Service
+@Slf4j
+public class ExposureBook {
+
+    private static final Set<OrderStatus> OPEN_STATUSES = EnumSet.copyOf(
+            Arrays.stream(OrderStatus.values()).filter(s -> !s.isTerminal()).toList());
+
+    private final OrderRepository orderRepo;
+    private final MarketPriceCache priceCache;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, OpenOrder> openOrders = new ConcurrentHashMap<>();
+    private final Map<Long, UserExposure> users = new ConcurrentHashMap<>();
+    // orderId -> System.nanoTime() when it left the book, kept until the next reconcile starts after it
+    private final Map<Long, Long> closedNanos = new ConcurrentHashMap<>();
+
+    public ExposureBook(OrderRepository orderRepo, MarketPriceCache priceCache, MeterRegistry meterRegistry) {
+        this.orderRepo = orderRepo;
+        this.priceCache = priceCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        BigDecimal remaining = event.getStatus().isTerminal() ? BigDecimal.ZERO
+                : remaining(event.getTotalQuantity(), event.getFilledQuantity());
+        apply(event.getOrderId(), event.getUserId(), event.getInstrumentSymbol(), event.getOrderSide(),
+                remaining, event.getLimitPrice(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Open notional the order currently contributes, or zero if it is not open.
+     */
+    public BigDecimal openNotionalOf(Long orderId) {
+        OpenOrder order = openOrders.get(orderId);
+        return order != null ? order.notional() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Gross open notional (buy + sell) of the user.
+     */
+    public BigDecimal openNotional(Long userId) {
+        UserExposure user = users.get(userId);
+        if (user == null) {
+            return BigDecimal.ZERO;
+        }
+        synchronized (user) {
+            return user.total.buyNotional.add(user.total.sellNotional);
+        }
+    }
+
+    /**
+     * Gross open notional (buy + sell) of the user in one instrument.
+     */
+    public BigDecimal openNotional(Long userId, String instrumentSymbol) {
+        UserExposure user = users.get(userId);
+        if (user == null) {
+            return BigDecimal.ZERO;
+        }
+        synchronized (user) {
+            Totals totals = user.bySymbol.get(instrumentSymbol);
+            return totals == null ? BigDecimal.ZERO : totals.buyNotional.add(totals.sellNotional);
+        }
+    }
+
+    public ExposureResponse getExposure(Long userId) {
+        ExposureResponse.ExposureResponseBuilder response = ExposureResponse.builder()
+                .userId(userId)
+                .asOf(OffsetDateTime.now());
+        UserExposure user = users.get(userId);
+        if (user == null) {
+            return response.openBuyNotional(BigDecimal.ZERO).openSellNotional(BigDecimal.ZERO)
+                    .instruments(List.of()).build();
+        }
+        synchronized (user) {
+            List<InstrumentExposure> instruments = new ArrayList<>(user.bySymbol.size());
+            user.bySymbol.forEach((symbol, totals) -> instruments.add(InstrumentExposure.builder()
+                    .instrumentSymbol(symbol)
+                    .openOrders(totals.orders)
+                    .openBuyQuantity(totals.buyQuantity)
+                    .openBuyNotional(totals.buyNotional)
+                    .openSellQuantity(totals.sellQuantity)
+                    .openSellNotional(totals.sellNotional)
+                    .build()));
+            instruments.sort(Comparator.comparing(InstrumentExposure::getInstrumentSymbol));
+            return response.openOrders(user.total.orders)
+                    .openBuyNotional(user.total.buyNotional)
+                    .openSellNotional(user.total.sellNotional)
+                    .instruments(instruments)
+                    .build();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    /**
+     * Compares the book with the open orders in the database and corrects any drift.
+     * Orders that changed or closed in memory since the query started are left to their events.
+     */
+    @Scheduled(fixedDelayString = "${orders.exposure.reconcile-interval-ms:300000}",
+            initialDelayString = "${orders.exposure.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long startedNanos = System.nanoTime();
+        List<OrderRepository.OpenOrderView> rows = orderRepo.findOpenByStatusIn(OPEN_STATUSES);
+        Set<Long> seen = new HashSet<>(rows.size() * 2);
+        int drift = 0;
+        for (OrderRepository.OpenOrderView row : rows) {
+            seen.add(row.getId());
+            if (apply(row.getId(), row.getUserId(), row.getInstrumentSymbol(), row.getOrderSide(),
+                    remaining(row.getTotalQuantity(), row.getFilledQuantity()), row.getLimitPrice(), startedNanos)) {
+                drift++;
+            }
+        }
+        for (Map.Entry<Long, OpenOrder> entry : openOrders.entrySet()) {
+            OpenOrder order = entry.getValue();
+            if (!seen.contains(entry.getKey())
+                    && apply(entry.getKey(), order.userId, order.symbol, order.side, BigDecimal.ZERO, null, startedNanos)) {
+                drift++;
+            }
+        }
+        closedNanos.values().removeIf(closed -> closed < startedNanos);
+        meterRegistry.counter("orders.exposure.reconcile.drift").increment(drift);
+        if (drift > 0) {
+            log.warn("⚖️ [EXPOSURE] Reconciled exposure book - OpenOrders: {}, Corrected: {}", rows.size(), drift);
+        } else {
+            log.debug("⚖️ [EXPOSURE] Exposure book in sync - OpenOrders: {}", rows.size());
+        }
+    }
+
+    /**
+     * Replaces the order's contribution with the new remaining quantity.
+     *
+     * @param unlessTouchedSince skip the order if an event updated it at or after this System.nanoTime()
+     * @return true if the book changed
+     */
+    private boolean apply(Long orderId, Long userId, String symbol, OrderSide side, BigDecimal remaining,
+                          BigDecimal limitPrice, long unlessTouchedSince) {
+        if (orderId == null || userId == null || side == null) {
+            return false;
+        }
+        UserExposure user = users.computeIfAbsent(userId, id -> new UserExposure());
+        synchronized (user) {
+            OpenOrder old = openOrders.get(orderId);
+            if (old != null && old.touchedNanos >= unlessTouchedSince) {
+                return false;
+            }
+            if (old == null) {
+                // Closed after the reconcile query ran: its row is stale
+                Long closed = closedNanos.get(orderId);
+                if (closed != null && closed >= unlessTouchedSince) {
+                    return false;
+                }
+            }
+            OpenOrder updated = null;
+            if (remaining.signum() > 0) {
+                BigDecimal price = limitPrice != null ? limitPrice
+                        : old != null ? old.price
+                        : priceCache.getQuote(symbol).map(PriceQuote::getPrice).orElse(BigDecimal.ZERO);
+                updated = new OpenOrder(userId, symbol, side, remaining, price, System.nanoTime());
+            }
+            if (updated == null) {
+                closedNanos.put(orderId, System.nanoTime());
+            }
+            if (old == null && updated == null) {
+                return false;
+            }
+            if (old != null && updated != null && old.sameAs(updated)) {
+                openOrders.put(orderId, updated);
+                return false;
+            }
+            if (old != null) {
+                user.add(old, -1);
+            }
+            if (updated != null) {
+                openOrders.put(orderId, updated);
+                user.add(updated, 1);
+            } else {
+                openOrders.remove(orderId);
+            }
+            return true;
+        }
+    }
+
+    private static BigDecimal remaining(BigDecimal total, BigDecimal filled) {
+        if (total == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal remaining = filled != null ? total.subtract(filled) : total;
+        return remaining.signum() > 0 ? remaining : BigDecimal.ZERO;
+    }
+
+    private record OpenOrder(Long userId, String symbol, OrderSide side, BigDecimal quantity, BigDecimal price,
+                             long touchedNanos) {
+
+        BigDecimal notional() {
+            return quantity.multiply(price);
+        }
+
+        boolean sameAs(OpenOrder other) {
+            return side == other.side
+                    && quantity.compareTo(other.quantity) == 0
+                    && price.compareTo(other.price) == 0;
+        }
+    }
+
+    // Guarded by the UserExposure monitor
+    private static final class Totals {
+        private int orders;
+        private BigDecimal buyQuantity = BigDecimal.ZERO;
+        private BigDecimal buyNotional = BigDecimal.ZERO;
+        private BigDecimal sellQuantity = BigDecimal.ZERO;
+        private BigDecimal sellNotional = BigDecimal.ZERO;
+
+        private void add(OpenOrder order, int sign) {
+            BigDecimal quantity = sign > 0 ? order.quantity : order.quantity.negate();
+            BigDecimal notional = sign > 0 ? order.notional() : order.notional().negate();
+            orders += sign;
+            if (order.side == OrderSide.BUY) {
+                buyQuantity = buyQuantity.add(quantity);
+                buyNotional = buyNotional.add(notional);
+            } else {
+                sellQuantity = sellQuantity.add(quantity);
+                sellNotional = sellNotional.add(notional);
+            }
+        }
+    }
+
+    private static final class UserExposure {
+        private final Totals total = new Totals();
+        private final Map<String, Totals> bySymbol = new HashMap<>();
+
+        private void add(OpenOrder order, int sign) {
+            total.add(order, sign);
+            String symbol = String.valueOf(order.symbol);
+            Totals totals = bySymbol.computeIfAbsent(symbol, s -> new Totals());
+            totals.add(order, sign);
+            if (totals.orders == 0) {
+                bySymbol.remove(symbol);
+            }
+        }
+    }
+}
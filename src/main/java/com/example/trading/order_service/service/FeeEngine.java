@@ -0,0 +1,203 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.config.FeeScheduleProperties;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.repository.executionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fees for executions, from the tiered schedules in {@link FeeScheduleProperties}.
+ * Schedules are compiled on startup into arrays of volume thresholds and rates, so pricing a fill is
+ * a map lookup, a binary search and one multiplication. Each user's traded notional for the month
+ * is loaded on startup and then advanced from fill events after commit; it resets when the month
+ * rolls over in the orders.expiry.zone time zone.
+ */
+@Service
+@Slf4j
+public class FeeEngine {
+
+    private static final BigDecimal BPS = new BigDecimal("10000");
+    private static final int SCALE = 8;
+
+    private final FeeScheduleProperties properties;
+    private final executionRepository executionRepo;
+    private final ZoneId zone;
+    private final Counter makerFees;
+    private final Counter takerFees;
+
+    private Schedule defaults;
+    private Map<String, Schedule> instruments = Map.of();
+    private final Map<Long, Volume> volumes = new ConcurrentHashMap<>();
+    // Month the volumes count towards, and when the next one starts
+    private volatile int month;
+    private volatile long nextMonthMillis;
+
+    public FeeEngine(FeeScheduleProperties properties,
+                     executionRepository executionRepo,
+                     MeterRegistry meterRegistry,
+                     @Value("${orders.expiry.zone:America/New_York}") String zone) {
+        this.properties = properties;
+        this.executionRepo = executionRepo;
+        this.zone = ZoneId.of(zone);
+        this.makerFees = meterRegistry.counter("orders.fees.charged", "liquidity", "maker");
+        this.takerFees = meterRegistry.counter("orders.fees.charged", "liquidity", "taker");
+    }
+
+    @PostConstruct
+    void compile() {
+        defaults = new Schedule(properties.getTiers());
+        Map<String, Schedule> compiled = new HashMap<>();
+        properties.getInstruments().forEach((symbol, tiers) -> compiled.put(symbol, new Schedule(tiers)));
+        instruments = compiled;
+        rollMonth(System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadVolumes() {
+        YearMonth current = YearMonth.now(zone);
+        executionRepo.sumNotionalByUserAndSymbolSince(current.atDay(1).atStartOfDay(zone).toOffsetDateTime())
+                .forEach(row -> {
+                    if (row.getNotional() != null) {
+                        addVolume(row.getUserId(), row.getNotional().doubleValue());
+                    }
+                });
+        log.info("💸 [FEES] Monthly traded volume loaded for {} users", volumes.size());
+    }
+
+    /**
+     * Fee for one fill, at the user's tier before this fill counts towards their volume.
+     *
+     * @param maker whether the fill added liquidity (rested on the book)
+     */
+    public BigDecimal feeFor(Long userId, String instrumentSymbol, BigDecimal notional, boolean maker) {
+        if (!properties.isEnabled() || notional == null || notional.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        Schedule schedule = instrumentSymbol != null ? instruments.getOrDefault(instrumentSymbol, defaults) : defaults;
+        if (schedule.size() == 0) {
+            return BigDecimal.ZERO;
+        }
+        Integer pinned = properties.getUserTiers().get(userId);
+        int tier = pinned != null ? Math.min(Math.max(pinned, 0), schedule.size() - 1)
+                : schedule.tierFor(volume(userId));
+
+        BigDecimal fee = notional.multiply(maker ? schedule.makerRates[tier] : schedule.takerRates[tier])
+                .setScale(SCALE, RoundingMode.HALF_UP);
+        if (fee.compareTo(properties.getMinFee()) < 0) {
+            fee = properties.getMinFee();
+        }
+        (maker ? makerFees : takerFees).increment(fee.doubleValue());
+        return fee;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        if (event.getFillNotional() != null) {
+            addVolume(event.getUserId(), event.getFillNotional().doubleValue());
+        }
+    }
+
+    public double volume(Long userId) {
+        Volume volume = volumes.get(userId);
+        if (volume == null) {
+            return 0;
+        }
+        synchronized (volume) {
+            return volume.month == currentMonth() ? volume.notional : 0;
+        }
+    }
+
+    private void addVolume(Long userId, double notional) {
+        int current = currentMonth();
+        Volume volume = volumes.computeIfAbsent(userId, id -> new Volume());
+        synchronized (volume) {
+            if (volume.month != current) {
+                volume.month = current;
+                volume.notional = 0;
+            }
+            volume.notional += notional;
+        }
+    }
+
+    private int currentMonth() {
+        long now = System.currentTimeMillis();
+        if (now >= nextMonthMillis) {
+            rollMonth(now);
+        }
+        return month;
+    }
+
+    private synchronized void rollMonth(long now) {
+        if (now < nextMonthMillis) {
+            return;
+        }
+        YearMonth current = YearMonth.now(zone);
+        month = current.getYear() * 12 + current.getMonthValue();
+        nextMonthMillis = current.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    // Tiers sorted by min volume; index i holds the rates of tier i
+    private static final class Schedule {
+        private final double[] minVolumes;
+        private final BigDecimal[] makerRates;
+        private final BigDecimal[] takerRates;
+
+        private Schedule(List<FeeScheduleProperties.Tier> tiers) {
+            List<FeeScheduleProperties.Tier> sorted = tiers.stream()
+                    .sorted(Comparator.comparing(FeeScheduleProperties.Tier::getMinVolume))
+                    .toList();
+            minVolumes = new double[sorted.size()];
+            makerRates = new BigDecimal[sorted.size()];
+            takerRates = new BigDecimal[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                FeeScheduleProperties.Tier tier = sorted.get(i);
+                minVolumes[i] = tier.getMinVolume().doubleValue();
+                makerRates[i] = tier.getMakerBps().divide(BPS);
+                takerRates[i] = tier.getTakerBps().divide(BPS);
+            }
+        }
+
+        private int size() {
+            return minVolumes.length;
+        }
+
+        // Last tier whose min volume has been reached, or the first tier
+        private int tierFor(double volume) {
+            int low = 0;
+            int high = minVolumes.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (minVolumes[mid] <= volume) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class Volume {
+        private int month;
+        private double notional;
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.WalletBalance;
+import com.example.trading.order_service.entity.Wallet;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.repository.OrderRepository.OpenOrderView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Funds reservation engine in front of the wallet service.
+ * Keeps available and reserved cash per account in memory so wallet checks never leave the process:
+ * funds are reserved when a BUY order passes the wallet check, released when the order is
+ * rejected or cancelled, and settled as fills arrive.
+ *
+ * Accounts are guarded by striped locks, so operations on different accounts rarely contend.
+ * Balances are loaded from the WalletClient on first use and reloaded once older than
+ * wallet.cache.ttl-ms, keeping outstanding reservations. The wallet is read outside the lock, so a
+ * reload that overlapped a fill settlement is dropped: the balance it read may not include the
+ * fill yet while the reservation already does.
+ *
+ * Reservations of open BUY orders are rebuilt from the orders table on startup. Fills are settled
+ * after the consuming transaction commits, once per (order, execution id); the last
+ * wallet.settlement.dedupe-max-entries settled executions are remembered to drop redeliveries.
+ */
+@Service
+@Slf4j
+public class FundsReservationService {
+
+    private static final int STRIPES = 64; // power of two
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    // Statuses an order holds a reservation in: the wallet check passed and it is not closed yet
+    private static final Set<OrderStatus> RESERVED_STATUSES = EnumSet.of(OrderStatus.PENDING_COMPLIANCE,
+            OrderStatus.APPROVED, OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED, OrderStatus.PENDING_CANCEL);
+
+    private final WalletClient walletClient;
+    private final OrderRepository orderRepo;
+    private final long cacheTtlMs;
+    private final int settledMaxEntries;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Map<Long, AccountFunds> accounts = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Set<Settlement> settled = ConcurrentHashMap.newKeySet();
+    private final Queue<Settlement> settledOrder = new ConcurrentLinkedQueue<>();
+
+    public FundsReservationService(WalletClient walletClient,
+                                   OrderRepository orderRepo,
+                                   @Value("${wallet.cache.ttl-ms:30000}") long cacheTtlMs,
+                                   @Value("${wallet.settlement.dedupe-max-entries:100000}") int settledMaxEntries) {
+        this.walletClient = walletClient;
+        this.orderRepo = orderRepo;
+        this.cacheTtlMs = cacheTtlMs;
+        this.settledMaxEntries = settledMaxEntries;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Rebuilds the reservations of open BUY orders, which only live in memory, as what is left
+     * unfilled at the limit price. Orders without a limit price are not restored; their fills are
+     * taken from the available balance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int restored = 0;
+        int unpriced = 0;
+        for (OpenOrderView order : orderRepo.findOpenByStatusIn(RESERVED_STATUSES)) {
+            if (order.getOrderSide() != OrderSide.BUY) {
+                continue;
+            }
+            if (order.getLimitPrice() == null) {
+                unpriced++;
+                continue;
+            }
+            BigDecimal filled = order.getFilledQuantity() == null ? BigDecimal.ZERO : order.getFilledQuantity();
+            BigDecimal remaining = order.getTotalQuantity().subtract(filled);
+            if (remaining.signum() > 0 && restore(order.getUserId(), order.getId(), remaining.multiply(order.getLimitPrice()))) {
+                restored++;
+            }
+        }
+        log.info("Restored {} funds reservations from open BUY orders ({} without a limit price skipped)",
+                restored, unpriced);
+    }
+
+    /**
+     * Reserves funds for an order. Reserving again for the same order is a no-op.
+     *
+     * @return false if the account's available balance does not cover the amount
+     */
+    public boolean reserve(Long accountId, Long orderId, BigDecimal amount) {
+        AccountFunds funds = account(accountId);
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            if (reservations.containsKey(orderId)) {
+                return true;
+            }
+            if (funds.available.compareTo(amount) < 0) {
+                log.debug("Reservation refused for order {}: account {} available={}, required={}",
+                        orderId, accountId, funds.available, amount);
+                return false;
+            }
+            funds.available = funds.available.subtract(amount);
+            funds.reserved = funds.reserved.add(amount);
+            reservations.put(orderId, new Reservation(accountId, amount));
+            log.debug("Reserved {} for order {} on account {}: available={}, reserved={}",
+                    amount, orderId, accountId, funds.available, funds.reserved);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts back a reservation taken before a restart; the wallet balance still includes the cash
+    private boolean restore(Long accountId, Long orderId, BigDecimal amount) {
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            if (reservations.containsKey(orderId)) {
+                return false;
+            }
+            AccountFunds funds = accounts.computeIfAbsent(accountId, id -> new AccountFunds());
+            funds.reserved = funds.reserved.add(amount);
+            if (funds.loadedAtMillis != 0) {
+                funds.available = funds.available.subtract(amount);
+            }
+            reservations.put(orderId, new Reservation(accountId, amount));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whatever is still reserved for the order to the available balance.
+     */
+    public void release(Long orderId) {
+        Reservation reservation = reservations.get(orderId);
+        if (reservation == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(reservation.accountId);
+        lock.lock();
+        try {
+            if (reservations.remove(orderId) == null) {
+                return; // released concurrently
+            }
+            AccountFunds funds = accounts.get(reservation.accountId);
+            if (funds != null) {
+                funds.available = funds.available.add(reservation.remaining);
+                funds.reserved = funds.reserved.subtract(reservation.remaining);
+            }
+            log.debug("Released {} for order {} on account {}", reservation.remaining, orderId, reservation.accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes what is still reserved for an order to the new amount, e.g. after an amend.
+     * Only the difference is taken from or returned to the available balance.
+     *
+     * @return false if the increase is not covered by the available balance
+     */
+    public boolean adjust(Long accountId, Long orderId, BigDecimal newAmount) {
+        AccountFunds funds = account(accountId);
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            Reservation reservation = reservations.get(orderId);
+            if (reservation == null) {
+                return true; // nothing reserved for this order (e.g. SELL)
+            }
+            BigDecimal delta = newAmount.subtract(reservation.remaining);
+            if (delta.signum() > 0 && funds.available.compareTo(delta) < 0) {
+                return false;
+            }
+            funds.available = funds.available.subtract(delta);
+            funds.reserved = funds.reserved.add(delta);
+            reservation.remaining = newAmount;
+            log.debug("Adjusted reservation for order {} on account {} by {}", orderId, accountId, delta);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Settles a BUY fill against the order's reservation once the current transaction commits.
+     * If the fill costs more than what is left reserved (e.g. a MARKET order filled above its
+     * estimate) the difference comes out of the available balance. On the final fill any remainder
+     * is released. A redelivered execution is settled only once.
+     */
+    public void settleBuy(Long accountId, Long orderId, String executionId, BigDecimal fillNotional, boolean finalFill) {
+        afterCommit(() -> {
+            if (!firstSettlement(orderId, executionId)) {
+                return;
+            }
+            ReentrantLock lock = lockFor(accountId);
+            lock.lock();
+            try {
+                AccountFunds funds = accounts.get(accountId);
+                Reservation reservation = reservations.get(orderId);
+                BigDecimal fromReserved = BigDecimal.ZERO;
+                if (reservation != null) {
+                    fromReserved = reservation.remaining.min(fillNotional);
+                    reservation.remaining = reservation.remaining.subtract(fromReserved);
+                }
+                if (funds != null) {
+                    funds.reserved = funds.reserved.subtract(fromReserved);
+                    funds.available = funds.available.subtract(fillNotional.subtract(fromReserved));
+                }
+                if (finalFill && reservation != null) {
+                    reservations.remove(orderId);
+                    if (funds != null) {
+                        funds.available = funds.available.add(reservation.remaining);
+                        funds.reserved = funds.reserved.subtract(reservation.remaining);
+                    }
+                }
+                settling(funds);
+            } finally {
+                lock.unlock();
+            }
+            sendSettlement(accountId, orderId, executionId, fillNotional);
+        });
+    }
+
+    /**
+     * Credits the proceeds of a SELL fill once the current transaction commits, once per execution.
+     */
+    public void settleSell(Long accountId, Long orderId, String executionId, BigDecimal fillNotional) {
+        afterCommit(() -> {
+            if (!firstSettlement(orderId, executionId)) {
+                return;
+            }
+            ReentrantLock lock = lockFor(accountId);
+            lock.lock();
+            try {
+                AccountFunds funds = accounts.get(accountId);
+                if (funds != null) {
+                    funds.available = funds.available.add(fillNotional);
+                }
+                settling(funds);
+            } finally {
+                lock.unlock();
+            }
+            sendSettlement(accountId, orderId, executionId, fillNotional.negate());
+        });
+    }
+
+    public WalletBalance getBalance(Long accountId) {
+        AccountFunds funds = account(accountId);
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            return WalletBalance.builder()
+                    .accountId(accountId)
+                    .available(funds.available)
+                    .reserved(funds.reserved)
+                    .total(funds.available.add(funds.reserved))
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached account, loading or refreshing it from the wallet service outside the lock.
+     * A refresh that overlapped a settlement keeps the cached figures and is retried on the next call;
+     * a first load retries a few times and then applies what it read.
+     */
+    private AccountFunds account(Long accountId) {
+        AccountFunds funds = accounts.computeIfAbsent(accountId, id -> new AccountFunds());
+        long now = System.currentTimeMillis();
+        if (funds.loadedAtMillis != 0 && now - funds.loadedAtMillis < cacheTtlMs) {
+            return funds;
+        }
+
+        ReentrantLock lock = lockFor(accountId);
+        for (int attempt = 1; ; attempt++) {
+            long version;
+            lock.lock();
+            try {
+                version = funds.version;
+            } finally {
+                lock.unlock();
+            }
+
+            Wallet wallet = walletClient.getWallet(accountId);
+            BigDecimal balance = wallet != null && wallet.getBalance() != null ? wallet.getBalance() : BigDecimal.ZERO;
+
+            lock.lock();
+            try {
+                boolean unchanged = funds.version == version && funds.settling == 0;
+                boolean loaded = funds.loadedAtMillis != 0;
+                if (unchanged || (!loaded && attempt >= MAX_LOAD_ATTEMPTS)) {
+                    // The wallet service balance still includes cash we hold in reservations
+                    funds.available = balance.subtract(funds.reserved);
+                    funds.loadedAtMillis = now;
+                    return funds;
+                }
+                if (loaded) {
+                    log.debug("Balance refresh for account {} overlapped a settlement, keeping cached figures", accountId);
+                    return funds;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // The fill is committed by now, so a failed wallet call is logged for reconciliation rather than
+    // thrown back at the consumer, whose redelivery would be dropped as a duplicate anyway
+    private void sendSettlement(Long accountId, Long orderId, String executionId, BigDecimal amount) {
+        try {
+            walletClient.settle(accountId, orderId, executionId, amount);
+        } catch (RuntimeException e) {
+            log.error("Wallet settlement failed for order {} execution {} on account {}: amount={}",
+                    orderId, executionId, accountId, amount, e);
+        } finally {
+            settled(accountId);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Remembers the execution; false if it was settled already
+    private boolean firstSettlement(Long orderId, String executionId) {
+        Settlement key = new Settlement(orderId, executionId);
+        if (!settled.add(key)) {
+            log.debug("Execution {} of order {} already settled, skipping", executionId, orderId);
+            return false;
+        }
+        settledOrder.add(key);
+        while (settled.size() > settledMaxEntries) {
+            Settlement oldest = settledOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            settled.remove(oldest);
+        }
+        return true;
+    }
+
+    // Called under the lock before a settlement goes to the wallet service
+    private void settling(AccountFunds funds) {
+        if (funds != null) {
+            funds.settling++;
+            funds.version++;
+        }
+    }
+
+    private void settled(Long accountId) {
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            AccountFunds funds = accounts.get(accountId);
+            if (funds != null && funds.settling > 0) {
+                funds.settling--;
+                funds.version++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long accountId) {
+        return locks[Long.hashCode(accountId) & (STRIPES - 1)];
+    }
+
+    // Mutable state, only touched while holding the account's stripe lock
+    private static final class AccountFunds {
+        private BigDecimal available = BigDecimal.ZERO;
+        private BigDecimal reserved = BigDecimal.ZERO;
+        private volatile long loadedAtMillis;   // 0 until the first load; read without the lock for the TTL check
+        private long version;                   // bumped whenever a settlement starts or completes
+        private int settling;                   // settlements not yet confirmed by the wallet service
+    }
+
+    private record Settlement(Long orderId, String executionId) {
+    }
+
+    private static final class Reservation {
+        private final Long accountId;
+        private BigDecimal remaining;
+
+        private Reservation(Long accountId, BigDecimal amount) {
+            this.accountId = accountId;
+            this.remaining = amount;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.ExchangeOrderRequest;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.kafka.OrderEventsProducer;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.utility.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Works ICEBERG orders in the service instead of at the exchange: the parent order stays here and
+ * the exchange only sees LIMIT child slices of displayQuantity, one at a time, each with its own
+ * Snowflake id. When a slice fills the next one is sent, until the parent is filled or cancelled.
+ *
+ * Child fills are applied to the parent order. The parent is found by child id from memory, or
+ * after a restart from orders.active_slice_id, which always holds the working slice.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IcebergSlicer {
+
+    private final OrderRepository orderRepo;
+    private final OrderEventsProducer producer;
+    private final OrderLaneRouter laneRouter;
+    private final SnowflakeIdGenerator idGenerator;
+    private final MeterRegistry meterRegistry;
+
+    // child slice id -> parent order id, and back
+    private final Map<Long, Long> parentByChild = new ConcurrentHashMap<>();
+    private final Map<Long, Long> childByParent = new ConcurrentHashMap<>();
+
+    /**
+     * Sends the first slice of an approved ICEBERG order.
+     *
+     * @return false if the order is not sliced here and should go to the exchange as it is
+     */
+    public boolean start(Order order) {
+        if (order.getType() != OrderType.ICEBERG || order.getDisplayQuantity() == null
+                || order.getDisplayQuantity() <= 0 || order.getLimitPrice() == null) {
+            return false;
+        }
+        sendSlice(order);
+        return true;
+    }
+
+    /**
+     * Resolves an order id reported by the exchange to the order it belongs to: the order itself,
+     * or the parent of an iceberg slice.
+     */
+    public Optional<Order> findOrder(Long exchangeOrderId) {
+        Long parentId = parentByChild.get(exchangeOrderId);
+        if (parentId != null) {
+            return orderRepo.findById(parentId);
+        }
+        Optional<Order> order = orderRepo.findById(exchangeOrderId);
+        if (order.isPresent()) {
+            return order;
+        }
+        order = orderRepo.findByActiveSliceId(exchangeOrderId);
+        order.ifPresent(parent -> index(exchangeOrderId, parent.getId()));
+        return order;
+    }
+
+    public boolean isSlice(Order order, Long exchangeOrderId) {
+        return !order.getId().equals(exchangeOrderId);
+    }
+
+    /**
+     * The id the exchange knows the order by: the working slice for an iceberg parent.
+     */
+    public Long exchangeOrderId(Order order) {
+        return order.getActiveSliceId() != null ? order.getActiveSliceId() : order.getId();
+    }
+
+    /**
+     * Parent status after a child execution took its filled quantity to the given total: a filled
+     * slice only fills the parent with the last of its quantity.
+     */
+    public OrderStatus parentStatus(Order parent, BigDecimal filled) {
+        if (filled.compareTo(parent.getTotalQuantity()) >= 0) {
+            return OrderStatus.FILLED;
+        }
+        return filled.signum() > 0 ? OrderStatus.PARTIALLY_FILLED : OrderStatus.PENDING;
+    }
+
+    /**
+     * Called once a child slice is filled: sends the next slice if the parent is still working.
+     */
+    public void replenish(Order parent, Long childId) {
+        unindex(childId);
+        if (parent.getStatus().isTerminal() || parent.getStatus() == OrderStatus.PENDING_CANCEL) {
+            return;
+        }
+        sendSlice(parent);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        if (event.getStatus().isTerminal()) {
+            Long childId = childByParent.get(event.getOrderId());
+            if (childId != null) {
+                unindex(childId);
+            }
+        }
+    }
+
+    private void sendSlice(Order parent) {
+        BigDecimal filled = parent.getFilledQuantity() != null ? parent.getFilledQuantity() : BigDecimal.ZERO;
+        BigDecimal quantity = parent.getTotalQuantity().subtract(filled)
+                .min(BigDecimal.valueOf(parent.getDisplayQuantity()));
+        if (quantity.signum() <= 0) {
+            return;
+        }
+        long childId = idGenerator.nextId();
+        // Written on its own so the parent row is never saved whole from a possibly stale copy
+        orderRepo.setActiveSlice(parent.getId(), childId);
+        parent.setActiveSliceId(childId);
+        index(childId, parent.getId());
+
+        ExchangeOrderRequest slice = ExchangeOrderRequest.builder()
+                .orderId(Long.toString(childId))
+                .userId(parent.getUserId().toString())
+                .symbol(parent.getInstrumentSymbol())
+                .side(parent.getOrderSide().name())
+                .orderType(OrderType.LIMIT.name())
+                .quantity(quantity)
+                .limitPrice(parent.getLimitPrice())
+                .timeInForce(parent.getTimeInForce().name())
+                .status(OrderStatus.APPROVED.name())
+                .timestamp(Instant.now().toEpochMilli())
+                .build();
+        EventEnvelope<ExchangeOrderRequest> envelope = new EventEnvelope<>(
+                "OrderApprovedForExchange",
+                "v1",
+                UUID.randomUUID().toString(),
+                "order-service",
+                Instant.now().toString(),
+                slice
+        );
+        log.info("🧊 [ICEBERG] Sending slice - ParentID: {}, SliceID: {}, Qty: {}, Filled: {}/{}",
+                parent.getId(), childId, quantity, filled, parent.getTotalQuantity());
+        producer.publish("orders.exchange.v1", slice.getOrderId(), envelope,
+                laneRouter.headers(laneRouter.laneFor(parent)));
+        meterRegistry.counter("orders.iceberg.slices").increment();
+    }
+
+    private void index(Long childId, Long parentId) {
+        Long previous = childByParent.put(parentId, childId);
+        if (previous != null && !previous.equals(childId)) {
+            parentByChild.remove(previous);
+        }
+        parentByChild.put(childId, parentId);
+    }
+
+    private void unindex(Long childId) {
+        Long parentId = parentByChild.remove(childId);
+        if (parentId != null) {
+            childByParent.remove(parentId, childId);
+        }
+    }
+}
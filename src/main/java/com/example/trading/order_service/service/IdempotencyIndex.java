@@ -0,0 +1,66 @@
+package com.example.trading.order_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Recent (userId, clientOrderId) -> orderId pairs, so a client retry is answered with the
+ * original order without querying the database.
+ * Entries live for orders.idempotency.window-ms and at most orders.idempotency.max-entries
+ * are kept; older keys are only caught by the uq_orders_client_order constraint.
+ */
+@Component
+public class IdempotencyIndex {
+
+    private final long windowMs;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyIndex(@Value("${orders.idempotency.window-ms:600000}") long windowMs,
+                            @Value("${orders.idempotency.max-entries:100000}") int maxEntries) {
+        this.windowMs = windowMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the order id created for this key inside the window, or null
+     */
+    public Long find(Long userId, String clientOrderId) {
+        Entry entry = entries.get(new Key(userId, clientOrderId));
+        if (entry == null || System.currentTimeMillis() - entry.createdAtMillis > windowMs) {
+            return null;
+        }
+        return entry.orderId;
+    }
+
+    public void record(Long userId, String clientOrderId, Long orderId) {
+        Entry entry = new Entry(new Key(userId, clientOrderId), orderId, System.currentTimeMillis());
+        entries.put(entry.key, entry);
+        insertionOrder.add(entry);
+        evict(entry.createdAtMillis);
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (now - oldest.createdAtMillis > windowMs || entries.size() > maxEntries)) {
+            Entry polled = insertionOrder.poll();
+            if (polled != null) {
+                entries.remove(polled.key, polled);
+            }
+        }
+    }
+
+    private record Key(Long userId, String clientOrderId) {
+    }
+
+    private record Entry(Key key, Long orderId, long createdAtMillis) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.entity.Wallet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for the wallet service, used until a real wallet service is configured.
+ * Every account starts with wallet.local.default-balance. Settlements are applied once per execution id.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "wallet.client", havingValue = "local", matchIfMissing = true)
+public class LocalWalletClient implements WalletClient {
+
+    private final BigDecimal defaultBalance;
+    private final Map<Long, BigDecimal> balances = new ConcurrentHashMap<>();
+    private final Set<String> settledExecutions = ConcurrentHashMap.newKeySet();
+
+    public LocalWalletClient(@Value("${wallet.local.default-balance:1000000}") BigDecimal defaultBalance) {
+        this.defaultBalance = defaultBalance;
+    }
+
+    @Override
+    public Wallet getWallet(Long accountId) {
+        BigDecimal balance = balances.computeIfAbsent(accountId, id -> defaultBalance);
+        return new Wallet(accountId, accountId, balance);
+    }
+
+    @Override
+    public void settle(Long accountId, Long orderId, String executionId, BigDecimal amount) {
+        if (!settledExecutions.add(orderId + ":" + executionId)) {
+            log.debug("Local wallet already settled execution {} of order {}", executionId, orderId);
+            return;
+        }
+        BigDecimal balance = balances.merge(accountId, defaultBalance.subtract(amount),
+                (current, ignored) -> current.subtract(amount));
+        log.debug("Local wallet settled order {} for account {}: amount={}, balance={}",
+                orderId, accountId, amount, balance);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.dto.PriceQuote;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Local last-price cache fed by the market.prices.v1 consumer.
+ * Each symbol is assigned a slot index once; quotes live in an array indexed by that slot,
+ * so reads are a map lookup plus a volatile array read with no locking. Hot paths can
+ * resolve the index once with {@link #indexOf(String)} and read with {@link #get(int)}.
+ *
+ * Updates are conflated per symbol: only the newest tick is kept, and listeners registered
+ * with {@link #addConflatedListener(Consumer)} see at most one quote per symbol per dispatch.
+ * Listeners that must see every tick register with {@link #addTickListener(Consumer)} and are
+ * called on the consumer thread, so they have to be fast.
+ */
+@Service
+@Slf4j
+public class MarketPriceCache {
+
+    private final Map<String, Integer> symbolIndex = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<PriceQuote> quotes;
+    private final AtomicIntegerArray dirty;
+    private final List<Consumer<PriceQuote>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<PriceQuote>> tickListeners = new CopyOnWriteArrayList<>();
+    private final long staleAfterMs;
+
+    public MarketPriceCache(@Value("${market-data.max-symbols:4096}") int maxSymbols,
+                            @Value("${market-data.stale-after-ms:5000}") long staleAfterMs) {
+        this.quotes = new AtomicReferenceArray<>(maxSymbols);
+        this.dirty = new AtomicIntegerArray(maxSymbols);
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    /**
+     * Stores a tick unless a newer one for the same symbol is already cached.
+     *
+     * @return true if the tick became the current price
+     */
+    public boolean update(String symbol, BigDecimal price, Instant timestamp) {
+        int index = indexOrAssign(symbol);
+        if (index < 0) {
+            return false;
+        }
+        Instant tickTime = timestamp != null ? timestamp : Instant.now();
+        PriceQuote next = new PriceQuote(symbol, price, tickTime, System.currentTimeMillis());
+        while (true) {
+            PriceQuote current = quotes.get(index);
+            if (current != null && current.getTimestamp().isAfter(tickTime)) {
+                return false; // out-of-order tick
+            }
+            if (quotes.compareAndSet(index, current, next)) {
+                dirty.set(index, 1);
+                notifyTick(next);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the slot index of a known symbol, or -1
+     */
+    public int indexOf(String symbol) {
+        Integer index = symbolIndex.get(symbol);
+        return index != null ? index : -1;
+    }
+
+    public PriceQuote get(int index) {
+        return index >= 0 ? quotes.get(index) : null;
+    }
+
+    public Optional<PriceQuote> getQuote(String symbol) {
+        return Optional.ofNullable(get(indexOf(symbol)));
+    }
+
+    /**
+     * @return the cached price if it is not older than market-data.stale-after-ms
+     */
+    public Optional<BigDecimal> getFreshPrice(String symbol) {
+        PriceQuote quote = get(indexOf(symbol));
+        if (quote == null || isStale(quote)) {
+            return Optional.empty();
+        }
+        return Optional.of(quote.getPrice());
+    }
+
+    /**
+     * Copies the last price of every cached symbol, stale or not, for batch jobs that need one
+     * consistent set of prices.
+     */
+    public Map<String, BigDecimal> snapshot() {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        symbolIndex.forEach((symbol, index) -> {
+            PriceQuote quote = quotes.get(index);
+            if (quote != null) {
+                prices.put(symbol, quote.getPrice());
+            }
+        });
+        return prices;
+    }
+
+    public boolean isStale(PriceQuote quote) {
+        return quote.isStale(staleAfterMs, System.currentTimeMillis());
+    }
+
+    public void addConflatedListener(Consumer<PriceQuote> listener) {
+        listeners.add(listener);
+    }
+
+    public void addTickListener(Consumer<PriceQuote> listener) {
+        tickListeners.add(listener);
+    }
+
+    private void notifyTick(PriceQuote quote) {
+        for (Consumer<PriceQuote> listener : tickListeners) {
+            try {
+                listener.accept(quote);
+            } catch (Exception e) {
+                log.error("Tick listener failed for symbol {}", quote.getSymbol(), e);
+            }
+        }
+    }
+
+    /**
+     * Hands the latest quote of every symbol that ticked since the previous dispatch to the listeners.
+     */
+    @Scheduled(fixedDelayString = "${market-data.conflation-interval-ms:100}")
+    public void dispatchConflated() {
+        int size = symbolIndex.size();
+        for (int i = 0; i < size; i++) {
+            if (dirty.get(i) == 0 || !dirty.compareAndSet(i, 1, 0)) {
+                continue;
+            }
+            PriceQuote quote = quotes.get(i);
+            if (quote == null) {
+                continue;
+            }
+            for (Consumer<PriceQuote> listener : listeners) {
+                try {
+                    listener.accept(quote);
+                } catch (Exception e) {
+                    log.error("Price listener failed for symbol {}", quote.getSymbol(), e);
+                }
+            }
+        }
+    }
+
+    private int indexOrAssign(String symbol) {
+        Integer index = symbolIndex.get(symbol);
+        if (index != null) {
+            return index;
+        }
+        synchronized (symbolIndex) {
+            index = symbolIndex.get(symbol);
+            if (index != null) {
+                return index;
+            }
+            if (symbolIndex.size() >= quotes.length()) {
+                log.error("Market price cache is full ({} symbols), dropping tick for {}", quotes.length(), symbol);
+                return -1;
+            }
+            int assigned = symbolIndex.size();
+            symbolIndex.put(symbol, assigned);
+            return assigned;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-cancels-other coordination across the open orders a user placed under the same ocoGroupId.
+ * The first fill on any member resolves the group with a compare-and-set and cancels every other
+ * member through the OrderCancellationService. When members fill at the same time only one wins the
+ * CAS; the others count as conflicts, and whatever they have left is cancelled by the winner.
+ *
+ * Fills arrive through the OrderStatusChangedEvent published by the ExecutionEventConsumer.
+ * A ONE_CANCELS_OTHER order carries both legs in one row and is still coordinated by the exchange;
+ * this groups separate orders. Groups are rebuilt from the database on startup, and a group that
+ * already has a fill is resolved again then.
+ */
+@Service
+@Slf4j
+public class OcoCoordinator {
+
+    private static final Set<OrderStatus> OPEN_STATUSES = EnumSet.copyOf(
+            Arrays.stream(OrderStatus.values()).filter(s -> !s.isTerminal()).toList());
+    private static final long UNRESOLVED = 0L;
+
+    private final OrderRepository orderRepo;
+    private final OrderCancellationService cancellationService;
+    private final TransactionTemplate cancelTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Timer coordinationTimer;
+
+    private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+
+    public OcoCoordinator(OrderRepository orderRepo, OrderCancellationService cancellationService,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.orderRepo = orderRepo;
+        this.cancellationService = cancellationService;
+        // Listeners run after the fill has committed, so sibling cancels need a transaction of their own
+        this.cancelTransaction = new TransactionTemplate(transactionManager);
+        this.cancelTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.coordinationTimer = Timer.builder("orders.oco.coordination")
+                .description("Time from a group's first fill until every sibling cancel was issued")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<OrderRepository.OcoMemberView> members = orderRepo.findByOcoGroupIdIsNotNullAndStatusIn(OPEN_STATUSES);
+        List<OrderRepository.OcoMemberView> filled = new ArrayList<>();
+        for (OrderRepository.OcoMemberView member : members) {
+            join(new GroupKey(member.getUserId(), member.getOcoGroupId()), member.getId());
+            if (member.getFilledQuantity() != null && member.getFilledQuantity().signum() > 0) {
+                filled.add(member);
+            }
+        }
+        for (OrderRepository.OcoMemberView member : filled) {
+            resolve(member.getUserId(), member.getOcoGroupId(), member.getId());
+        }
+        log.info("🔗 [OCO] Loaded {} OCO groups with {} open orders", groups.size(), members.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        if (event.getOcoGroupId() == null) {
+            return;
+        }
+        GroupKey key = new GroupKey(event.getUserId(), event.getOcoGroupId());
+        if (event.getStatus().isTerminal()) {
+            groups.computeIfPresent(key, (k, group) -> {
+                group.members.remove(event.getOrderId());
+                return group.members.isEmpty() ? null : group;
+            });
+        } else {
+            Group group = join(key, event.getOrderId());
+            long winner = group.winner.get();
+            if (winner != UNRESOLVED && winner != event.getOrderId() && event.isCreated()) {
+                // Placed into a group that is already resolved
+                cancelSibling(event.getOrderId(), "OCO group already filled");
+            }
+        }
+        if (event.getFillQuantity() != null && event.getFillQuantity().signum() > 0) {
+            resolve(event.getUserId(), event.getOcoGroupId(), event.getOrderId());
+        }
+    }
+
+    private void resolve(Long userId, String ocoGroupId, Long filledOrderId) {
+        Group group = groups.get(new GroupKey(userId, ocoGroupId));
+        if (group == null) {
+            return;
+        }
+        if (!group.winner.compareAndSet(UNRESOLVED, filledOrderId)) {
+            if (group.winner.get() != filledOrderId) {
+                meterRegistry.counter("orders.oco.conflicts").increment();
+                log.warn("⚠️ [OCO] Order filled after its group was resolved - Group: {}, OrderID: {}, Winner: {}",
+                        ocoGroupId, filledOrderId, group.winner.get());
+            }
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        int cancelled = 0;
+        for (Long sibling : group.members) {
+            if (!sibling.equals(filledOrderId) && cancelSibling(sibling, "OCO sibling filled")) {
+                cancelled++;
+            }
+        }
+        coordinationTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("orders.oco.resolved").increment();
+        log.info("🔗 [OCO] Group resolved - Group: {}, FilledOrderID: {}, SiblingsCancelled: {}",
+                ocoGroupId, filledOrderId, cancelled);
+    }
+
+    private boolean cancelSibling(Long orderId, String reason) {
+        try {
+            cancelTransaction.executeWithoutResult(tx -> cancellationService.cancel(orderId, reason));
+            return true;
+        } catch (RuntimeException e) {
+            // Typically filled or rejected concurrently; there is nothing left to cancel
+            log.warn("⚠️ [OCO] Sibling not cancelled - OrderID: {}, Reason: {}", orderId, e.getMessage());
+            return false;
+        }
+    }
+
+    // Membership changes run inside compute so an emptied group is never removed while someone joins it
+    private Group join(GroupKey key, Long orderId) {
+        return groups.compute(key, (k, group) -> {
+            Group joined = group != null ? group : new Group();
+            joined.members.add(orderId);
+            return joined;
+        });
+    }
+
+    // ocoGroupId is chosen by the client, so groups are scoped per user
+    private record GroupKey(Long userId, String ocoGroupId) {
+    }
+
+    private static final class Group {
+        private final Set<Long> members = ConcurrentHashMap.newKeySet();
+        private final AtomicLong winner = new AtomicLong(UNRESOLVED);
+    }
+}
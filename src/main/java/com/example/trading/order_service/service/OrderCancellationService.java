@@ -0,0 +1,356 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderLane;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.CancelAllProgress;
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderCancelRequest;
+import com.example.trading.order_service.dto.OrderCancelResponse;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.exception.OrderNotCancellableException;
+import com.example.trading.order_service.exception.OrderNotFoundException;
+import com.example.trading.order_service.kafka.OrderEventsProducer;
+import com.example.trading.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Client-initiated cancels.
+ * Orders that have not reached the exchange yet, including stop orders still resting in the
+ * {@link StopTriggerEngine}, are cancelled in place with a conditional UPDATE,
+ * so no exchange round trip is needed and the pipeline consumers skip them from then on.
+ * A resting stop is only disarmed once its cancel has committed, by the engine's listener for the
+ * status change; if a trigger wins the race the conditional UPDATE misses and the cancel goes to the exchange.
+ * Routed orders move to PENDING_CANCEL and a cancel request goes to the exchange on the HIGH lane;
+ * OrderCancellationConsumer completes the cancel when the exchange confirms on failed.v1.
+ *
+ * Cancel-all applies the same two paths to every open order of a user in chunks: one set-based
+ * UPDATE per chunk and state, each in its own short transaction, reporting progress after each chunk.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderCancellationService {
+
+    static final Set<OrderStatus> PRE_ROUTING = EnumSet.copyOf(
+            Arrays.stream(OrderStatus.values()).filter(OrderStatus::isPreRouting).toList());
+    static final Set<OrderStatus> ROUTED = EnumSet.of(
+            OrderStatus.APPROVED, OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+    // Approved stop orders still held by the StopTriggerEngine
+    static final Set<OrderStatus> RESTING = EnumSet.of(OrderStatus.APPROVED);
+
+    private final OrderRepository orderRepo;
+    private final OrderEventsProducer producer;
+    private final FundsReservationService fundsService;
+    private final OrderStatusNotificationService notificationService;
+    private final OrderLaneRouter laneRouter;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StopTriggerEngine stopTriggerEngine;
+    private final IcebergSlicer icebergSlicer;
+
+    @Value("${orders.cancel-all.chunk-size:500}")
+    private int chunkSize;
+
+    private final ExecutorService cancelAllExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "cancel-all");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Transactional
+    public OrderCancelResponse cancel(Long orderId, String reason) {
+        log.info("🛑 [CANCEL] Cancel requested - OrderID: {}, Reason: {}", orderId, reason);
+
+        Order order = orderRepo.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+
+        if (order.getStatus() == OrderStatus.PENDING_CANCEL) {
+            return response(order, "Cancel already sent to exchange");
+        }
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            return response(order, "Order already cancelled");
+        }
+        if (order.getStatus().isTerminal()) {
+            throw new OrderNotCancellableException(orderId, order.getStatus());
+        }
+
+        OrderStatus previousStatus = order.getStatus();
+        if (previousStatus.isPreRouting()
+                && orderRepo.transitionStatus(orderId, PRE_ROUTING, OrderStatus.CANCELLED, OffsetDateTime.now()) == 1) {
+            order.setStatus(OrderStatus.CANCELLED);
+            order.setUpdatedAt(OffsetDateTime.now());
+            afterLocalCancel(order, previousStatus, reason);
+            meterRegistry.counter("orders.cancel", "path", "local").increment();
+            log.info("✅ [CANCEL] Order cancelled before routing - OrderID: {}", orderId);
+            return response(order, "Order cancelled");
+        }
+
+        if (previousStatus == OrderStatus.APPROVED && stopTriggerEngine.isArmed(orderId)
+                && orderRepo.transitionStatus(orderId, RESTING, OrderStatus.CANCELLED, OffsetDateTime.now()) == 1) {
+            order.setStatus(OrderStatus.CANCELLED);
+            order.setUpdatedAt(OffsetDateTime.now());
+            afterLocalCancel(order, previousStatus, reason);
+            meterRegistry.counter("orders.cancel", "path", "local").increment();
+            log.info("✅ [CANCEL] Resting stop order cancelled - OrderID: {}", orderId);
+            return response(order, "Order cancelled");
+        }
+
+        // Either routed already, or it was approved while we were looking: cancel at the exchange
+        if (orderRepo.transitionStatus(orderId, ROUTED, OrderStatus.PENDING_CANCEL, OffsetDateTime.now()) == 1) {
+            order.setStatus(OrderStatus.PENDING_CANCEL);
+            order.setUpdatedAt(OffsetDateTime.now());
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
+            sendExchangeCancel(order, reason);
+            notificationService.sendOrderUpdate(order.getUserId(), order, "Cancel requested", null);
+            meterRegistry.counter("orders.cancel", "path", "exchange").increment();
+            return response(order, "Cancel sent to exchange");
+        }
+
+        // Status moved on concurrently (filled, rejected or cancelled by someone else)
+        Order current = orderRepo.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        if (current.getStatus() == OrderStatus.CANCELLED || current.getStatus() == OrderStatus.PENDING_CANCEL) {
+            return response(current, "Order already cancelled");
+        }
+        throw new OrderNotCancellableException(orderId, current.getStatus());
+    }
+
+    /**
+     * Cancels every open order of the user, optionally only those for one instrument or one OCO group.
+     * The listener is called after each chunk with the progress so far.
+     */
+    public CancelAllProgress cancelAll(Long userId, String instrumentSymbol, String ocoGroupId,
+                                       Consumer<CancelAllProgress> listener) {
+        long startNanos = System.nanoTime();
+        log.info("🛑 [CANCEL-ALL] Cancel-all requested - UserID: {}, Symbol: {}, OcoGroup: {}",
+                userId, instrumentSymbol, ocoGroupId);
+
+        List<Order> preRouting = orderRepo.findOpenForCancel(userId, PRE_ROUTING, instrumentSymbol, ocoGroupId);
+        Map<Boolean, List<Order>> routed = orderRepo.findOpenForCancel(userId, ROUTED, instrumentSymbol, ocoGroupId)
+                .stream().collect(Collectors.partitioningBy(o -> stopTriggerEngine.isArmed(o.getId())));
+        CancelAllProgress progress = CancelAllProgress.builder()
+                .userId(userId)
+                .instrumentSymbol(instrumentSymbol)
+                .ocoGroupId(ocoGroupId)
+                .matched(preRouting.size() + routed.get(true).size() + routed.get(false).size())
+                .build();
+        listener.accept(progress);
+
+        // 1. Not routed yet, or a stop order still resting here: cancel locally
+        List<LocalChunk> local = new ArrayList<>();
+        chunks(preRouting).forEach(chunk -> local.add(new LocalChunk(chunk, PRE_ROUTING)));
+        chunks(routed.get(true)).forEach(chunk -> local.add(new LocalChunk(chunk, RESTING)));
+        List<Order> atExchange = new ArrayList<>(routed.get(false));
+        for (LocalChunk chunk : local) {
+            Set<Long> cancelled = cancelLocally(chunk.orders(), chunk.from(), OrderStatus.CANCELLED, "Cancel-all");
+            List<Order> triggered = chunk.from() == RESTING ? notIn(chunk.orders(), cancelled) : List.of();
+            atExchange.addAll(triggered);
+            progress = progress.toBuilder()
+                    .processed(progress.getProcessed() + chunk.orders().size() - triggered.size())
+                    .cancelled(progress.getCancelled() + cancelled.size())
+                    .elapsedMs(elapsedMs(startNanos))
+                    .build();
+            listener.accept(progress);
+        }
+
+        // 2. At the exchange, including stops that triggered meanwhile: mark PENDING_CANCEL and send the cancel requests
+        for (List<Order> chunk : chunks(atExchange)) {
+            Set<Long> pending = new HashSet<>(transition(chunk, ROUTED, OrderStatus.PENDING_CANCEL));
+            for (Order order : chunk) {
+                if (pending.contains(order.getId())) {
+                    OrderStatus previousStatus = order.getStatus();
+                    order.setStatus(OrderStatus.PENDING_CANCEL);
+                    eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
+                    sendExchangeCancel(order, "Cancel-all");
+                    notificationService.sendOrderUpdate(order.getUserId(), order, "Cancel requested", null);
+                }
+            }
+            progress = progress.toBuilder()
+                    .processed(progress.getProcessed() + chunk.size())
+                    .cancelRequested(progress.getCancelRequested() + pending.size())
+                    .elapsedMs(elapsedMs(startNanos))
+                    .build();
+            listener.accept(progress);
+        }
+
+        progress = progress.toBuilder().done(true).elapsedMs(elapsedMs(startNanos)).build();
+        listener.accept(progress);
+        meterRegistry.counter("orders.cancel", "path", "local").increment(progress.getCancelled());
+        meterRegistry.counter("orders.cancel", "path", "exchange").increment(progress.getCancelRequested());
+        log.info("✅ [CANCEL-ALL] Done - UserID: {}, Matched: {}, Cancelled: {}, CancelRequested: {}, ElapsedMs: {}",
+                userId, progress.getMatched(), progress.getCancelled(), progress.getCancelRequested(), progress.getElapsedMs());
+        return progress;
+    }
+
+    /**
+     * Expires the given orders: those not routed yet become EXPIRED in place, routed ones get a
+     * cancel request. Orders that already reached another terminal status are left alone.
+     *
+     * @return number of orders expired or sent for cancel
+     */
+    public int expire(Collection<Long> orderIds) {
+        int count = 0;
+        // Load the due set a chunk at a time so a large backlog never becomes one huge IN query
+        for (List<Long> ids : chunks(new ArrayList<>(orderIds))) {
+            count += expireChunk(orderRepo.findAllById(ids));
+        }
+        meterRegistry.counter("orders.expired").increment(count);
+        return count;
+    }
+
+    private int expireChunk(List<Order> orders) {
+        List<Order> preRouting = orders.stream().filter(o -> o.getStatus().isPreRouting()).toList();
+        Map<Boolean, List<Order>> routed = orders.stream()
+                .filter(o -> ROUTED.contains(o.getStatus()))
+                .collect(Collectors.partitioningBy(o -> stopTriggerEngine.isArmed(o.getId())));
+        int count = 0;
+
+        if (!preRouting.isEmpty()) {
+            count += cancelLocally(preRouting, PRE_ROUTING, OrderStatus.EXPIRED, "Expired").size();
+        }
+        List<Order> toCancel = new ArrayList<>(routed.get(false));
+        if (!routed.get(true).isEmpty()) {
+            Set<Long> expired = cancelLocally(routed.get(true), RESTING, OrderStatus.EXPIRED, "Expired");
+            count += expired.size();
+            // Triggered meanwhile, so it is at the exchange now
+            toCancel.addAll(notIn(routed.get(true), expired));
+        }
+        if (!toCancel.isEmpty()) {
+            Set<Long> pending = new HashSet<>(transition(toCancel, ROUTED, OrderStatus.PENDING_CANCEL));
+            for (Order order : toCancel) {
+                if (pending.contains(order.getId())) {
+                    OrderStatus previousStatus = order.getStatus();
+                    order.setStatus(OrderStatus.PENDING_CANCEL);
+                    eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
+                    sendExchangeCancel(order, "Expired");
+                    notificationService.sendOrderUpdate(order.getUserId(), order, "Order expired, cancel requested", null);
+                }
+            }
+            count += pending.size();
+        }
+        return count;
+    }
+
+    /**
+     * Runs {@link #cancelAll} on a background thread, for callers streaming the progress.
+     */
+    public CompletableFuture<CancelAllProgress> cancelAllAsync(Long userId, String instrumentSymbol, String ocoGroupId,
+                                                               Consumer<CancelAllProgress> listener) {
+        return CompletableFuture.supplyAsync(
+                () -> cancelAll(userId, instrumentSymbol, ocoGroupId, listener), cancelAllExecutor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cancelAllExecutor.shutdown();
+    }
+
+    // Moves the chunk to CANCELLED or EXPIRED without involving the exchange; returns the ids that moved
+    private Set<Long> cancelLocally(List<Order> chunk, Set<OrderStatus> from, OrderStatus to, String reason) {
+        Set<Long> moved = new HashSet<>(transition(chunk, from, to));
+        for (Order order : chunk) {
+            if (moved.contains(order.getId())) {
+                OrderStatus previousStatus = order.getStatus();
+                order.setStatus(to);
+                afterLocalCancel(order, previousStatus, reason);
+            }
+        }
+        return moved;
+    }
+
+    private static List<Order> notIn(List<Order> orders, Set<Long> ids) {
+        return orders.stream().filter(o -> !ids.contains(o.getId())).toList();
+    }
+
+    private record LocalChunk(List<Order> orders, Set<OrderStatus> from) {
+    }
+
+    // Returns the ids of the chunk that are in the target status once the UPDATE has committed
+    private List<Long> transition(List<Order> chunk, Set<OrderStatus> from, OrderStatus to) {
+        List<Long> ids = chunk.stream().map(Order::getId).toList();
+        return transactionTemplate.execute(tx -> {
+            orderRepo.transitionStatusIn(ids, from, to, OffsetDateTime.now());
+            return orderRepo.findIdsByIdInAndStatus(ids, to);
+        });
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunks.add(items.subList(i, Math.min(i + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Releases funds and notifies the user after an order was cancelled without involving the exchange.
+     */
+    void afterLocalCancel(Order order, OrderStatus previousStatus, String reason) {
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, previousStatus));
+        fundsService.release(order.getId());
+        notificationService.sendOrderUpdate(order.getUserId(), order,
+                String.format("Order cancelled: %s", reason), null);
+    }
+
+    void sendExchangeCancel(Order order, String reason) {
+        // An iceberg is cancelled through its working slice
+        String exchangeOrderId = icebergSlicer.exchangeOrderId(order).toString();
+        OrderCancelRequest cancel = OrderCancelRequest.builder()
+                .orderId(exchangeOrderId)
+                .userId(order.getUserId().toString())
+                .symbol(order.getInstrumentSymbol())
+                .clientOrderId(order.getClientOrderId())
+                .reason(reason)
+                .timestamp(Instant.now().toEpochMilli())
+                .build();
+        EventEnvelope<OrderCancelRequest> envelope = new EventEnvelope<>(
+                "OrderCancelRequested",
+                "v1",
+                UUID.randomUUID().toString(),
+                "order-service",
+                Instant.now().toString(),
+                cancel
+        );
+        log.info("📤 [CANCEL] Publishing cancel request to exchange - OrderID: {}", order.getId());
+        producer.publish("orders.exchange.v1", exchangeOrderId, envelope, laneRouter.headers(OrderLane.HIGH));
+    }
+
+    private OrderCancelResponse response(Order order, String message) {
+        return OrderCancelResponse.builder()
+                .orderId(order.getId().toString())
+                .orderStatus(order.getStatus())
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.Enums.TimeInForce;
+import com.example.trading.order_service.exception.ValidationException;
+import com.example.trading.order_service.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Expires DAY and GOOD_TILL_DATE orders.
+ * Pending expiries are held in memory in time buckets (orders.expiry.bucket-seconds wide) sorted by time,
+ * so each tick only looks at the buckets that are due instead of scanning the orders table.
+ * The index is rebuilt from the expires_at column on startup. Due orders are expired in chunks
+ * through {@link OrderCancellationService#expire}, which skips orders that finished in the meantime.
+ */
+@Service
+@Slf4j
+public class OrderExpiryService {
+
+    private final OrderRepository orderRepo;
+    private final OrderCancellationService cancellationService;
+    private final LocalTime sessionClose;
+    private final ZoneId sessionZone;
+    private final long bucketSeconds;
+
+    // bucket start (epoch seconds / bucketSeconds) -> orders expiring in it
+    private final ConcurrentSkipListMap<Long, Set<Long>> buckets = new ConcurrentSkipListMap<>();
+
+    public OrderExpiryService(OrderRepository orderRepo,
+                              OrderCancellationService cancellationService,
+                              @Value("${orders.expiry.session-close:16:00}") String sessionClose,
+                              @Value("${orders.expiry.zone:America/New_York}") String sessionZone,
+                              @Value("${orders.expiry.bucket-seconds:1}") long bucketSeconds) {
+        this.orderRepo = orderRepo;
+        this.cancellationService = cancellationService;
+        this.sessionClose = LocalTime.parse(sessionClose);
+        this.sessionZone = ZoneId.of(sessionZone);
+        this.bucketSeconds = Math.max(1, bucketSeconds);
+    }
+
+    /**
+     * Expiry for a new order: the next session close for DAY, the client's expiresAt for GOOD_TILL_DATE,
+     * none for everything else.
+     */
+    public OffsetDateTime expiresAtFor(TimeInForce timeInForce, OffsetDateTime requested) {
+        if (timeInForce == TimeInForce.DAY) {
+            ZonedDateTime now = ZonedDateTime.now(sessionZone);
+            ZonedDateTime close = now.with(sessionClose);
+            return (close.isAfter(now) ? close : close.plusDays(1)).toOffsetDateTime();
+        }
+        if (timeInForce == TimeInForce.GOOD_TILL_DATE) {
+            if (requested == null || !requested.isAfter(OffsetDateTime.now())) {
+                throw new ValidationException("GOOD_TILL_DATE orders need an expiresAt in the future");
+            }
+            return requested;
+        }
+        return null;
+    }
+
+    public void schedule(Long orderId, OffsetDateTime expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+        long bucket = bucketOf(expiresAt.toEpochSecond());
+        while (true) {
+            Set<Long> ids = buckets.computeIfAbsent(bucket, b -> ConcurrentHashMap.newKeySet());
+            ids.add(orderId);
+            if (buckets.get(bucket) == ids) {
+                return;
+            }
+            // The bucket was fired while we added to it; put the order in a fresh one for the next tick
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingExpiries() {
+        List<OrderStatus> open = Arrays.stream(OrderStatus.values())
+                .filter(s -> !s.isTerminal() && s != OrderStatus.PENDING_CANCEL)
+                .toList();
+        List<OrderRepository.OrderExpiryView> pending = orderRepo.findByExpiresAtIsNotNullAndStatusIn(open);
+        pending.forEach(view -> schedule(view.getId(), view.getExpiresAt()));
+        log.info("⏰ [EXPIRY] Loaded {} pending order expiries into {} buckets", pending.size(), buckets.size());
+    }
+
+    @Scheduled(fixedDelayString = "${orders.expiry.tick-ms:1000}")
+    public void expireDueOrders() {
+        long dueBucket = bucketOf(OffsetDateTime.now().toEpochSecond());
+        List<Long> due = new ArrayList<>();
+        Map.Entry<Long, Set<Long>> entry;
+        while ((entry = buckets.firstEntry()) != null && entry.getKey() < dueBucket) {
+            if (buckets.remove(entry.getKey(), entry.getValue())) {
+                due.addAll(entry.getValue());
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            int expired = cancellationService.expire(due);
+            log.info("⏰ [EXPIRY] Expired {} of {} due orders", expired, due.size());
+        } catch (Exception e) {
+            log.error("❌ [EXPIRY] Failed to expire {} orders, will retry on next tick", due.size(), e);
+            due.forEach(id -> buckets.computeIfAbsent(dueBucket - 1, b -> ConcurrentHashMap.newKeySet()).add(id));
+        }
+    }
+
+    private long bucketOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, bucketSeconds);
+    }
+}
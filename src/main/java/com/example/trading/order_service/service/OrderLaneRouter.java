@@ -0,0 +1,88 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderLane;
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.Enums.TimeInForce;
+import com.example.trading.order_service.entity.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Assigns orders to a pipeline lane. Time-sensitive orders (MARKET, IOC, FOK) and cancels travel
+ * on the HIGH lane, which has its own wallet check topic and consumers, so they never queue behind
+ * a burst of resting limit orders. Outbound messages carry the lane in a header for downstream services.
+ */
+@Component
+@Slf4j
+public class OrderLaneRouter {
+
+    public static final String LANE_HEADER = "x-order-lane";
+    public static final String WALLET_CHECK_TOPIC = "orders.wallet-check.v1";
+    public static final String PRIORITY_WALLET_CHECK_TOPIC = "orders.wallet-check.priority.v1";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<OrderLane, Timer> walletCheckLatency = new EnumMap<>(OrderLane.class);
+
+    public OrderLaneRouter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (OrderLane lane : OrderLane.values()) {
+            walletCheckLatency.put(lane, laneTimer(lane, "wallet-check"));
+        }
+    }
+
+    public OrderLane laneFor(Order order) {
+        if (order.getType() == OrderType.MARKET) {
+            return OrderLane.HIGH;
+        }
+        TimeInForce tif = order.getTimeInForce();
+        if (tif == TimeInForce.IMMEDIATE_OR_CANCEL || tif == TimeInForce.FILL_OR_KILL || tif == TimeInForce.IOC_PARTIAL) {
+            return OrderLane.HIGH;
+        }
+        return OrderLane.NORMAL;
+    }
+
+    public String walletCheckTopic(OrderLane lane) {
+        return lane == OrderLane.HIGH ? PRIORITY_WALLET_CHECK_TOPIC : WALLET_CHECK_TOPIC;
+    }
+
+    public Map<String, String> headers(OrderLane lane) {
+        return Map.of(LANE_HEADER, lane.name());
+    }
+
+    /**
+     * Records how long a message waited between being published and picked up by the wallet check.
+     */
+    public void recordWalletCheckLatency(OrderLane lane, String envelopeTimestamp) {
+        record(walletCheckLatency.get(lane), envelopeTimestamp);
+    }
+
+    public Timer laneTimer(OrderLane lane, String stage) {
+        return Timer.builder("orders.lane.latency")
+                .tag("lane", lane.name())
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void record(Timer timer, String envelopeTimestamp) {
+        if (envelopeTimestamp == null) {
+            return;
+        }
+        try {
+            Duration waited = Duration.between(Instant.parse(envelopeTimestamp), Instant.now());
+            if (!waited.isNegative()) {
+                timer.record(waited);
+            }
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring envelope with unparseable timestamp {}", envelopeTimestamp);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.config.RateLimitProperties;
+import com.example.trading.order_service.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiter for order intake, one bucket per user and optionally per (user, instrumentSymbol).
+ * Buckets are implemented as GCRA: each holds only the theoretical arrival time of the next order,
+ * advanced with a CAS, so checking a limit takes no locks and allocates nothing once the bucket exists.
+ * Bulk baskets draw from their own per-user bucket, charged once per basket for all of its new orders.
+ */
+@Service
+@Slf4j
+public class OrderRateLimiter {
+
+    private static final RateLimitProperties.Tier FALLBACK_TIER = new RateLimitProperties.Tier();
+
+    private final RateLimitProperties props;
+    private final MeterRegistry meterRegistry;
+    private final Counter allowed;
+
+    private final Map<Long, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+    private final Map<UserSymbol, AtomicLong> instrumentBuckets = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> bulkBuckets = new ConcurrentHashMap<>();
+
+    public OrderRateLimiter(RateLimitProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.allowed = meterRegistry.counter("orders.rate_limit.allowed");
+        meterRegistry.gaugeMapSize("orders.rate_limit.buckets", List.of(), userBuckets);
+    }
+
+    /**
+     * Takes one order from the user's buckets.
+     *
+     * @throws RateLimitExceededException if either bucket is empty
+     */
+    public void acquire(Long userId, String instrumentSymbol) {
+        long waitNanos = tryAcquire(userId, instrumentSymbol);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new RateLimitExceededException(userId, retryAfterSeconds);
+        }
+    }
+
+    /**
+     * @return 0 if the order may proceed, otherwise nanoseconds until it would be allowed
+     */
+    public long tryAcquire(Long userId, String instrumentSymbol) {
+        if (!props.isEnabled()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+
+        RateLimitProperties.PerInstrument perInstrument = props.getPerInstrument();
+        AtomicLong instrumentBucket = null;
+        if (perInstrument.isEnabled() && instrumentSymbol != null) {
+            instrumentBucket = instrumentBuckets.computeIfAbsent(new UserSymbol(userId, instrumentSymbol), k -> new AtomicLong(now));
+            long wait = take(instrumentBucket, now, perInstrument.getOrdersPerSecond(), perInstrument.getBurst(), 1);
+            if (wait > 0) {
+                rejected("instrument", "instrument");
+                log.debug("⛔ [RATE-LIMIT] Instrument limit hit - User: {}, Symbol: {}, WaitMs: {}",
+                        userId, instrumentSymbol, TimeUnit.NANOSECONDS.toMillis(wait));
+                return wait;
+            }
+        }
+
+        String tierName = props.getUserTiers().getOrDefault(userId, props.getDefaultTier());
+        RateLimitProperties.Tier tier = props.getTiers().getOrDefault(tierName, FALLBACK_TIER);
+        AtomicLong bucket = userBuckets.computeIfAbsent(userId, k -> new AtomicLong(now));
+        long wait = take(bucket, now, tier.getOrdersPerSecond(), tier.getBurst(), 1);
+        if (wait > 0) {
+            if (instrumentBucket != null) {
+                // The order is not going ahead, so it must not use up the instrument allowance either
+                instrumentBucket.addAndGet(-interval(perInstrument.getOrdersPerSecond()));
+            }
+            rejected("user", tierName);
+            log.debug("⛔ [RATE-LIMIT] User limit hit - User: {}, Tier: {}, WaitMs: {}",
+                    userId, tierName, TimeUnit.NANOSECONDS.toMillis(wait));
+            return wait;
+        }
+
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Takes a whole basket's worth of orders from the user's bulk bucket in one step: either every
+     * order is allowed or none is, so a basket is never cut off halfway through.
+     *
+     * @return 0 if the orders may proceed, otherwise nanoseconds until they would be allowed
+     */
+    public long tryAcquireBulk(Long userId, int orders) {
+        if (!props.isEnabled() || orders <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        RateLimitProperties.Bulk bulk = props.getBulk();
+        AtomicLong bucket = bulkBuckets.computeIfAbsent(userId, k -> new AtomicLong(now));
+        long wait = take(bucket, now, bulk.getOrdersPerSecond(), bulk.getBurst(), orders);
+        if (wait > 0) {
+            rejected("bulk", "bulk");
+            log.debug("⛔ [RATE-LIMIT] Bulk limit hit - User: {}, Orders: {}, WaitMs: {}",
+                    userId, orders, TimeUnit.NANOSECONDS.toMillis(wait));
+            return wait;
+        }
+        allowed.increment(orders);
+        return 0;
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new bucket for the same key starts full anyway.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(tat -> tat.get() - now <= 0);
+        instrumentBuckets.values().removeIf(tat -> tat.get() - now <= 0);
+        bulkBuckets.values().removeIf(tat -> tat.get() - now <= 0);
+    }
+
+    // GCRA: the bucket stores the theoretical arrival time; orders are allowed while it stays at most burst intervals ahead
+    private static long take(AtomicLong tat, long now, double ordersPerSecond, int burst, int orders) {
+        long interval = interval(ordersPerSecond);
+        long tolerance = interval * Math.max(1, burst);
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current - now, 0) + now + interval * orders;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private static long interval(double ordersPerSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / ordersPerSecond);
+    }
+
+    private void rejected(String scope, String tier) {
+        meterRegistry.counter("orders.rate_limit.rejected", "scope", scope, "tier", tier).increment();
+    }
+
+    private record UserSymbol(Long userId, String instrumentSymbol) {
+    }
+}
@@ -1,104 +1,372 @@
 package com.example.trading.order_service.service;
 
+import com.example.trading.order_service.Enums.BulkItemStatus;
+import com.example.trading.order_service.Enums.OrderLane;
+import com.example.trading.order_service.Enums.OrderSide;
 import com.example.trading.order_service.Enums.OrderStatus;
 import com.example.trading.order_service.Enums.TimeInForce;
+import com.example.trading.order_service.dto.AmendOrderRequest;
+import com.example.trading.order_service.dto.AmendOrderResponse;
+import com.example.trading.order_service.dto.BulkOrderItemResult;
+import com.example.trading.order_service.dto.BulkOrderResponse;
 import com.example.trading.order_service.dto.CreateMarketOrderRequest;
 import com.example.trading.order_service.dto.CreateMarketOrderResponse;
 import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.OrderCancelResponse;
+import com.example.trading.order_service.dto.OrderModifyRequest;
 import com.example.trading.order_service.dto.OrderPlacedEvent;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.exception.DuplicateOrderException;
+import com.example.trading.order_service.exception.InsufficientFundsException;
+import com.example.trading.order_service.exception.OrderNotAmendableException;
 import com.example.trading.order_service.exception.OrderNotFoundException;
+import com.example.trading.order_service.exception.RiskLimitExceededException;
+import com.example.trading.order_service.exception.ValidationException;
 import com.example.trading.order_service.kafka.OrderEventsProducer;
 import com.example.trading.order_service.repository.OrderRepository;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    // Statuses a cancel-replace can start from
+    private static final Set<OrderStatus> REPLACEABLE = EnumSet.copyOf(Arrays.stream(OrderStatus.values())
+            .filter(s -> !s.isTerminal() && s != OrderStatus.PENDING_CANCEL).toList());
+    private static final Set<OrderStatus> ALL_STATUSES = EnumSet.allOf(OrderStatus.class);
+
     private final OrderRepository orderRepo;
     private final OrderEventsProducer producer;
+    private final Validator validator;
+    private final IdempotencyIndex idempotencyIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRateLimiter rateLimiter;
+    private final OrderLaneRouter laneRouter;
+    private final OrderCancellationService cancellationService;
+    private final FundsReservationService fundsService;
+    private final ComplianceApprovalCache approvalCache;
+    private final OrderStatusNotificationService notificationService;
+    private final OrderExpiryService expiryService;
+    private final PreTradeRiskEngine riskEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StopTriggerEngine stopTriggerEngine;
+    private final IcebergSlicer icebergSlicer;
 
-    @Transactional
     public CreateMarketOrderResponse createMarketOrder(CreateMarketOrderRequest req) {
         log.info("🏭 [SERVICE] Creating new order - User: {}, Symbol: {}, Side: {}, Type: {}, Qty: {}, Price: {}",
                 req.getUserId(), req.getInstrumentSymbol(), req.getOrderSide(), req.getOrderType(),
                 req.getQuantity(), req.getPrice());
 
-        // 1. Idempotency check: reject duplicate client_order_id for the same user
-        if (req.getClientOrderId() != null &&
-                orderRepo.findByUserIdAndClientOrderId(req.getUserId(), req.getClientOrderId()).isPresent()) {
-            log.error("❌ [SERVICE] Duplicate order detected - ClientOrderId: {}, User: {}",
-                    req.getClientOrderId(), req.getUserId());
-            throw new DuplicateOrderException(req.getClientOrderId());
+        PlacedOrder placed = findRetried(req).orElseGet(() -> {
+            rateLimiter.acquire(req.getUserId(), req.getInstrumentSymbol());
+            riskEngine.check(req);
+            return placeOrder(req, OrderStatus.NEW);
+        });
+        log.debug("🔄 [SERVICE] Mapping order entity to response DTO - OrderID: {}", placed.order().getId());
+        return toResponse(placed.order());
+    }
+
+    /**
+     * Single-shot submission for automated clients: creates the order already confirmed in
+     * PENDING_WALLET_CHECK and starts the pipeline, instead of POST /orders followed by
+     * review-confirm. The event is published once the insert has committed, so the wallet
+     * check consumer never looks up an order that isn't there yet. A retry of an order
+     * that was already submitted returns it without publishing again, and without spending a
+     * rate limit token or being checked against risk limits a second time.
+     */
+    public CreateMarketOrderResponse submitOrder(CreateMarketOrderRequest req) {
+        log.info("🏭 [SERVICE] Submitting order - User: {}, Symbol: {}, Side: {}, Type: {}, Qty: {}, Price: {}",
+                req.getUserId(), req.getInstrumentSymbol(), req.getOrderSide(), req.getOrderType(),
+                req.getQuantity(), req.getPrice());
+
+        PlacedOrder placed = findRetried(req).orElseGet(() -> {
+            rateLimiter.acquire(req.getUserId(), req.getInstrumentSymbol());
+            riskEngine.check(req);
+            return placeOrder(req, OrderStatus.PENDING_WALLET_CHECK);
+        });
+        if (placed.created()) {
+            publishForWalletCheck(placed.order());
         }
-        log.debug("✅ [SERVICE] Idempotency check passed - ClientOrderId: {}", req.getClientOrderId());
-        // 2. Build the Order entity
-        Order order = Order.builder()
-                .userId(req.getUserId())
-                .instrumentId(req.getInstrumentId())
-                .instrumentSymbol(req.getInstrumentSymbol())
-                .orderSide(req.getOrderSide())
-                .type(req.getOrderType())
-                .status(OrderStatus.NEW)
-                .limitPrice(req.getPrice())
-                .stopPrice(req.getStopPrice())
-                .trailingOffset(req.getTrailingOffset())
-                .trailingType(req.getTrailingType())
-                .displayQuantity(req.getDisplayQuantity())
-                .totalQuantity(req.getQuantity())
-                .filledQuantity(BigDecimal.ZERO)
-                .timeInForce(req.getTimeInForce() == null ? TimeInForce.IMMEDIATE_OR_CANCEL : req.getTimeInForce())
-                .clientOrderId(req.getClientOrderId())
-                .placedAt(OffsetDateTime.now())
-                .updatedAt(OffsetDateTime.now())
-                .notionalValue(req.getPrice() != null ? req.getPrice().multiply(req.getQuantity()) : BigDecimal.ZERO)
-                // OCO-specific fields
-                .ocoGroupId(req.getOcoGroupId())
-                .primaryOrderType(req.getPrimaryOrderType())
-                .primaryPrice(req.getPrimaryPrice())
-                .primaryStopPrice(req.getPrimaryStopPrice())
-                .secondaryOrderType(req.getSecondaryOrderType())
-                .secondaryPrice(req.getSecondaryPrice())
-                .secondaryStopPrice(req.getSecondaryStopPrice())
-                .secondaryTrailAmount(req.getSecondaryTrailAmount())
+        return toResponse(placed.order());
+    }
+
+    /**
+     * Replays a retry whose clientOrderId is still in the in-memory index. Runs before rate limiting
+     * and risk checks, so a retry is answered the same way however many times it is sent.
+     * A retry is only replayed if it matches the original; reusing a clientOrderId for a different
+     * order is rejected with {@link DuplicateOrderException}.
+     */
+    private Optional<PlacedOrder> findRetried(CreateMarketOrderRequest req) {
+        if (req.getClientOrderId() == null) {
+            return Optional.empty();
+        }
+        Long knownId = idempotencyIndex.find(req.getUserId(), req.getClientOrderId());
+        if (knownId == null) {
+            return Optional.empty();
+        }
+        return orderRepo.findById(knownId).map(original -> replay(req, original));
+    }
+
+    /**
+     * Inserts the order, or returns the original one if the client already sent this clientOrderId.
+     * Recent keys were answered by {@link #findRetried}; anything older is caught by the
+     * uq_orders_client_order constraint, so the common case is a single INSERT with no prior SELECT.
+     */
+    private PlacedOrder placeOrder(CreateMarketOrderRequest req, OrderStatus status) {
+        String clientOrderId = req.getClientOrderId();
+        try {
+            Order saved = transactionTemplate.execute(tx -> orderRepo.saveAndFlush(buildOrder(req, status)));
+            log.info("💾 [SERVICE] Order saved to database - OrderID: {}, Status: {}, NotionalValue: {}",
+                    saved.getId(), saved.getStatus(), saved.getNotionalValue());
+            if (clientOrderId != null) {
+                idempotencyIndex.record(req.getUserId(), clientOrderId, saved.getId());
+            }
+            expiryService.schedule(saved.getId(), saved.getExpiresAt());
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(saved, null));
+            return new PlacedOrder(saved, true);
+        } catch (DataIntegrityViolationException e) {
+            if (clientOrderId == null) {
+                throw e;
+            }
+            // Older than the index window, or a concurrent retry won the race
+            Order original = orderRepo.findByUserIdAndClientOrderId(req.getUserId(), clientOrderId)
+                    .orElseThrow(() -> e);
+            idempotencyIndex.record(req.getUserId(), clientOrderId, original.getId());
+            return replay(req, original);
+        }
+    }
+
+    private PlacedOrder replay(CreateMarketOrderRequest req, Order original) {
+        String mismatch = mismatchedFields(req, original);
+        if (mismatch != null) {
+            log.warn("⚠️ [SERVICE] ClientOrderId reused for a different order - ClientOrderId: {}, User: {}, OrderID: {}, Differs: {}",
+                    req.getClientOrderId(), req.getUserId(), original.getId(), mismatch);
+            throw new DuplicateOrderException(req.getClientOrderId(), original.getId(), mismatch);
+        }
+        log.info("♻️ [SERVICE] Replaying retried order - ClientOrderId: {}, User: {}, OrderID: {}",
+                req.getClientOrderId(), req.getUserId(), original.getId());
+        return new PlacedOrder(original, false);
+    }
+
+    // Names the key fields in which a retry differs from the order already stored under its clientOrderId, or null
+    private static String mismatchedFields(CreateMarketOrderRequest req, Order original) {
+        List<String> fields = new ArrayList<>();
+        if (!Objects.equals(req.getInstrumentSymbol(), original.getInstrumentSymbol())) {
+            fields.add("instrumentSymbol");
+        }
+        if (req.getOrderSide() != original.getOrderSide()) {
+            fields.add("orderSide");
+        }
+        if (!sameAmount(req.getQuantity(), original.getTotalQuantity())) {
+            fields.add("quantity");
+        }
+        if (!sameAmount(req.getPrice(), original.getLimitPrice())) {
+            fields.add("price");
+        }
+        return fields.isEmpty() ? null : String.join(", ", fields);
+    }
+
+    // The stored value comes back with the column's scale, so compare numerically
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Creates a basket of orders. Each item is validated on its own and idempotency is
+     * checked with one query per user in the basket. The new orders are charged to the
+     * user's bulk rate limit in one go, and are then inserted together
+     * with saveAll so Hibernate can batch them. If a concurrent request inserts one of the
+     * same clientOrderIds in the meantime, the basket falls back to one insert per item so
+     * only the clashing items are affected. With submit, orders skip review and go
+     * straight to the wallet check like {@link #submitOrder}; otherwise they stay NEW.
+     */
+    public BulkOrderResponse createBulkOrders(List<CreateMarketOrderRequest> requests, boolean submit) {
+        log.info("🏭 [SERVICE] Creating bulk orders - Count: {}, Submit: {}", requests.size(), submit);
+        OrderStatus status = submit ? OrderStatus.PENDING_WALLET_CHECK : OrderStatus.NEW;
+
+        BulkOrderItemResult[] results = new BulkOrderItemResult[requests.size()];
+        Map<Long, Map<String, Integer>> clientIdsByUser = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        Map<Long, Integer> acceptedByUser = new HashMap<>();
+
+        // 1. Validate each item, and catch clientOrderIds repeated inside the basket
+        for (int i = 0; i < requests.size(); i++) {
+            CreateMarketOrderRequest req = requests.get(i);
+            String error = validate(req);
+            if (error != null) {
+                results[i] = rejected(i, req, error);
+                continue;
+            }
+            if (req.getClientOrderId() != null) {
+                Integer first = clientIdsByUser.computeIfAbsent(req.getUserId(), u -> new HashMap<>())
+                        .putIfAbsent(req.getClientOrderId(), i);
+                if (first != null) {
+                    results[i] = rejected(i, req, "clientOrderId repeats item " + first);
+                    continue;
+                }
+            }
+            String breach = riskEngine.findBreach(req, acceptedByUser.getOrDefault(req.getUserId(), 0));
+            if (breach != null) {
+                results[i] = rejected(i, req, breach);
+                continue;
+            }
+            acceptedByUser.merge(req.getUserId(), 1, Integer::sum);
+            candidates.add(i);
+        }
+
+        // 2. Idempotency check: one IN query per user instead of one SELECT per order
+        Map<Long, Map<String, Order>> existingByUser = new HashMap<>();
+        clientIdsByUser.forEach((userId, clientIds) -> {
+            Map<String, Order> existing = new HashMap<>();
+            for (Order o : orderRepo.findByUserIdAndClientOrderIdIn(userId, clientIds.keySet())) {
+                existing.put(o.getClientOrderId(), o);
+            }
+            existingByUser.put(userId, existing);
+        });
+
+        // 3. Charge each user's bulk allowance once for the orders that will really be inserted,
+        //    so a retried basket comes back as duplicates instead of being rate limited
+        Map<Long, List<Integer>> insertsByUser = new HashMap<>();
+        for (int i : candidates) {
+            CreateMarketOrderRequest req = requests.get(i);
+            if (req.getClientOrderId() == null
+                    || !existingByUser.getOrDefault(req.getUserId(), Map.of()).containsKey(req.getClientOrderId())) {
+                insertsByUser.computeIfAbsent(req.getUserId(), u -> new ArrayList<>()).add(i);
+            }
+        }
+        insertsByUser.forEach((userId, indexes) -> {
+            if (rateLimiter.tryAcquireBulk(userId, indexes.size()) > 0) {
+                indexes.forEach(i -> results[i] = rejected(i, requests.get(i), "rate limit exceeded"));
+            }
+        });
+
+        // 4. Build the new orders and insert them in one batch
+        List<Order> toSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+        for (int i : candidates) {
+            if (results[i] != null) {
+                continue;
+            }
+            CreateMarketOrderRequest req = requests.get(i);
+            Order duplicate = req.getClientOrderId() == null ? null
+                    : existingByUser.getOrDefault(req.getUserId(), Map.of()).get(req.getClientOrderId());
+            if (duplicate != null) {
+                results[i] = duplicateResult(i, req, duplicate);
+                continue;
+            }
+            toSave.add(buildOrder(req, status));
+            savedIndexes.add(i);
+        }
+
+        List<Order> saved;
+        try {
+            saved = insertOrders(toSave, submit);
+        } catch (DataIntegrityViolationException e) {
+            // A clientOrderId was inserted by someone else after the duplicate check
+            log.warn("⚠️ [SERVICE] Bulk insert hit an existing clientOrderId, inserting item by item - Count: {}",
+                    toSave.size());
+            saved = new ArrayList<>();
+            List<Integer> insertedIndexes = new ArrayList<>();
+            for (int i : savedIndexes) {
+                CreateMarketOrderRequest req = requests.get(i);
+                try {
+                    saved.addAll(insertOrders(List.of(buildOrder(req, status)), submit));
+                    insertedIndexes.add(i);
+                } catch (DataIntegrityViolationException ex) {
+                    Optional<Order> original = req.getClientOrderId() == null ? Optional.empty()
+                            : orderRepo.findByUserIdAndClientOrderId(req.getUserId(), req.getClientOrderId());
+                    results[i] = original.map(o -> duplicateResult(i, req, o))
+                            .orElseGet(() -> rejected(i, req, "order could not be saved"));
+                }
+            }
+            savedIndexes = insertedIndexes;
+        }
+        for (int k = 0; k < saved.size(); k++) {
+            Order order = saved.get(k);
+            int i = savedIndexes.get(k);
+            results[i] = BulkOrderItemResult.builder()
+                    .index(i)
+                    .clientOrderId(order.getClientOrderId())
+                    .status(BulkItemStatus.ACCEPTED)
+                    .orderId(order.getId().toString())
+                    .orderStatus(order.getStatus())
+                    .build();
+        }
+
+        int duplicates = 0;
+        int rejected = 0;
+        for (BulkOrderItemResult r : results) {
+            if (r.getStatus() == BulkItemStatus.DUPLICATE) duplicates++;
+            else if (r.getStatus() == BulkItemStatus.REJECTED) rejected++;
+        }
+        log.info("💾 [SERVICE] Bulk orders saved - Accepted: {}, Duplicates: {}, Rejected: {}",
+                saved.size(), duplicates, rejected);
+
+        return BulkOrderResponse.builder()
+                .accepted(saved.size())
+                .duplicates(duplicates)
+                .rejected(rejected)
+                .results(Arrays.asList(results))
                 .build();
+    }
 
-        // 3. Save the order to the database (ID will be generated here)
-        Order saved = orderRepo.save(order);
-        log.info("💾 [SERVICE] Order saved to database - OrderID: {}, Status: {}, NotionalValue: {}",
-                saved.getId(), saved.getStatus(), saved.getNotionalValue());
-
-        // 4. Map entity -> DTO
-        log.debug("🔄 [SERVICE] Mapping order entity to response DTO - OrderID: {}", saved.getId());
-        return  CreateMarketOrderResponse.builder()
-                .orderId(saved.getId().toString())
-                .userId(saved.getUserId())
-                .instrumentId(saved.getInstrumentId())
-                .instrumentSymbol(saved.getInstrumentSymbol())
-                .orderSide(saved.getOrderSide())
-                .orderType(saved.getType())
-                .orderStatus(saved.getStatus())
-                .totalQuantity(saved.getTotalQuantity())
-                .filledQuantity(saved.getFilledQuantity())
-                .averageFillPrice(saved.getAvgFillPrice())
-                .notionalValue(saved.getNotionalValue())
-                .timeInForce(saved.getTimeInForce())
-                .clientOrderId(saved.getClientOrderId())
-                .placedAt(saved.getPlacedAt())
-                .updatedAt(saved.getUpdatedAt())
-                .executedAt(saved.getExecutedAt()) // null initially
-                .items(Collections.emptyList())    // empty list until executions happen
+    // Inserts the orders in one transaction; wallet check events go out once it has committed
+    private List<Order> insertOrders(List<Order> orders, boolean submit) {
+        List<Order> saved = transactionTemplate.execute(tx -> {
+            List<Order> inserted = orderRepo.saveAllAndFlush(orders);
+            inserted.forEach(o -> eventPublisher.publishEvent(OrderStatusChangedEvent.of(o, null)));
+            if (submit) {
+                inserted.forEach(this::publishForWalletCheckAfterCommit);
+            }
+            return inserted;
+        });
+        saved.stream()
+                .filter(o -> o.getClientOrderId() != null)
+                .forEach(o -> idempotencyIndex.record(o.getUserId(), o.getClientOrderId(), o.getId()));
+        saved.forEach(o -> expiryService.schedule(o.getId(), o.getExpiresAt()));
+        return saved;
+    }
+
+    // A basket item whose clientOrderId is already taken: DUPLICATE if it matches the stored order, REJECTED otherwise
+    private BulkOrderItemResult duplicateResult(int index, CreateMarketOrderRequest req, Order original) {
+        String mismatch = mismatchedFields(req, original);
+        if (mismatch != null) {
+            return rejected(index, req, "clientOrderId already used for order " + original.getId()
+                    + " with a different " + mismatch);
+        }
+        return BulkOrderItemResult.builder()
+                .index(index)
+                .clientOrderId(req.getClientOrderId())
+                .status(BulkItemStatus.DUPLICATE)
+                .orderId(original.getId().toString())
+                .orderStatus(original.getStatus())
                 .build();
     }
 
@@ -122,6 +390,7 @@ public class OrderService {
             order.setUpdatedAt(OffsetDateTime.now());
             order.setConfirmed(true);
             order = orderRepo.save(order); // persist changes
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, OrderStatus.NEW));
             log.info("💾 [SERVICE] Order status updated - OrderID: {}, NewStatus: {}, Confirmed: true", id, order.getStatus());
         } else {
             log.warn("⚠️ [SERVICE] Order not in NEW status - OrderID: {}, CurrentStatus: {}, Skipping status update",
@@ -129,6 +398,249 @@ public class OrderService {
         }
 
         // Publish to wallet-check topic to start the pipeline
+        publishForWalletCheck(order);
+
+        // Map entity -> DTO
+        return toResponse(order);
+    }
+
+
+    /**
+     * Cancel-replace for quantity and limit price changes.
+     * A NEW order is changed in place. A routed order whose change stays within what compliance
+     * approved is modified in place as well: only the difference in reserved funds is checked and
+     * a modify request goes to the exchange. Anything else cancels the order and sends a
+     * replacement through the full pipeline, for the part of the new quantity the original did not
+     * fill. For a routed order the replacement waits until the exchange confirms the cancel.
+     * Whichever way it goes, the new quantity and price are checked against the pre-trade risk limits first.
+     */
+    public AmendOrderResponse amendOrder(Long orderId, AmendOrderRequest req) {
+        log.info("✏️ [SERVICE] Amend requested - OrderID: {}, Qty: {}, LimitPrice: {}",
+                orderId, req.getQuantity(), req.getLimitPrice());
+        if (req.getQuantity() == null && req.getLimitPrice() == null) {
+            throw new ValidationException("Amend needs a new quantity or limitPrice");
+        }
+
+        Order order = orderRepo.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        OrderStatus status = order.getStatus();
+        if (status.isTerminal() || status == OrderStatus.PENDING_CANCEL) {
+            throw new OrderNotAmendableException(
+                    String.format("Order %d cannot be amended in status %s", orderId, status));
+        }
+        if (req.getLimitPrice() != null && order.getLimitPrice() == null) {
+            throw new OrderNotAmendableException(
+                    String.format("Order %d is a %s order without a limit price", orderId, order.getType()));
+        }
+
+        BigDecimal newQuantity = req.getQuantity() != null ? req.getQuantity() : order.getTotalQuantity();
+        BigDecimal newLimitPrice = req.getLimitPrice() != null ? req.getLimitPrice() : order.getLimitPrice();
+        BigDecimal filled = order.getFilledQuantity() != null ? order.getFilledQuantity() : BigDecimal.ZERO;
+        if (newQuantity.compareTo(filled) <= 0) {
+            throw new OrderNotAmendableException(
+                    String.format("Order %d already filled %s, new quantity must be larger", orderId, filled));
+        }
+        String breach = riskEngine.findAmendBreach(order, newQuantity, newLimitPrice);
+        if (breach != null) {
+            throw new RiskLimitExceededException(breach);
+        }
+
+        if (status == OrderStatus.NEW) {
+            return modifyInPlace(order, newQuantity, newLimitPrice, null);
+        }
+        if (status.isPreRouting() || !approvalCache.isWithinApproval(order, newQuantity, newLimitPrice)) {
+            return replace(order, newQuantity, newLimitPrice);
+        }
+
+        // Risk-reducing change at the exchange: reserve only the difference for what is left to fill
+        BigDecimal newReserve = order.getOrderSide() == OrderSide.BUY && newLimitPrice != null
+                ? newQuantity.subtract(filled).multiply(newLimitPrice)
+                : null;
+        return modifyInPlace(order, newQuantity, newLimitPrice, newReserve);
+    }
+
+    /**
+     * @param newReserve funds to keep reserved for a routed order after the amend, or null if the
+     *                   order is not routed or reserves nothing
+     */
+    private AmendOrderResponse modifyInPlace(Order order, BigDecimal newQuantity, BigDecimal newLimitPrice,
+                                             BigDecimal newReserve) {
+        boolean routed = order.getStatus() != OrderStatus.NEW;
+        boolean unfilled = order.getFilledQuantity() == null || order.getFilledQuantity().signum() == 0;
+        BigDecimal notional = unfilled && newLimitPrice != null ? newLimitPrice.multiply(newQuantity) : order.getNotionalValue();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        // The reservation is only resized once the amend won; a failed resize rolls the amend back
+        Integer updated = transactionTemplate.execute(tx -> {
+            int amended = orderRepo.amend(order.getId(), newQuantity, newLimitPrice, notional, order.getUpdatedAt(), now);
+            if (amended == 1 && newReserve != null && !fundsService.adjust(order.getUserId(), order.getId(), newReserve)) {
+                throw new InsufficientFundsException(order.getUserId(), newReserve.toPlainString());
+            }
+            return amended;
+        });
+        if (updated == null || updated == 0) {
+            throw new OrderNotAmendableException(
+                    String.format("Order %d changed while being amended, please retry", order.getId()));
+        }
+        order.setTotalQuantity(newQuantity);
+        order.setLimitPrice(newLimitPrice);
+        order.setNotionalValue(notional);
+        order.setUpdatedAt(now);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, order.getStatus()));
+
+        // A stop still resting here picks the amend up from the event above
+        if (routed && !stopTriggerEngine.isArmed(order.getId())) {
+            // An iceberg's working slice keeps its size, the new total applies from the next slice
+            boolean sliced = order.getActiveSliceId() != null;
+            OrderModifyRequest modify = OrderModifyRequest.builder()
+                    .orderId(icebergSlicer.exchangeOrderId(order).toString())
+                    .userId(order.getUserId().toString())
+                    .symbol(order.getInstrumentSymbol())
+                    .clientOrderId(order.getClientOrderId())
+                    .quantity(sliced ? null : newQuantity)
+                    .limitPrice(newLimitPrice)
+                    .timestamp(Instant.now().toEpochMilli())
+                    .build();
+            EventEnvelope<OrderModifyRequest> envelope = new EventEnvelope<>(
+                    "OrderModifyRequested",
+                    "v1",
+                    UUID.randomUUID().toString(),
+                    "order-service",
+                    Instant.now().toString(),
+                    modify
+            );
+            log.info("📤 [SERVICE] Publishing modify request to exchange - OrderID: {}", order.getId());
+            producer.publish("orders.exchange.v1", modify.getOrderId(), envelope, laneRouter.headers(OrderLane.HIGH));
+        }
+        notificationService.sendOrderUpdate(order.getUserId(), order, "Order amended", null);
+        log.info("✅ [SERVICE] Order amended in place - OrderID: {}, Qty: {}, LimitPrice: {}",
+                order.getId(), newQuantity, newLimitPrice);
+
+        return AmendOrderResponse.builder()
+                .orderId(order.getId().toString())
+                .mode(AmendOrderResponse.Mode.MODIFIED)
+                .orderStatus(order.getStatus())
+                .quantity(newQuantity)
+                .limitPrice(newLimitPrice)
+                .build();
+    }
+
+    private AmendOrderResponse replace(Order original, BigDecimal newQuantity, BigDecimal newLimitPrice) {
+        // Recorded before the cancel, so a confirmation that arrives right away still finds it
+        Integer marked = transactionTemplate.execute(tx ->
+                orderRepo.setReplace(original.getId(), newQuantity, newLimitPrice, REPLACEABLE));
+        if (marked == null || marked == 0) {
+            throw new OrderNotAmendableException(
+                    String.format("Order %d changed while being amended, please retry", original.getId()));
+        }
+        OrderCancelResponse cancelled;
+        try {
+            cancelled = cancellationService.cancel(original.getId(), "Replaced by amend");
+        } catch (RuntimeException e) {
+            transactionTemplate.execute(tx -> orderRepo.setReplace(original.getId(), null, null, ALL_STATUSES));
+            throw e;
+        }
+        approvalCache.remove(original.getId());
+
+        AmendOrderResponse.AmendOrderResponseBuilder response = AmendOrderResponse.builder()
+                .orderId(original.getId().toString())
+                .mode(AmendOrderResponse.Mode.REPLACED)
+                .orderStatus(cancelled.getOrderStatus())
+                .quantity(newQuantity)
+                .limitPrice(newLimitPrice)
+                .message(cancelled.getMessage());
+        if (cancelled.getOrderStatus() != OrderStatus.CANCELLED) {
+            // Fills can land until the exchange confirms the cancel; the replacement is sized then
+            log.info("⏳ [SERVICE] Replacement waits for the cancel confirmation - OrderID: {}, Qty: {}, LimitPrice: {}",
+                    original.getId(), newQuantity, newLimitPrice);
+            return response.message("Replacement is sent once the exchange confirms the cancel").build();
+        }
+
+        Order replacement = transactionTemplate.execute(tx -> orderRepo.findById(original.getId())
+                .flatMap(this::completeReplace)
+                .orElse(null));
+        if (replacement != null) {
+            response.quantity(replacement.getTotalQuantity()).replacementOrderId(replacement.getId().toString());
+        }
+        return response.build();
+    }
+
+    /**
+     * Sends the replacement of a cancel-replace once its original is cancelled, for the part of the
+     * new quantity the original did not fill. Runs in the caller's transaction. The replacement keeps
+     * the original's clientOrderId and OCO group and legs, so it stays in the same OCO group.
+     *
+     * @return the replacement, or empty if no replace was pending or nothing is left to fill
+     */
+    public Optional<Order> completeReplace(Order original) {
+        BigDecimal newQuantity = original.getReplaceQuantity();
+        if (newQuantity == null) {
+            return Optional.empty();
+        }
+        BigDecimal newLimitPrice = original.getReplaceLimitPrice();
+        String clientOrderId = original.getClientOrderId();
+        BigDecimal filled = original.getFilledQuantity() != null ? original.getFilledQuantity() : BigDecimal.ZERO;
+        BigDecimal remainingQuantity = newQuantity.subtract(filled);
+        if (remainingQuantity.signum() <= 0) {
+            log.warn("⚠️ [SERVICE] Nothing left to replace - OrderID: {}, NewQty: {}, Filled: {}",
+                    original.getId(), newQuantity, filled);
+            orderRepo.setReplace(original.getId(), null, null, ALL_STATUSES);
+            return Optional.empty();
+        }
+        // The amend call and the cancel consumer can both get here; only the one that claims the replace sends it
+        if (orderRepo.claimReplace(original.getId()) != 1) {
+            return Optional.empty();
+        }
+        original.setReplaceQuantity(null);
+        original.setReplaceLimitPrice(null);
+        original.setClientOrderId(null);
+
+        Order replacement = Order.builder()
+                .userId(original.getUserId())
+                .instrumentId(original.getInstrumentId())
+                .instrumentSymbol(original.getInstrumentSymbol())
+                .orderSide(original.getOrderSide())
+                .type(original.getType())
+                .status(OrderStatus.PENDING_WALLET_CHECK)
+                .isConfirmed(true)
+                .limitPrice(newLimitPrice)
+                .stopPrice(original.getStopPrice())
+                .trailingOffset(original.getTrailingOffset())
+                .trailingType(original.getTrailingType())
+                .displayQuantity(original.getDisplayQuantity())
+                .totalQuantity(remainingQuantity)
+                .filledQuantity(BigDecimal.ZERO)
+                .timeInForce(original.getTimeInForce())
+                .expiresAt(original.getExpiresAt())
+                .clientOrderId(clientOrderId)
+                .placedAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .notionalValue(newLimitPrice != null ? newLimitPrice.multiply(remainingQuantity) : BigDecimal.ZERO)
+                // OCO-specific fields
+                .ocoGroupId(original.getOcoGroupId())
+                .primaryOrderType(original.getPrimaryOrderType())
+                .primaryPrice(original.getPrimaryPrice())
+                .primaryStopPrice(original.getPrimaryStopPrice())
+                .secondaryOrderType(original.getSecondaryOrderType())
+                .secondaryPrice(original.getSecondaryPrice())
+                .secondaryStopPrice(original.getSecondaryStopPrice())
+                .secondaryTrailAmount(original.getSecondaryTrailAmount())
+                .build();
+        Order saved = orderRepo.save(replacement);
+        if (clientOrderId != null) {
+            idempotencyIndex.record(saved.getUserId(), clientOrderId, saved.getId());
+        }
+        expiryService.schedule(saved.getId(), saved.getExpiresAt());
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(saved, null));
+        publishForWalletCheckAfterCommit(saved);
+        log.info("✅ [SERVICE] Order replaced - OrderID: {}, ReplacementID: {}, Qty: {}, LimitPrice: {}",
+                original.getId(), saved.getId(), remainingQuantity, newLimitPrice);
+        return Optional.of(saved);
+    }
+
+    private record PlacedOrder(Order order, boolean created) {
+    }
+
+    private void publishForWalletCheck(Order order) {
         log.debug("📦 [SERVICE] Building event payload - OrderID: {}", order.getId());
         OrderPlacedEvent payload = buildEventPayload(order);
         EventEnvelope<OrderPlacedEvent> envelope = new EventEnvelope<>(
@@ -140,13 +652,64 @@ public class OrderService {
                 payload
         );
 
-        // Start the wallet check pipeline (first step)
-        log.info("📤 [SERVICE] Publishing to Kafka - Topic: orders.wallet-check.v1, OrderID: {}", order.getId());
-        producer.publish("orders.wallet-check.v1", order.getId().toString(), envelope);
+        // Start the wallet check pipeline (first step) on the order's lane
+        OrderLane lane = laneRouter.laneFor(order);
+        String topic = laneRouter.walletCheckTopic(lane);
+        log.info("📤 [SERVICE] Publishing to Kafka - Topic: {}, Lane: {}, OrderID: {}", topic, lane, order.getId());
+        producer.publish(topic, order.getId().toString(), envelope, laneRouter.headers(lane));
         log.info("✅ [SERVICE] Order {} submitted for wallet check pipeline - Status: {}",
                 order.getId(), order.getStatus());
+    }
 
-        // Map entity -> DTO
+    private void publishForWalletCheckAfterCommit(Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishForWalletCheck(order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishForWalletCheck(order);
+            }
+        });
+    }
+
+    private Order buildOrder(CreateMarketOrderRequest req, OrderStatus status) {
+        TimeInForce timeInForce = req.getTimeInForce() == null ? TimeInForce.IMMEDIATE_OR_CANCEL : req.getTimeInForce();
+        return Order.builder()
+                .userId(req.getUserId())
+                .instrumentId(req.getInstrumentId())
+                .instrumentSymbol(req.getInstrumentSymbol())
+                .orderSide(req.getOrderSide())
+                .type(req.getOrderType())
+                .status(status)
+                .isConfirmed(status != OrderStatus.NEW)
+                .limitPrice(req.getPrice())
+                .stopPrice(req.getStopPrice())
+                .trailingOffset(req.getTrailingOffset())
+                .trailingType(req.getTrailingType())
+                .displayQuantity(req.getDisplayQuantity())
+                .totalQuantity(req.getQuantity())
+                .filledQuantity(BigDecimal.ZERO)
+                .timeInForce(timeInForce)
+                .expiresAt(expiryService.expiresAtFor(timeInForce, req.getExpiresAt()))
+                .clientOrderId(req.getClientOrderId())
+                .placedAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .notionalValue(req.getPrice() != null ? req.getPrice().multiply(req.getQuantity()) : BigDecimal.ZERO)
+                // OCO-specific fields
+                .ocoGroupId(req.getOcoGroupId())
+                .primaryOrderType(req.getPrimaryOrderType())
+                .primaryPrice(req.getPrimaryPrice())
+                .primaryStopPrice(req.getPrimaryStopPrice())
+                .secondaryOrderType(req.getSecondaryOrderType())
+                .secondaryPrice(req.getSecondaryPrice())
+                .secondaryStopPrice(req.getSecondaryStopPrice())
+                .secondaryTrailAmount(req.getSecondaryTrailAmount())
+                .build();
+    }
+
+    private CreateMarketOrderResponse toResponse(Order order) {
         return CreateMarketOrderResponse.builder()
                 .orderId(order.getId().toString())
                 .userId(order.getUserId())
@@ -163,12 +726,46 @@ public class OrderService {
                 .clientOrderId(order.getClientOrderId())
                 .placedAt(order.getPlacedAt())
                 .updatedAt(order.getUpdatedAt())
-                .executedAt(order.getExecutedAt())
-                .items(Collections.emptyList()) // until executions happen
+                .executedAt(order.getExecutedAt()) // null until executions happen
+                .items(Collections.emptyList())    // empty list until executions happen
                 .isConfirmed(order.isConfirmed())
                 .build();
     }
 
+    private String validate(CreateMarketOrderRequest req) {
+        if (req == null) {
+            return "order is null";
+        }
+        // orderSide/orderType use Lombok @NonNull, which the bean validator doesn't see
+        if (req.getOrderSide() == null) {
+            return "orderSide: must not be null";
+        }
+        if (req.getOrderType() == null) {
+            return "orderType: must not be null";
+        }
+        Set<ConstraintViolation<CreateMarketOrderRequest>> violations = validator.validate(req);
+        if (violations.isEmpty()) {
+            try {
+                expiryService.expiresAtFor(req.getTimeInForce(), req.getExpiresAt());
+            } catch (ValidationException e) {
+                return e.getMessage();
+            }
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BulkOrderItemResult rejected(int index, CreateMarketOrderRequest req, String error) {
+        return BulkOrderItemResult.builder()
+                .index(index)
+                .clientOrderId(req != null ? req.getClientOrderId() : null)
+                .status(BulkItemStatus.REJECTED)
+                .error(error)
+                .build();
+    }
 
     private OrderPlacedEvent buildEventPayload(Order order) {
         OrderPlacedEvent payload = new OrderPlacedEvent();
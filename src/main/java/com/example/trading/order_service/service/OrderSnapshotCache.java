@@ -0,0 +1,124 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache of serialized order snapshots for GET /api/orders/{orderId}.
+ * Each entry holds the JSON body and its ETag, so a poll is served without touching the database
+ * or re-serializing the order. Concurrent misses for the same order share a single load.
+ *
+ * Entries are dropped from the {@link OrderStatusChangedEvent} every change to an order publishes,
+ * after commit, so readers never re-cache uncommitted state.
+ */
+@Service
+@Slf4j
+public class OrderSnapshotCache {
+
+    private final OrderRepository orderRepo;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+
+    private final Map<Long, CachedOrder> cache = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<CachedOrder>> inflight = new ConcurrentHashMap<>();
+
+    public OrderSnapshotCache(OrderRepository orderRepo,
+                              ObjectMapper objectMapper,
+                              @Value("${orders.snapshot-cache.max-entries:10000}") int maxEntries) {
+        this.orderRepo = orderRepo;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<CachedOrder> get(Long orderId) {
+        CachedOrder cached = cache.get(orderId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        CompletableFuture<CachedOrder> future = new CompletableFuture<>();
+        CompletableFuture<CachedOrder> existing = inflight.putIfAbsent(orderId, future);
+        if (existing != null) {
+            return Optional.ofNullable(join(existing)); // another request is already loading it
+        }
+
+        try {
+            CachedOrder loaded = orderRepo.findWithItemsById(orderId).map(this::serialize).orElse(null);
+            future.complete(loaded);
+            // Only cache if no invalidation happened while loading
+            if (inflight.remove(orderId, future) && loaded != null) {
+                put(orderId, loaded);
+            }
+            return Optional.ofNullable(loaded);
+        } catch (RuntimeException e) {
+            inflight.remove(orderId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        cache.remove(event.getOrderId());
+        inflight.remove(event.getOrderId());
+    }
+
+    private void put(Long orderId, CachedOrder entry) {
+        if (cache.size() >= maxEntries) {
+            // Crude bound: drop an arbitrary entry, polled orders are re-cached on their next read
+            Iterator<Long> it = cache.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(orderId, entry);
+    }
+
+    private CachedOrder serialize(Order order) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(order);
+            return new CachedOrder(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order " + order.getId(), e);
+        }
+    }
+
+    private CachedOrder join(CompletableFuture<CachedOrder> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Serialized order body and its strong ETag.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class CachedOrder {
+        private final byte[] body;
+        private final String etag;
+    }
+}
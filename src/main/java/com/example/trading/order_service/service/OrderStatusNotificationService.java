@@ -1,23 +1,49 @@
 package com.example.trading.order_service.service;
 
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.OrderStatusDelta;
 import com.example.trading.order_service.dto.OrderStatusUpdate;
 import com.example.trading.order_service.entity.Executions;
 import com.example.trading.order_service.entity.Order;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * Service for sending real-time order status updates to frontend via WebSocket
+ * Service for sending real-time order status updates to frontend via WebSocket.
+ * Per-user pushes use the delta protocol described on {@link OrderStatusDelta}: the last state
+ * sent for each live order is kept here so only changed fields go over the wire.
+ * A stream ends when its order reaches a final status, or once nothing was pushed for
+ * orders.notifications.stream-idle-ttl-ms, so orders that never close here do not pin their last state.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OrderStatusNotificationService {
 
+    // Once an order reaches one of these states no further pushes are expected, so its stream is dropped
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(
+            OrderStatus.FILLED, OrderStatus.CANCELLED, OrderStatus.REJECTED, OrderStatus.EXECUTED, OrderStatus.EXPIRED);
+
     private final SimpMessagingTemplate messagingTemplate;
 
+    @Value("${orders.notifications.stream-idle-ttl-ms:3600000}")
+    private long streamIdleTtlMs;
+
+    // orderId -> last state pushed to the user, with its sequence number
+    private final Map<Long, OrderStream> streams = new ConcurrentHashMap<>();
+
     /**
      * Sends order status update to specific user
      * Frontend should subscribe to /topic/orders/{userId}
@@ -32,13 +58,22 @@ public class OrderStatusNotificationService {
     public void sendOrderUpdate(Long userId, Order order, String message, Executions lastExecution) {
         try {
             OrderStatusUpdate update = buildOrderStatusUpdate(order, message, lastExecution);
+            OrderStream stream = streams.computeIfAbsent(order.getId(), id -> new OrderStream());
 
             // Send to user-specific topic: /topic/orders/{userId}
             String destination = "/topic/orders/" + userId;
-            messagingTemplate.convertAndSend(destination, update);
+            synchronized (stream) {
+                OrderStatusDelta frame = stream.next(update);
+                messagingTemplate.convertAndSend(destination, frame);
+
+                log.info("Sent order status update to user {}: orderId={}, status={}, seq={}, snapshot={}, fields={}",
+                        userId, order.getId(), order.getStatus(), frame.getSequence(), frame.isSnapshot(),
+                        frame.getFields().size());
+            }
 
-            log.info("Sent order status update to user {}: orderId={}, status={}",
-                    userId, order.getId(), order.getStatus());
+            if (FINAL_STATUSES.contains(order.getStatus())) {
+                streams.remove(order.getId(), stream);
+            }
 
         } catch (Exception e) {
             log.error("Failed to send order status update to user {}: orderId={}",
@@ -47,6 +82,38 @@ public class OrderStatusNotificationService {
         }
     }
 
+    /**
+     * Returns a full snapshot for a client that detected a sequence gap.
+     * For a live stream this is the last state pushed, tagged with its sequence number, so later
+     * deltas apply on top of it. Orders without a stream are built from the entity with sequence 0.
+     */
+    public OrderStatusDelta resync(Order order) {
+        OrderStream stream = streams.get(order.getId());
+        if (stream != null) {
+            synchronized (stream) {
+                if (stream.last != null) {
+                    return snapshotFrame(stream.last, stream.sequence);
+                }
+            }
+        }
+        return snapshotFrame(buildOrderStatusUpdate(order, null, null), 0L);
+    }
+
+    /**
+     * Drops streams with no push inside the idle TTL. A later push for the order starts a new
+     * stream with a snapshot frame, which clients apply like a resync.
+     */
+    @Scheduled(fixedDelayString = "${orders.notifications.sweep-interval-ms:60000}")
+    public void evictIdleStreams() {
+        long cutoff = System.currentTimeMillis() - streamIdleTtlMs;
+        int before = streams.size();
+        streams.values().removeIf(stream -> stream.lastPushedAtMillis < cutoff);
+        int evicted = before - streams.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle order status streams", evicted);
+        }
+    }
+
     /**
      * Broadcasts order update to all subscribed clients
      * Use sparingly - prefer user-specific updates
@@ -92,4 +159,85 @@ public class OrderStatusNotificationService {
 
         return builder.build();
     }
+
+    private static OrderStatusDelta snapshotFrame(OrderStatusUpdate update, long sequence) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfPresent(fields, "instrumentSymbol", update.getInstrumentSymbol());
+        putIfPresent(fields, "status", update.getStatus());
+        putIfPresent(fields, "totalQuantity", update.getTotalQuantity());
+        putIfPresent(fields, "filledQuantity", update.getFilledQuantity());
+        putIfPresent(fields, "avgFillPrice", update.getAvgFillPrice());
+        putIfPresent(fields, "notionalValue", update.getNotionalValue());
+        putIfPresent(fields, "updatedAt", update.getUpdatedAt());
+        putEventFields(fields, update);
+        return frame(update, sequence, true, fields);
+    }
+
+    private static OrderStatusDelta deltaFrame(OrderStatusUpdate previous, OrderStatusUpdate update, long sequence) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfChanged(fields, "instrumentSymbol", previous.getInstrumentSymbol(), update.getInstrumentSymbol());
+        putIfChanged(fields, "status", previous.getStatus(), update.getStatus());
+        putIfChanged(fields, "totalQuantity", previous.getTotalQuantity(), update.getTotalQuantity());
+        putIfChanged(fields, "filledQuantity", previous.getFilledQuantity(), update.getFilledQuantity());
+        putIfChanged(fields, "avgFillPrice", previous.getAvgFillPrice(), update.getAvgFillPrice());
+        putIfChanged(fields, "notionalValue", previous.getNotionalValue(), update.getNotionalValue());
+        putIfChanged(fields, "updatedAt", previous.getUpdatedAt(), update.getUpdatedAt());
+        putEventFields(fields, update);
+        return frame(update, sequence, false, fields);
+    }
+
+    // Message and execution details describe the event itself, so they are sent whenever present
+    private static void putEventFields(Map<String, Object> fields, OrderStatusUpdate update) {
+        putIfPresent(fields, "message", update.getMessage());
+        putIfPresent(fields, "lastExecutionPrice", update.getLastExecutionPrice());
+        putIfPresent(fields, "lastExecutionQuantity", update.getLastExecutionQuantity());
+        putIfPresent(fields, "lastExecutionId", update.getLastExecutionId());
+    }
+
+    private static OrderStatusDelta frame(OrderStatusUpdate update, long sequence, boolean snapshot,
+                                          Map<String, Object> fields) {
+        return OrderStatusDelta.builder()
+                .version(OrderStatusDelta.PROTOCOL_VERSION)
+                .orderId(update.getOrderId())
+                .userId(update.getUserId())
+                .sequence(sequence)
+                .snapshot(snapshot)
+                .fields(fields)
+                .build();
+    }
+
+    private static void putIfPresent(Map<String, Object> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+
+    private static void putIfChanged(Map<String, Object> fields, String name, Object before, Object after) {
+        boolean same = (before instanceof BigDecimal b && after instanceof BigDecimal a)
+                ? b.compareTo(a) == 0
+                : Objects.equals(before, after);
+        if (!same) {
+            fields.put(name, after);
+        }
+    }
+
+    /**
+     * Per-order push state. Callers synchronize on the instance so the sequence and the
+     * pushed frames stay in the same order.
+     */
+    private static final class OrderStream {
+        private long sequence;
+        private OrderStatusUpdate last;
+        private volatile long lastPushedAtMillis = System.currentTimeMillis(); // read by the sweep without the lock
+
+        OrderStatusDelta next(OrderStatusUpdate update) {
+            lastPushedAtMillis = System.currentTimeMillis();
+            sequence++;
+            OrderStatusDelta frame = last == null
+                    ? snapshotFrame(update, sequence)
+                    : deltaFrame(last, update, sequence);
+            last = update;
+            return frame;
+        }
+    }
 }
@@ -0,0 +1,247 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.dto.PriceQuote;
+import com.example.trading.order_service.dto.pnl.PnlResult;
+import com.example.trading.order_service.dto.pnl.PnlUpdate;
+import com.example.trading.order_service.dto.pnl.SymbolPnl;
+import com.example.trading.order_service.entity.Order;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes incremental P&L to users subscribed to /topic/pnl/{userId}.
+ * A fill recomputes only the filled instrument for that user; a conflated price update from
+ * MarketPriceCache re-prices the open lots already held in memory for every subscribed user
+ * holding that instrument.
+ * Pushes are rate limited per user: changes arriving inside the interval are coalesced
+ * and sent by the scheduled flush.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PnlStreamService {
+
+    private static final String PNL_TOPIC_PREFIX = "/topic/pnl/";
+
+    private final ProfitAndLossService pnlService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MarketPriceCache priceCache;
+
+    @Value("${pnl.stream.min-interval-ms:250}")
+    private long minIntervalMs;
+
+    // userId -> in-memory P&L for subscribed users only
+    private final Map<Long, UserPnlState> users = new ConcurrentHashMap<>();
+    // instrument -> subscribed users holding it, so a tick only touches affected users
+    private final Map<String, Set<Long>> holders = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> userId)
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerPriceListener() {
+        priceCache.addConflatedListener(this::onMarketPrice);
+    }
+
+    /**
+     * Called after a fill has been applied to the order.
+     */
+    public void onFill(Order order) {
+        UserPnlState state = users.get(order.getUserId());
+        if (state == null) {
+            return; // nobody is watching this user's P&L
+        }
+        try {
+            String instrumentId = order.getInstrumentId();
+            SymbolPnl symbolPnl = pnlService.calculateSymbolPnl(order.getUserId(), instrumentId, null);
+            synchronized (state) {
+                state.bySymbol.put(instrumentId, symbolPnl);
+                holders.computeIfAbsent(instrumentId, s -> ConcurrentHashMap.newKeySet()).add(order.getUserId());
+                queue(order.getUserId(), state, symbolPnl);
+            }
+        } catch (Exception e) {
+            // Don't throw - P&L push failure shouldn't break fill processing
+            log.error("Failed to update streamed P&L for user {} after fill on order {}",
+                    order.getUserId(), order.getId(), e);
+        }
+    }
+
+    /**
+     * Called with the latest price of each symbol that ticked since the previous conflation dispatch.
+     */
+    public void onMarketPrice(PriceQuote quote) {
+        String symbol = quote.getSymbol();
+        Set<Long> userIds = holders.get(symbol);
+        if (userIds == null) {
+            return;
+        }
+        for (Long userId : userIds) {
+            UserPnlState state = users.get(userId);
+            if (state == null) {
+                continue;
+            }
+            synchronized (state) {
+                SymbolPnl current = state.bySymbol.get(symbol);
+                if (current == null) {
+                    continue;
+                }
+                SymbolPnl revalued = pnlService.revalue(current, quote);
+                state.bySymbol.put(symbol, revalued);
+                queue(userId, state, revalued);
+            }
+        }
+    }
+
+    /**
+     * Sends coalesced changes for users whose rate limit interval has elapsed,
+     * and the initial snapshot for new subscribers.
+     */
+    @Scheduled(fixedDelayString = "${pnl.stream.min-interval-ms:250}")
+    public void flushPending() {
+        users.forEach((userId, state) -> {
+            try {
+                if (!state.loaded) {
+                    loadSnapshot(userId, state);
+                    return;
+                }
+                synchronized (state) {
+                    if (!state.pending.isEmpty() && intervalElapsed(state)) {
+                        push(userId, state, false, new ArrayList<>(state.pending.values()));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush streamed P&L for user {}", userId, e);
+            }
+        });
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long userId = parseUserId(accessor.getDestination());
+        if (userId == null || accessor.getSessionId() == null) {
+            return;
+        }
+        sessions.computeIfAbsent(accessor.getSessionId(), s -> new ConcurrentHashMap<>())
+                .put(String.valueOf(accessor.getSubscriptionId()), userId);
+        users.compute(userId, (id, state) -> {
+            UserPnlState s = state != null ? state : new UserPnlState();
+            s.subscribers++;
+            return s;
+        });
+        log.debug("P&L stream subscribed for user {} (session {})", userId, accessor.getSessionId());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null) {
+            Long userId = subscriptions.remove(String.valueOf(accessor.getSubscriptionId()));
+            if (userId != null) {
+                release(userId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void loadSnapshot(Long userId, UserPnlState state) {
+        PnlResult result = pnlService.calculatePnlForUser(userId, Map.of());
+        synchronized (state) {
+            state.bySymbol.clear();
+            state.bySymbol.putAll(result.getBySymbol());
+            state.bySymbol.keySet().forEach(symbol ->
+                    holders.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(userId));
+            state.loaded = true;
+            push(userId, state, true, new ArrayList<>(state.bySymbol.values()));
+        }
+    }
+
+    // Caller holds the state lock
+    private void queue(Long userId, UserPnlState state, SymbolPnl symbolPnl) {
+        state.pending.put(symbolPnl.getSymbol(), symbolPnl);
+        if (state.loaded && intervalElapsed(state)) {
+            push(userId, state, false, new ArrayList<>(state.pending.values()));
+        }
+    }
+
+    // Caller holds the state lock
+    private void push(Long userId, UserPnlState state, boolean snapshot, List<SymbolPnl> symbols) {
+        PnlUpdate update = PnlUpdate.builder()
+                .userId(userId)
+                .snapshot(snapshot)
+                .symbols(symbols)
+                .asOf(OffsetDateTime.now())
+                .build();
+        messagingTemplate.convertAndSend(PNL_TOPIC_PREFIX + userId, update);
+        state.pending.clear();
+        state.lastPushNanos = System.nanoTime();
+        log.debug("Pushed P&L update to user {}: {} symbols, snapshot={}", userId, symbols.size(), snapshot);
+    }
+
+    private boolean intervalElapsed(UserPnlState state) {
+        return System.nanoTime() - state.lastPushNanos >= TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+    }
+
+    private void release(Long userId) {
+        users.computeIfPresent(userId, (id, state) -> {
+            state.subscribers--;
+            if (state.subscribers > 0) {
+                return state;
+            }
+            state.bySymbol.keySet().forEach(symbol -> {
+                Set<Long> userIds = holders.get(symbol);
+                if (userIds != null) {
+                    userIds.remove(userId);
+                }
+            });
+            return null;
+        });
+    }
+
+    private Long parseUserId(String destination) {
+        if (destination == null || !destination.startsWith(PNL_TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(destination.substring(PNL_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring P&L subscription with invalid destination {}", destination);
+            return null;
+        }
+    }
+
+    private static final class UserPnlState {
+        private final Map<String, SymbolPnl> bySymbol = new HashMap<>();
+        private final Map<String, SymbolPnl> pending = new LinkedHashMap<>();
+        private long lastPushNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        private volatile boolean loaded;
+        private int subscribers;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.config.RiskLimitProperties;
+import com.example.trading.order_service.config.RiskLimitProperties.Limits;
+import com.example.trading.order_service.dto.CreateMarketOrderRequest;
+import com.example.trading.order_service.dto.OrderPlacedEvent;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.exception.RiskLimitExceededException;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.repository.executionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-trade risk checks on the intake path.
+ * Orders are checked against max order quantity and notional, max open orders, max open notional
+ * (from the {@link ExposureBook}) and max daily traded notional before anything is saved or published,
+ * using counters held in memory per user and per (user, instrument). The counters are rebuilt from
+ * the database on startup and then kept current from {@link OrderStatusChangedEvent}s after commit:
+ * a new order opens, a terminal status closes, and fills add to the traded notional of the trading day.
+ *
+ * The check and the counter update are not atomic, so concurrent orders of one user can overshoot
+ * the open order limit by the number of requests in flight.
+ */
+@Service
+@Slf4j
+public class PreTradeRiskEngine {
+
+    private static final Set<OrderStatus> OPEN_STATUSES = EnumSet.copyOf(
+            Arrays.stream(OrderStatus.values()).filter(s -> !s.isTerminal()).toList());
+
+    private final RiskLimitProperties properties;
+    private final MarketPriceCache priceCache;
+    private final OrderRepository orderRepo;
+    private final executionRepository executionRepo;
+    private final ExposureBook exposureBook;
+    private final MeterRegistry meterRegistry;
+    private final ZoneId tradingDayZone;
+
+    // userId -> defaults merged with the user's overrides
+    private volatile Map<Long, Limits> userLimits = Map.of();
+    private final Map<Long, UserRisk> users = new ConcurrentHashMap<>();
+
+    public PreTradeRiskEngine(RiskLimitProperties properties,
+                              MarketPriceCache priceCache,
+                              OrderRepository orderRepo,
+                              executionRepository executionRepo,
+                              ExposureBook exposureBook,
+                              MeterRegistry meterRegistry,
+                              @Value("${orders.expiry.zone:America/New_York}") String tradingDayZone) {
+        this.properties = properties;
+        this.priceCache = priceCache;
+        this.orderRepo = orderRepo;
+        this.executionRepo = executionRepo;
+        this.exposureBook = exposureBook;
+        this.meterRegistry = meterRegistry;
+        this.tradingDayZone = ZoneId.of(tradingDayZone);
+    }
+
+    @PostConstruct
+    void resolveLimits() {
+        Map<Long, Limits> resolved = new HashMap<>();
+        properties.getUsers().forEach((userId, limits) -> resolved.put(userId, limits.orElse(properties.getDefaults())));
+        userLimits = resolved;
+    }
+
+    /**
+     * Rebuilds open order counts and today's traded notional.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounters() {
+        LocalDate today = today();
+        orderRepo.countByUserAndSymbolInStatus(OPEN_STATUSES).forEach(row -> {
+            UserRisk risk = users.computeIfAbsent(row.getUserId(), id -> new UserRisk(today));
+            synchronized (risk) {
+                int count = (int) row.getOpenOrders();
+                risk.total.openOrders += count;
+                risk.symbol(row.getInstrumentSymbol()).openOrders += count;
+            }
+        });
+        executionRepo.sumNotionalByUserAndSymbolSince(today.atStartOfDay(tradingDayZone).toOffsetDateTime())
+                .forEach(row -> {
+                    UserRisk risk = users.computeIfAbsent(row.getUserId(), id -> new UserRisk(today));
+                    synchronized (risk) {
+                        BigDecimal notional = row.getNotional() != null ? row.getNotional() : BigDecimal.ZERO;
+                        risk.total.dailyNotional = risk.total.dailyNotional.add(notional);
+                        Counters symbol = risk.symbol(row.getInstrumentSymbol());
+                        symbol.dailyNotional = symbol.dailyNotional.add(notional);
+                    }
+                });
+        log.info("🛡️ [RISK] Risk counters loaded for {} users", users.size());
+    }
+
+    /**
+     * Throws {@link RiskLimitExceededException} if the order breaches one of the user's or instrument's limits.
+     */
+    public void check(CreateMarketOrderRequest req) {
+        String breach = findBreach(req, 0);
+        if (breach != null) {
+            throw new RiskLimitExceededException(breach);
+        }
+    }
+
+    /**
+     * Describes the first limit the order breaches, or returns null if it passes.
+     *
+     * @param pendingOrders orders of the same user accepted earlier in the request but not yet counted
+     */
+    public String findBreach(CreateMarketOrderRequest req, int pendingOrders) {
+        if (!properties.isEnabled() || req.getQuantity() == null) {
+            return null;
+        }
+        Long userId = req.getUserId();
+        String symbol = req.getInstrumentSymbol();
+        Limits user = userLimits.getOrDefault(userId, properties.getDefaults());
+        Limits instrument = symbol != null ? properties.getInstruments().get(symbol) : null;
+
+        BigDecimal quantity = req.getQuantity();
+        // MARKET orders are valued at the last fresh price; without one the notional limits are skipped
+        BigDecimal price = req.getPrice() != null ? req.getPrice()
+                : symbol != null ? priceCache.getFreshPrice(symbol).orElse(null) : null;
+        BigDecimal notional = price != null ? price.multiply(quantity) : null;
+
+        String breach = checkOrder(user, "user " + userId, quantity, notional);
+        if (breach == null && instrument != null) {
+            breach = checkOrder(instrument, symbol, quantity, notional);
+        }
+        if (breach == null) {
+            breach = checkExposure(user, "user " + userId, exposureBook.openNotional(userId), notional);
+        }
+        if (breach == null && instrument != null) {
+            breach = checkExposure(instrument, symbol, exposureBook.openNotional(userId, symbol), notional);
+        }
+        if (breach == null) {
+            UserRisk risk = users.get(userId);
+            if (risk != null || pendingOrders > 0) {
+                breach = checkCounters(risk, user, instrument, userId, symbol, notional, pendingOrders);
+            }
+        }
+        if (breach != null) {
+            log.warn("🛡️ [RISK] Order rejected - User: {}, Symbol: {}, Qty: {}, Reason: {}",
+                    userId, symbol, quantity, breach);
+        }
+        return breach;
+    }
+
+    /**
+     * Describes the first limit an amend to the given quantity and limit price breaches, or returns
+     * null if it passes. The order is already counted as open, so only its change in open notional
+     * is added to the exposure, and the open order limits do not apply.
+     */
+    public String findAmendBreach(Order order, BigDecimal newQuantity, BigDecimal newLimitPrice) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Long userId = order.getUserId();
+        String symbol = order.getInstrumentSymbol();
+        Limits user = userLimits.getOrDefault(userId, properties.getDefaults());
+        Limits instrument = symbol != null ? properties.getInstruments().get(symbol) : null;
+
+        BigDecimal price = newLimitPrice != null ? newLimitPrice
+                : symbol != null ? priceCache.getFreshPrice(symbol).orElse(null) : null;
+        BigDecimal notional = price != null ? price.multiply(newQuantity) : null;
+        BigDecimal filled = order.getFilledQuantity() != null ? order.getFilledQuantity() : BigDecimal.ZERO;
+        BigDecimal remainingNotional = price != null ? price.multiply(newQuantity.subtract(filled).max(BigDecimal.ZERO)) : null;
+        BigDecimal current = exposureBook.openNotionalOf(order.getId());
+
+        String breach = checkOrder(user, "user " + userId, newQuantity, notional);
+        if (breach == null && instrument != null) {
+            breach = checkOrder(instrument, symbol, newQuantity, notional);
+        }
+        if (breach == null) {
+            breach = checkExposure(user, "user " + userId,
+                    exposureBook.openNotional(userId).subtract(current), remainingNotional);
+        }
+        if (breach == null && instrument != null) {
+            breach = checkExposure(instrument, symbol,
+                    exposureBook.openNotional(userId, symbol).subtract(current), remainingNotional);
+        }
+        if (breach == null) {
+            BigDecimal userTraded = BigDecimal.ZERO;
+            BigDecimal symbolTraded = BigDecimal.ZERO;
+            UserRisk risk = users.get(userId);
+            if (risk != null) {
+                synchronized (risk) {
+                    risk.roll(today());
+                    Counters counters = symbol != null ? risk.bySymbol.get(symbol) : null;
+                    userTraded = risk.total.dailyNotional;
+                    symbolTraded = counters != null ? counters.dailyNotional : BigDecimal.ZERO;
+                }
+            }
+            breach = checkDaily(user, "user " + userId, userTraded, remainingNotional);
+            if (breach == null && instrument != null) {
+                breach = checkDaily(instrument, symbol, symbolTraded, remainingNotional);
+            }
+        }
+        if (breach != null) {
+            log.warn("🛡️ [RISK] Amend rejected - OrderID: {}, User: {}, Symbol: {}, Qty: {}, Reason: {}",
+                    order.getId(), userId, symbol, newQuantity, breach);
+        }
+        return breach;
+    }
+
+    /**
+     * Whether an order on the legacy order-topic flow needs manual approval.
+     */
+    public boolean isApprovalRequired(OrderPlacedEvent event) {
+        RiskLimitProperties.Approval approval = properties.getApproval();
+        if (event.getQuantity() != null && event.getQuantity().compareTo(approval.getLargeQuantity()) > 0) {
+            log.info("Order {} requires approval due to large quantity: {}", event.getOrderId(), event.getQuantity());
+            return true;
+        }
+        if (event.getType() != null && approval.getHighRiskTypes().contains(event.getType().toUpperCase())) {
+            log.info("Order {} requires approval due to type: {}", event.getOrderId(), event.getType());
+            return true;
+        }
+        if (event.getPrice() != null && event.getPrice().compareTo(approval.getMaxPrice()) > 0) {
+            log.info("Order {} requires approval due to high price: {}", event.getOrderId(), event.getPrice());
+            return true;
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        int openDelta = event.isCreated() && !event.getStatus().isTerminal() ? 1 : event.isClosed() ? -1 : 0;
+        BigDecimal traded = event.getFillNotional();
+        if (openDelta == 0 && traded == null) {
+            return;
+        }
+        UserRisk risk = users.computeIfAbsent(event.getUserId(), id -> new UserRisk(today()));
+        synchronized (risk) {
+            risk.roll(today());
+            Counters symbol = risk.symbol(event.getInstrumentSymbol());
+            risk.total.openOrders = Math.max(0, risk.total.openOrders + openDelta);
+            symbol.openOrders = Math.max(0, symbol.openOrders + openDelta);
+            if (traded != null) {
+                risk.total.dailyNotional = risk.total.dailyNotional.add(traded);
+                symbol.dailyNotional = symbol.dailyNotional.add(traded);
+            }
+        }
+    }
+
+    private String checkOrder(Limits limits, String scope, BigDecimal quantity, BigDecimal notional) {
+        if (limits.getMaxOrderQuantity() != null && quantity.compareTo(limits.getMaxOrderQuantity()) > 0) {
+            return breach("max-order-quantity", String.format("Quantity %s exceeds max order quantity %s for %s",
+                    quantity.toPlainString(), limits.getMaxOrderQuantity().toPlainString(), scope));
+        }
+        if (notional != null && limits.getMaxOrderNotional() != null
+                && notional.compareTo(limits.getMaxOrderNotional()) > 0) {
+            return breach("max-order-notional", String.format("Notional %s exceeds max order notional %s for %s",
+                    notional.toPlainString(), limits.getMaxOrderNotional().toPlainString(), scope));
+        }
+        return null;
+    }
+
+    private String checkCounters(UserRisk risk, Limits user, Limits instrument, Long userId, String symbol,
+                                 BigDecimal notional, int pendingOrders) {
+        int userOpen = pendingOrders;
+        int symbolOpen = 0;
+        BigDecimal userTraded = BigDecimal.ZERO;
+        BigDecimal symbolTraded = BigDecimal.ZERO;
+        if (risk != null) {
+            synchronized (risk) {
+                risk.roll(today());
+                Counters counters = symbol != null ? risk.bySymbol.get(symbol) : null;
+                userOpen += risk.total.openOrders;
+                userTraded = risk.total.dailyNotional;
+                if (counters != null) {
+                    symbolOpen = counters.openOrders;
+                    symbolTraded = counters.dailyNotional;
+                }
+            }
+        }
+
+        String breach = checkOpen(user, "user " + userId, userOpen);
+        if (breach == null) {
+            breach = checkDaily(user, "user " + userId, userTraded, notional);
+        }
+        if (breach == null && instrument != null) {
+            breach = checkOpen(instrument, symbol, symbolOpen);
+            if (breach == null) {
+                breach = checkDaily(instrument, symbol, symbolTraded, notional);
+            }
+        }
+        return breach;
+    }
+
+    private String checkExposure(Limits limits, String scope, BigDecimal open, BigDecimal notional) {
+        if (limits.getMaxOpenNotional() == null || notional == null) {
+            return null;
+        }
+        BigDecimal projected = open.add(notional);
+        if (projected.compareTo(limits.getMaxOpenNotional()) > 0) {
+            return breach("max-open-notional", String.format("Open notional would reach %s, limit is %s for %s",
+                    projected.toPlainString(), limits.getMaxOpenNotional().toPlainString(), scope));
+        }
+        return null;
+    }
+
+    private String checkOpen(Limits limits, String scope, int open) {
+        if (limits.getMaxOpenOrders() != null && open >= limits.getMaxOpenOrders()) {
+            return breach("max-open-orders", String.format("Max open orders %d reached for %s",
+                    limits.getMaxOpenOrders(), scope));
+        }
+        return null;
+    }
+
+    private String checkDaily(Limits limits, String scope, BigDecimal traded, BigDecimal notional) {
+        if (limits.getMaxDailyNotional() == null) {
+            return null;
+        }
+        BigDecimal projected = notional != null ? traded.add(notional) : traded;
+        if (projected.compareTo(limits.getMaxDailyNotional()) > 0) {
+            return breach("max-daily-notional", String.format("Daily traded notional would reach %s, limit is %s for %s",
+                    projected.toPlainString(), limits.getMaxDailyNotional().toPlainString(), scope));
+        }
+        return null;
+    }
+
+    private String breach(String limit, String message) {
+        meterRegistry.counter("orders.risk.rejected", "limit", limit).increment();
+        return message;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(tradingDayZone);
+    }
+
+    // Guarded by the UserRisk monitor
+    private static final class Counters {
+        private int openOrders;
+        private BigDecimal dailyNotional = BigDecimal.ZERO;
+    }
+
+    private static final class UserRisk {
+        private final Counters total = new Counters();
+        private final Map<String, Counters> bySymbol = new HashMap<>();
+        private LocalDate day;
+
+        private UserRisk(LocalDate day) {
+            this.day = day;
+        }
+
+        private Counters symbol(String symbol) {
+            return bySymbol.computeIfAbsent(String.valueOf(symbol), s -> new Counters());
+        }
+
+        // Traded notional restarts at zero each trading day
+        private void roll(LocalDate today) {
+            if (!today.equals(day)) {
+                day = today;
+                total.dailyNotional = BigDecimal.ZERO;
+                bySymbol.values().forEach(c -> c.dailyNotional = BigDecimal.ZERO);
+            }
+        }
+    }
+}
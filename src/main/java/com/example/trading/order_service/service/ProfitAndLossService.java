@@ -1,11 +1,16 @@
 package com.example.trading.order_service.service;
 
+import com.example.trading.order_service.Enums.LotReliefMethod;
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.config.LotReliefProperties;
+import com.example.trading.order_service.dto.PriceQuote;
 import com.example.trading.order_service.dto.pnl.Lot;
 import com.example.trading.order_service.dto.pnl.PnlResult;
 import com.example.trading.order_service.dto.pnl.SymbolPnl;
 import com.example.trading.order_service.entity.Executions;
 import com.example.trading.order_service.entity.Order;
 import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.utility.LotReliefStrategy;
 import com.example.trading.order_service.utility.SellMatcher;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -20,19 +25,26 @@ import java.util.*;
 /**
  * Service class responsible for calculating Profit and Loss (PnL) for users.
  * Processes orders and executions to compute realized and unrealized PnL per instrument symbol
- * using FIFO lot matching logic implemented by SellMatcher.
+ * using the lot matching logic implemented by SellMatcher, relieving lots by the user's
+ * lot relief method (FIFO unless configured under pnl.lot-relief).
  */
 @Service
 @RequiredArgsConstructor
 public class ProfitAndLossService {
     private static final Logger logger = LoggerFactory.getLogger(ProfitAndLossService.class);
     private final OrderRepository orderRepository;
+    private final MarketPriceCache priceCache;
+    private final LotReliefProperties lotRelief;
     private final SellMatcher sellMatcher = new SellMatcher();
 
     private static final int SCALE = 8;
+    private static final Comparator<Executions> EXECUTION_ORDER = Comparator
+            .comparing(Executions::getExecutedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Executions::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
     private static final RoundingMode ROUND = RoundingMode.HALF_UP;
 
     //Calculates the realized and unrealized PnL for the given user based on their orders and current market prices.
+    //Symbols missing from marketPrices are priced from the local price cache.
     @Transactional
     public PnlResult calculatePnlForUser(Long userId, Map<String, BigDecimal> marketPrices) {
         List<Order> allOrders = orderRepository.findByUserIdOrderByPlacedAtDesc(userId);
@@ -45,20 +57,91 @@ public class ProfitAndLossService {
         logger.debug("Processing P&L for user {}: {} total orders, {} with executions",
                 userId, allOrders.size(), ordersWithExecutions.size());
 
-        Map<String, Deque<Lot>> buyQueues = new HashMap<>();
-        Map<String, Deque<Lot>> sellQueues = new HashMap<>(); // kept for interface compatibility, not used
+        Map<String, LotReliefStrategy> buyQueues = new HashMap<>();
+        Map<String, LotReliefStrategy> sellQueues = new HashMap<>(); // open short lots
         Map<String, BigDecimal> realizedPnlMap = new HashMap<>();
 
-        processOrders(ordersWithExecutions, buyQueues, sellQueues, realizedPnlMap);
+        processOrders(ordersWithExecutions, lotRelief.methodFor(userId), buyQueues, sellQueues, realizedPnlMap);
 
-        return buildPnlResult(buyQueues, realizedPnlMap, marketPrices);
+        return buildPnlResult(buyQueues, sellQueues, realizedPnlMap, marketPrices);
+    }
+
+    //Calculates the PnL of a single instrument for the given user, used when one fill changes one symbol.
+    //A null marketPrice means the instrument is priced from the local price cache.
+    @Transactional
+    public SymbolPnl calculateSymbolPnl(Long userId, String instrumentId, BigDecimal marketPrice) {
+        List<Order> orders = orderRepository.findByUserIdAndInstrumentIdOrderByPlacedAtDesc(userId, instrumentId);
+
+        Map<String, LotReliefStrategy> buyQueues = new HashMap<>();
+        Map<String, LotReliefStrategy> sellQueues = new HashMap<>();
+        Map<String, BigDecimal> realizedPnlMap = new HashMap<>();
+
+        processOrders(orders, lotRelief.methodFor(userId), buyQueues, sellQueues, realizedPnlMap);
+
+        Map<String, BigDecimal> prices = marketPrice != null ? Map.of(instrumentId, marketPrice) : Map.of();
+        SymbolPnl symbolPnl = buildPnlResult(buyQueues, sellQueues, realizedPnlMap, prices).getBySymbol().get(instrumentId);
+        if (symbolPnl == null) {
+            PriceQuote quote = cachedQuote(instrumentId, prices);
+            BigDecimal price = marketPrice(instrumentId, prices, quote);
+            symbolPnl = SymbolPnl.builder()
+                    .symbol(instrumentId)
+                    .marketPrice(price)
+                    .priced(price != null)
+                    .priceTimestamp(quote != null ? quote.getTimestamp() : null)
+                    .priceStale(quote != null ? priceCache.isStale(quote) : null)
+                    .positionQty(BigDecimal.ZERO)
+                    .avgCost(BigDecimal.ZERO)
+                    .realizedPnl(BigDecimal.ZERO)
+                    .unrealizedPnl(BigDecimal.ZERO)
+                    .openLots(new ArrayList<>())
+                    .openShortLots(new ArrayList<>())
+                    .build();
+        }
+        return symbolPnl;
+    }
+
+    /**
+     * Calculates the PnL of a user from executions that were already loaded, for batch runs that read
+     * the executions of many users in one pass. Each execution must have its order loaded.
+     */
+    public PnlResult calculatePnl(Long userId, List<Executions> executions, Map<String, BigDecimal> marketPrices) {
+        List<Executions> valid = new ArrayList<>(executions.size());
+        for (Executions ex : executions) {
+            if (ex.getOrder() != null && ex.getOrder().getOrderSide() != null && ex.getInstrumentId() != null
+                    && ex.getQuantity() != null && ex.getQuantity().signum() != 0) {
+                valid.add(ex);
+            }
+        }
+
+        Map<String, LotReliefStrategy> buyQueues = new HashMap<>();
+        Map<String, LotReliefStrategy> sellQueues = new HashMap<>();
+        Map<String, BigDecimal> realizedPnlMap = new HashMap<>();
+
+        replay(valid, lotRelief.methodFor(userId), buyQueues, sellQueues, realizedPnlMap);
+
+        return buildPnlResult(buyQueues, sellQueues, realizedPnlMap, marketPrices);
+    }
+
+    /**
+     * Re-prices the open lots of an already calculated symbol at a new market price.
+     * Realized PnL and lots are unchanged, so no orders need to be reloaded.
+     */
+    public SymbolPnl revalue(SymbolPnl symbolPnl, PriceQuote quote) {
+        return symbolPnl.toBuilder()
+                .marketPrice(quote.getPrice())
+                .priceTimestamp(quote.getTimestamp())
+                .priceStale(priceCache.isStale(quote))
+                .unrealizedPnl(unrealizedPnl(symbolPnl.getOpenLots(), symbolPnl.getOpenShortLots(), quote.getPrice()))
+                .build();
     }
 
     private void processOrders(List<Order> orders,
-                               Map<String, Deque<Lot>> buyQueues,
-                               Map<String, Deque<Lot>> sellQueues,
+                               LotReliefMethod method,
+                               Map<String, LotReliefStrategy> buyQueues,
+                               Map<String, LotReliefStrategy> sellQueues,
                                Map<String, BigDecimal> realized) {
 
+        List<Executions> executions = new ArrayList<>();
         for (Order order : orders) {
             // Skip orders without executions or invalid order side
             if (order.getItems() == null || order.getItems().isEmpty() || order.getOrderSide() == null) {
@@ -75,35 +158,41 @@ public class ProfitAndLossService {
                 if (ex.getQuantity().compareTo(BigDecimal.ZERO) == 0) {
                     continue;
                 }
-
-                if ("BUY".equalsIgnoreCase(order.getOrderSide().name())) {
-                    processBuy(order, ex, buyQueues);
-                } else if ("SELL".equalsIgnoreCase(order.getOrderSide().name())) {
-                    try {
-                        BigDecimal realizedForThisExec = sellMatcher.processSell(order, ex, buyQueues, sellQueues);
-                        realized.merge(ex.getInstrumentId(), realizedForThisExec, BigDecimal::add);
-                    } catch (IllegalStateException e) {
-                        // Only log at debug level to avoid spam - this is expected for short sells
-                        logger.debug("Skipping sell for instrument {} without prior buys: {}", ex.getInstrumentId(), e.getMessage());
-                    }
-                }
+                executions.add(ex);
             }
         }
-    }
 
-    private void processBuy(Order order, Executions ex, Map<String, Deque<Lot>> buyQueues) {
-        BigDecimal qty = safe(ex.getQuantity());
-        if (qty.compareTo(BigDecimal.ZERO) == 0) return;
+        replay(executions, method, buyQueues, sellQueues, realized);
+    }
 
-        Lot lot = new Lot(buildLotId(order, ex), qty, safe(ex.getExecutedPrice()), safe(ex.getFees()));
-        buyQueues.computeIfAbsent(ex.getInstrumentId(), s -> new ArrayDeque<>()).addLast(lot);
+    // Lots are opened and relieved in the order the fills happened
+    private void replay(List<Executions> executions,
+                        LotReliefMethod method,
+                        Map<String, LotReliefStrategy> buyQueues,
+                        Map<String, LotReliefStrategy> sellQueues,
+                        Map<String, BigDecimal> realized) {
+        executions.sort(EXECUTION_ORDER);
+        for (Executions ex : executions) {
+            Order order = ex.getOrder();
+            BigDecimal realizedForThisExec;
+            if (order.getOrderSide() == OrderSide.BUY) {
+                // Covers open shorts first, the rest opens a buy lot
+                realizedForThisExec = sellMatcher.processBuy(order, ex, buyQueues, sellQueues,
+                        () -> LotReliefStrategy.of(method));
+            } else {
+                // Relieves buy lots first, the rest opens a short lot
+                realizedForThisExec = sellMatcher.processSell(order, ex, buyQueues, sellQueues);
+            }
+            realized.merge(ex.getInstrumentId(), realizedForThisExec, BigDecimal::add);
+        }
     }
 
     /**
      * Builds a comprehensive PnlResult with detailed per-symbol PnL including positions, avg cost,
      * realized, unrealized, and market prices along with overall totals.
      */
-    private PnlResult buildPnlResult(Map<String, Deque<Lot>> buyQueues,
+    private PnlResult buildPnlResult(Map<String, LotReliefStrategy> buyQueues,
+                                     Map<String, LotReliefStrategy> sellQueues,
                                      Map<String, BigDecimal> realizedPnlMap,
                                      Map<String, BigDecimal> marketPrices) {
 
@@ -114,33 +203,41 @@ public class ProfitAndLossService {
         // Set of all symbols encountered
         Set<String> allSymbols = new HashSet<>();
         allSymbols.addAll(buyQueues.keySet());
+        allSymbols.addAll(sellQueues.keySet());
         allSymbols.addAll(realizedPnlMap.keySet());
 
         for (String symbol : allSymbols) {
-            Deque<Lot> lots = buyQueues.getOrDefault(symbol, new ArrayDeque<>());
-            BigDecimal positionQty = BigDecimal.ZERO;
+            LotReliefStrategy queue = buyQueues.get(symbol);
+            LotReliefStrategy shortQueue = sellQueues.get(symbol);
+            Collection<Lot> lots = queue != null ? queue.openLots() : List.of();
+            Collection<Lot> shortLots = shortQueue != null ? shortQueue.openLots() : List.of();
+            BigDecimal longQty = BigDecimal.ZERO;
+            BigDecimal shortQty = BigDecimal.ZERO;
             BigDecimal costSum = BigDecimal.ZERO;
 
-            // Calculate position quantity and cost based on open lots
+            // Calculate position quantity and cost based on open lots; a symbol is either long or short
             for (Lot lot : lots) {
-                positionQty = positionQty.add(lot.getQty());
+                longQty = longQty.add(lot.getQty());
                 costSum = costSum.add(lot.getPrice().multiply(lot.getQty()));
             }
+            for (Lot lot : shortLots) {
+                shortQty = shortQty.add(lot.getQty());
+                costSum = costSum.add(lot.getPrice().multiply(lot.getQty()));
+            }
+            BigDecimal positionQty = longQty.subtract(shortQty);
+            BigDecimal openQty = longQty.add(shortQty);
 
-            BigDecimal avgCost = positionQty.compareTo(BigDecimal.ZERO) > 0
-                    ? costSum.divide(positionQty, SCALE, ROUND)
+            BigDecimal avgCost = openQty.compareTo(BigDecimal.ZERO) > 0
+                    ? costSum.divide(openQty, SCALE, ROUND)
                     : BigDecimal.ZERO;
 
-            BigDecimal marketPrice = marketPrices.getOrDefault(symbol, BigDecimal.ZERO);
+            PriceQuote quote = cachedQuote(symbol, marketPrices);
+            BigDecimal marketPrice = marketPrice(symbol, marketPrices, quote);
 
-            BigDecimal unrealizedPnl = BigDecimal.ZERO;
-            for (Lot lot : lots) {
-                BigDecimal pnl = marketPrice.subtract(lot.getPrice())
-                        .multiply(lot.getQty())
-                        .setScale(SCALE, ROUND);
-                unrealizedPnl = unrealizedPnl.add(pnl);
-            }
-            unrealizedPnl = unrealizedPnl.setScale(SCALE, ROUND);
+            // Without a price the open lots cannot be marked, so they add nothing rather than a loss or gain against zero
+            BigDecimal unrealizedPnl = marketPrice != null
+                    ? unrealizedPnl(lots, shortLots, marketPrice)
+                    : BigDecimal.ZERO.setScale(SCALE, ROUND);
 
             BigDecimal realizedPnl = realizedPnlMap.getOrDefault(symbol, BigDecimal.ZERO);
 
@@ -149,9 +246,13 @@ public class ProfitAndLossService {
                     .positionQty(positionQty)
                     .avgCost(avgCost)
                     .marketPrice(marketPrice)
+                    .priced(marketPrice != null)
+                    .priceTimestamp(quote != null ? quote.getTimestamp() : null)
+                    .priceStale(quote != null ? priceCache.isStale(quote) : null)
                     .realizedPnl(realizedPnl)
                     .unrealizedPnl(unrealizedPnl)
                     .openLots(new ArrayList<>(lots))
+                    .openShortLots(new ArrayList<>(shortLots))
                     .build();
 
             bySymbol.put(symbol, symbolPnl);
@@ -165,13 +266,36 @@ public class ProfitAndLossService {
         return new PnlResult(bySymbol, totalRealized, totalUnrealized, totalNet);
     }
 
-    private String buildLotId(Order order, Executions ex) {
-        String exId = (ex.getExecutionId() != null ? ex.getExecutionId()
-                : (ex.getId() != null ? ex.getId().toString() : "x"));
-        return (order.getId() != null ? order.getId().toString() : "o") + "-" + exId;
+    // Caller-supplied prices win; the cache is only consulted for symbols missing from the request
+    private PriceQuote cachedQuote(String symbol, Map<String, BigDecimal> marketPrices) {
+        return marketPrices.containsKey(symbol) ? null : priceCache.getQuote(symbol).orElse(null);
+    }
+
+    // null when neither the request nor the price cache has a price for the symbol
+    private BigDecimal marketPrice(String symbol, Map<String, BigDecimal> marketPrices, PriceQuote quote) {
+        if (quote != null) {
+            return quote.getPrice();
+        }
+        return marketPrices.get(symbol);
     }
 
-    private BigDecimal safe(BigDecimal val) {
-        return val == null ? BigDecimal.ZERO : val;
+    // Long lots gain as the price rises above their cost, short lots as it falls below their sale price
+    private BigDecimal unrealizedPnl(Collection<Lot> lots, Collection<Lot> shortLots, BigDecimal marketPrice) {
+        BigDecimal unrealizedPnl = BigDecimal.ZERO;
+        for (Lot lot : lots) {
+            BigDecimal pnl = marketPrice.subtract(lot.getPrice())
+                    .multiply(lot.getQty())
+                    .setScale(SCALE, ROUND);
+            unrealizedPnl = unrealizedPnl.add(pnl);
+        }
+        if (shortLots != null) {
+            for (Lot lot : shortLots) {
+                BigDecimal pnl = lot.getPrice().subtract(marketPrice)
+                        .multiply(lot.getQty())
+                        .setScale(SCALE, ROUND);
+                unrealizedPnl = unrealizedPnl.add(pnl);
+            }
+        }
+        return unrealizedPnl.setScale(SCALE, ROUND);
     }
 }
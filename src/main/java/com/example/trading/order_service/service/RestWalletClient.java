@@ -0,0 +1,39 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.entity.Wallet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Wallet service client over HTTP. Enable with wallet.client=rest and wallet.service.url
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "wallet.client", havingValue = "rest")
+public class RestWalletClient implements WalletClient {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+
+    public RestWalletClient(RestTemplate restTemplate, @Value("${wallet.service.url}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public Wallet getWallet(Long accountId) {
+        return restTemplate.getForObject(baseUrl + "/api/wallets/{accountId}", Wallet.class, accountId);
+    }
+
+    @Override
+    public void settle(Long accountId, Long orderId, String executionId, BigDecimal amount) {
+        restTemplate.postForLocation(baseUrl + "/api/wallets/{accountId}/settlements",
+                Map.of("orderId", orderId, "executionId", executionId, "amount", amount), accountId);
+    }
+}
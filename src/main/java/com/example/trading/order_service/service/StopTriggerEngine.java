@@ -0,0 +1,262 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderLane;
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.dto.ExchangeOrderRequest;
+import com.example.trading.order_service.dto.OrderStatusChangedEvent;
+import com.example.trading.order_service.dto.PriceQuote;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.kafka.OrderEventsProducer;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.utility.StopTriggerBook;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds approved STOP_MARKET, STOP_LIMIT and TRAILING_STOP orders in the service until the market
+ * reaches them, instead of forwarding them to the exchange on approval.
+ * Every tick from MarketPriceCache is applied to the instrument's {@link StopTriggerBook}; triggered
+ * orders are sent to orders.exchange.v1 on the HIGH lane as MARKET orders, or LIMIT orders for STOP_LIMIT.
+ *
+ * Armed orders stay APPROVED and are re-armed from the database on startup. Trailing stops then
+ * trail from the first price seen after the restart. A triggered order is moved to PENDING with a
+ * conditional update before it is sent, so it is neither re-armed nor sent twice after a restart.
+ */
+@Service
+@Slf4j
+public class StopTriggerEngine {
+
+    static final Set<OrderType> STOP_TYPES = EnumSet.of(OrderType.STOP_MARKET, OrderType.STOP_LIMIT, OrderType.TRAILING_STOP);
+
+    private final OrderRepository orderRepo;
+    private final OrderEventsProducer producer;
+    private final OrderLaneRouter laneRouter;
+    private final MarketPriceCache priceCache;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate triggerTransaction;
+
+    private final Map<String, StopTriggerBook> books = new ConcurrentHashMap<>();
+    // orderId -> exchange request sent when the stop triggers
+    private final Map<Long, ExchangeOrderRequest> armed = new ConcurrentHashMap<>();
+
+    public StopTriggerEngine(OrderRepository orderRepo, OrderEventsProducer producer, OrderLaneRouter laneRouter,
+                             MarketPriceCache priceCache, MeterRegistry meterRegistry,
+                             ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.orderRepo = orderRepo;
+        this.producer = producer;
+        this.laneRouter = laneRouter;
+        this.priceCache = priceCache;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        // Triggers run on the price consumer thread, outside any transaction
+        this.triggerTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void registerTickListener() {
+        priceCache.addTickListener(this::onTick);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Order> orders = orderRepo.findByStatusAndTypeIn(OrderStatus.APPROVED, STOP_TYPES);
+        int count = 0;
+        for (Order order : orders) {
+            if (arm(order)) {
+                count++;
+            }
+        }
+        log.info("🎯 [STOPS] Re-armed {} resting stop orders", count);
+    }
+
+    /**
+     * Arms an approved stop order. Orders of other types, or without a stop price or trail offset,
+     * are not armed and should go to the exchange directly.
+     *
+     * @return true if the order is now held by the engine (or already triggered by the current price)
+     */
+    public boolean arm(Order order) {
+        if (!STOP_TYPES.contains(order.getType()) || order.getInstrumentSymbol() == null) {
+            return false;
+        }
+        StopTriggerBook.Kind kind;
+        double level;
+        if (order.getType() == OrderType.TRAILING_STOP) {
+            if (order.getTrailingOffset() == null || order.getTrailingOffset().signum() <= 0) {
+                return false;
+            }
+            boolean percent = "PERCENTAGE".equalsIgnoreCase(order.getTrailingType());
+            kind = percent ? StopTriggerBook.Kind.TRAILING_PERCENT : StopTriggerBook.Kind.TRAILING_AMOUNT;
+            level = percent ? order.getTrailingOffset().doubleValue() / 100 : order.getTrailingOffset().doubleValue();
+        } else {
+            if (order.getStopPrice() == null) {
+                return false;
+            }
+            kind = StopTriggerBook.Kind.STOP;
+            level = order.getStopPrice().doubleValue();
+        }
+
+        armed.put(order.getId(), releaseRequest(order));
+        StopTriggerBook book = books.computeIfAbsent(order.getInstrumentSymbol(), s -> new StopTriggerBook());
+        List<StopTriggerBook.Stop> triggered = new ArrayList<>(1);
+        synchronized (book) {
+            book.add(order.getId(), order.getOrderSide() == OrderSide.BUY, kind, level);
+            // A stop the market has already passed triggers right away
+            priceCache.getQuote(order.getInstrumentSymbol())
+                    .ifPresent(quote -> book.onPrice(quote.getPrice().doubleValue(), triggered));
+        }
+        meterRegistry.counter("orders.stops.armed", "type", order.getType().name()).increment();
+        log.info("🎯 [STOPS] Stop order armed - OrderID: {}, Symbol: {}, Type: {}, Level: {}",
+                order.getId(), order.getInstrumentSymbol(), order.getType(), level);
+        release(order.getInstrumentSymbol(), triggered);
+        return true;
+    }
+
+    /**
+     * @return true if the order was still resting, i.e. it never reached the exchange
+     */
+    public boolean disarm(Long orderId) {
+        ExchangeOrderRequest request = armed.get(orderId);
+        if (request == null) {
+            return false;
+        }
+        StopTriggerBook book = books.get(request.getSymbol());
+        if (book == null) {
+            return false;
+        }
+        boolean removed;
+        synchronized (book) {
+            removed = book.remove(orderId);
+        }
+        if (removed) {
+            armed.remove(orderId);
+            log.info("🎯 [STOPS] Stop order disarmed - OrderID: {}", orderId);
+        }
+        return removed;
+    }
+
+    public boolean isArmed(Long orderId) {
+        return armed.containsKey(orderId);
+    }
+
+    public void onTick(PriceQuote quote) {
+        StopTriggerBook book = books.get(quote.getSymbol());
+        if (book == null) {
+            return;
+        }
+        List<StopTriggerBook.Stop> triggered = null;
+        synchronized (book) {
+            if (book.size() > 0) {
+                triggered = new ArrayList<>(0);
+                book.onPrice(quote.getPrice().doubleValue(), triggered);
+            }
+        }
+        if (triggered != null && !triggered.isEmpty()) {
+            release(quote.getSymbol(), triggered);
+        }
+    }
+
+    /**
+     * Keeps armed orders in step with amends, and drops them once they leave APPROVED.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderStatusChangedEvent event) {
+        ExchangeOrderRequest request = armed.get(event.getOrderId());
+        if (request == null) {
+            return;
+        }
+        if (event.getStatus() != OrderStatus.APPROVED) {
+            disarm(event.getOrderId());
+            return;
+        }
+        request.setQuantity(event.getTotalQuantity());
+        if (request.getLimitPrice() != null) {
+            request.setLimitPrice(event.getLimitPrice());
+        }
+    }
+
+    private void release(String symbol, List<StopTriggerBook.Stop> triggered) {
+        for (StopTriggerBook.Stop stop : triggered) {
+            ExchangeOrderRequest request = armed.remove(stop.getOrderId());
+            if (request == null) {
+                continue;
+            }
+            if (!markTriggered(stop.getOrderId())) {
+                log.warn("⚠️ [STOPS] Triggered stop no longer APPROVED, not sent - OrderID: {}", stop.getOrderId());
+                continue;
+            }
+            request.setStopPrice(BigDecimal.valueOf(stop.getTriggerPrice()));
+            request.setTimestamp(Instant.now().toEpochMilli());
+            EventEnvelope<ExchangeOrderRequest> envelope = new EventEnvelope<>(
+                    "OrderApprovedForExchange",
+                    "v1",
+                    UUID.randomUUID().toString(),
+                    "order-service",
+                    Instant.now().toString(),
+                    request
+            );
+            log.info("🎯 [STOPS] Stop triggered - OrderID: {}, Symbol: {}, TriggerPrice: {}, SentAs: {}",
+                    stop.getOrderId(), symbol, stop.getTriggerPrice(), request.getOrderType());
+            producer.publish("orders.exchange.v1", request.getOrderId(), envelope, laneRouter.headers(OrderLane.HIGH));
+            meterRegistry.counter("orders.stops.triggered", "kind", stop.getKind().name()).increment();
+        }
+    }
+
+    // APPROVED -> PENDING, so the order is not re-armed on startup; false if it already moved on
+    private boolean markTriggered(Long orderId) {
+        try {
+            return Boolean.TRUE.equals(triggerTransaction.execute(tx -> {
+                if (orderRepo.transitionStatus(orderId, Set.of(OrderStatus.APPROVED), OrderStatus.PENDING,
+                        OffsetDateTime.now()) != 1) {
+                    return false;
+                }
+                orderRepo.findById(orderId).ifPresent(order ->
+                        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, OrderStatus.APPROVED)));
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            // Still APPROVED in the database, so it is re-armed on the next startup
+            log.error("❌ [STOPS] Failed to record trigger - OrderID: {}, Error: {}", orderId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private ExchangeOrderRequest releaseRequest(Order order) {
+        boolean stopLimit = order.getType() == OrderType.STOP_LIMIT;
+        return ExchangeOrderRequest.builder()
+                .orderId(order.getId().toString())
+                .userId(order.getUserId().toString())
+                .symbol(order.getInstrumentSymbol())
+                .side(order.getOrderSide().name())
+                .orderType(stopLimit ? OrderType.LIMIT.name() : OrderType.MARKET.name())
+                .quantity(order.getTotalQuantity())
+                .limitPrice(stopLimit ? order.getLimitPrice() : null)
+                .timeInForce(order.getTimeInForce().name())
+                .status(order.getStatus().name())
+                .clientOrderId(order.getClientOrderId())
+                .build();
+    }
+}
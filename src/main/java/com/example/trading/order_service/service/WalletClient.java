@@ -0,0 +1,21 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.entity.Wallet;
+
+import java.math.BigDecimal;
+
+/**
+ * Client for the wallet service, which owns account balances.
+ * FundsReservationService caches balances in front of it and only calls it to load a balance
+ * and to record settled fills.
+ */
+public interface WalletClient {
+
+    Wallet getWallet(Long accountId);
+
+    /**
+     * Records a settled fill. A positive amount debits the account (buy), a negative amount credits it (sell).
+     * The execution id makes the call idempotent: a settlement already recorded for it is ignored.
+     */
+    void settle(Long accountId, Long orderId, String executionId, BigDecimal amount);
+}
@@ -0,0 +1,58 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.dto.pnl.Lot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Average cost: every buy is pooled into a single lot at the weighted average price, so every sale
+ * is relieved at the same cost basis.
+ */
+public class AverageCostLotRelief implements LotReliefStrategy {
+
+    private static final String POOL_ID = "AVG";
+    private static final int SCALE = 8;
+
+    private Lot pool;
+
+    @Override
+    public void add(Lot lot) {
+        if (pool == null) {
+            pool = new Lot(POOL_ID, lot.getQty(), lot.getPrice(), lot.getFees());
+            return;
+        }
+        BigDecimal qty = pool.getQty().add(lot.getQty());
+        BigDecimal cost = pool.getPrice().multiply(pool.getQty()).add(lot.getPrice().multiply(lot.getQty()));
+        pool = new Lot(POOL_ID, qty, cost.divide(qty, SCALE, RoundingMode.HALF_UP), pool.getFees().add(lot.getFees()));
+    }
+
+    @Override
+    public Lot peek() {
+        return pool;
+    }
+
+    @Override
+    public Lot poll() {
+        Lot head = pool;
+        pool = null;
+        return head;
+    }
+
+    @Override
+    public void replaceHead(Lot remainder) {
+        pool = remainder;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pool == null;
+    }
+
+    @Override
+    public Collection<Lot> openLots() {
+        return pool != null ? List.of(pool) : List.of();
+    }
+}
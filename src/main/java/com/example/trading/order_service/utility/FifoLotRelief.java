@@ -0,0 +1,46 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.dto.pnl.Lot;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Oldest lot first: lots queue up at the tail and are relieved from the head.
+ */
+public class FifoLotRelief implements LotReliefStrategy {
+
+    private final Deque<Lot> lots = new ArrayDeque<>();
+
+    @Override
+    public void add(Lot lot) {
+        lots.addLast(lot);
+    }
+
+    @Override
+    public Lot peek() {
+        return lots.peekFirst();
+    }
+
+    @Override
+    public Lot poll() {
+        return lots.pollFirst();
+    }
+
+    @Override
+    public void replaceHead(Lot remainder) {
+        lots.pollFirst();
+        lots.addFirst(remainder);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lots.isEmpty();
+    }
+
+    @Override
+    public Collection<Lot> openLots() {
+        return lots;
+    }
+}
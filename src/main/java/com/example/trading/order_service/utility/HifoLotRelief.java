@@ -0,0 +1,63 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.dto.pnl.Lot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Highest cost lot first, which realizes the smallest gains. Lots sit in a max-heap by price, so
+ * adding and relieving a lot are O(log n).
+ */
+public class HifoLotRelief implements LotReliefStrategy {
+
+    // Ties go to the older lot
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry e) -> e.lot.getPrice(), Comparator.reverseOrder())
+            .thenComparingLong(e -> e.sequence);
+
+    private final PriorityQueue<Entry> lots = new PriorityQueue<>(ORDER);
+    private long nextSequence;
+
+    @Override
+    public void add(Lot lot) {
+        lots.add(new Entry(lot, nextSequence++));
+    }
+
+    @Override
+    public Lot peek() {
+        Entry head = lots.peek();
+        return head != null ? head.lot : null;
+    }
+
+    @Override
+    public Lot poll() {
+        Entry head = lots.poll();
+        return head != null ? head.lot : null;
+    }
+
+    @Override
+    public void replaceHead(Lot remainder) {
+        // Same price and sequence, so it comes straight back to the top
+        Entry head = lots.poll();
+        lots.add(new Entry(remainder, head != null ? head.sequence : nextSequence++));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lots.isEmpty();
+    }
+
+    @Override
+    public Collection<Lot> openLots() {
+        List<Entry> sorted = new ArrayList<>(lots);
+        sorted.sort(ORDER);
+        return sorted.stream().map(e -> e.lot).toList();
+    }
+
+    private record Entry(Lot lot, long sequence) {
+    }
+}
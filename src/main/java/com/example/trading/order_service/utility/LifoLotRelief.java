@@ -0,0 +1,46 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.dto.pnl.Lot;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Newest lot first: a stack of lots.
+ */
+public class LifoLotRelief implements LotReliefStrategy {
+
+    private final Deque<Lot> lots = new ArrayDeque<>();
+
+    @Override
+    public void add(Lot lot) {
+        lots.push(lot);
+    }
+
+    @Override
+    public Lot peek() {
+        return lots.peek();
+    }
+
+    @Override
+    public Lot poll() {
+        return lots.poll();
+    }
+
+    @Override
+    public void replaceHead(Lot remainder) {
+        lots.pop();
+        lots.push(remainder);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lots.isEmpty();
+    }
+
+    @Override
+    public Collection<Lot> openLots() {
+        return lots;
+    }
+}
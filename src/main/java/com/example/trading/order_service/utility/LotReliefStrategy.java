@@ -0,0 +1,43 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.Enums.LotReliefMethod;
+import com.example.trading.order_service.dto.pnl.Lot;
+
+import java.util.Collection;
+
+/**
+ * Open lots of one instrument, ordered by the lot relief method: the head is the lot the next sale
+ * relieves. Implementations are not thread-safe.
+ */
+public interface LotReliefStrategy {
+
+    static LotReliefStrategy of(LotReliefMethod method) {
+        return switch (method) {
+            case FIFO -> new FifoLotRelief();
+            case LIFO -> new LifoLotRelief();
+            case HIFO -> new HifoLotRelief();
+            case AVERAGE_COST -> new AverageCostLotRelief();
+        };
+    }
+
+    void add(Lot lot);
+
+    /**
+     * The lot the next sale relieves, or null if there are none.
+     */
+    Lot peek();
+
+    Lot poll();
+
+    /**
+     * Replaces the head with what is left of it after a partial relief; it stays the head.
+     */
+    void replaceHead(Lot remainder);
+
+    boolean isEmpty();
+
+    /**
+     * Open lots in relief order.
+     */
+    Collection<Lot> openLots();
+}
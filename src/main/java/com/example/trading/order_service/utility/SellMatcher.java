@@ -7,13 +7,16 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Deque;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
- * Utility class to handle matching of sell executions against existing buy lots in FIFO order.
- * Calculates realized Profit and Loss (PnL) by matching sell quantities with previously bought lots,
- * adjusting lot quantities accordingly, and disallowing selling without prior buys.
+ * Utility class to handle matching of executions against open lots.
+ * Sells relieve buy lots in the order of each instrument's {@link LotReliefStrategy}; whatever is
+ * sold beyond the holdings opens a short lot in sellQueues. Buys cover open short lots FIFO before
+ * the rest opens a buy lot.
+ * Calculates realized Profit and Loss (PnL) for every matched quantity, with the fees of both sides
+ * allocated in proportion to it.
  */
 @Component
 public class SellMatcher {
@@ -22,66 +25,87 @@ public class SellMatcher {
 
     public BigDecimal processSell(Order order,
                                   Executions ex,
-                                  Map<String, Deque<Lot>> buyQueues,
-                                  Map<String, Deque<Lot>> sellQueues) {
-        BigDecimal qty = safe(ex.getQuantity());
-        if (qty.compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
+                                  Map<String, LotReliefStrategy> buyQueues,
+                                  Map<String, LotReliefStrategy> sellQueues) {
+        return process(ex, lotId(order, ex), buyQueues.get(ex.getInstrumentId()), 1,
+                sellQueues, FifoLotRelief::new);
+    }
 
-        String symbol = ex.getInstrumentId();
-        Deque<Lot> buyQ = buyQueues.get(symbol);
+    /**
+     * @param newBuyLots creates the buy lot queue of an instrument that has none yet
+     */
+    public BigDecimal processBuy(Order order,
+                                 Executions ex,
+                                 Map<String, LotReliefStrategy> buyQueues,
+                                 Map<String, LotReliefStrategy> sellQueues,
+                                 Supplier<LotReliefStrategy> newBuyLots) {
+        return process(ex, lotId(order, ex), sellQueues.get(ex.getInstrumentId()), -1,
+                buyQueues, newBuyLots);
+    }
 
-        // Reject sell if no buy lots exist for this instrument
-        if (buyQ == null || buyQ.isEmpty()) {
-            throw new IllegalStateException("Cannot sell instrument " + symbol + " without prior buys");
-        }
+    /**
+     * Matches the execution against the opposite lots, then opens a lot for the rest.
+     *
+     * @param direction 1 for a sell against buy lots, -1 for a buy against short lots
+     */
+    private BigDecimal process(Executions ex, String lotId, LotReliefStrategy opposite, int direction,
+                               Map<String, LotReliefStrategy> ownQueues,
+                               Supplier<LotReliefStrategy> newOwnLots) {
+        BigDecimal qty = safe(ex.getQuantity());
+        if (qty.compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
 
-        BigDecimal remainingToSell = qty;
+        BigDecimal price = safe(ex.getExecutedPrice());
+        BigDecimal fees = safe(ex.getFees());
+        BigDecimal remaining = qty;
         BigDecimal realizedForThisExec = BigDecimal.ZERO;
 
-        // Match sell quantity against existing buy lots until fulfilled or no buy lots left
-        while (remainingToSell.compareTo(BigDecimal.ZERO) > 0 && !buyQ.isEmpty()) {
-            Lot currentLot = buyQ.peekFirst();
-            if (currentLot == null) {
-                break; // Queue is empty, stop matching
-            }
-
-            BigDecimal lotQty = currentLot.getQty();
-            BigDecimal matchedQty = lotQty.min(remainingToSell);
+        // Match against the opposite lots until fulfilled or none are left
+        while (remaining.signum() > 0 && opposite != null && !opposite.isEmpty()) {
+            Lot lot = opposite.peek();
+            BigDecimal matched = lot.getQty().min(remaining);
+            realizedForThisExec = realizedForThisExec.add(
+                    matchLot(opposite, lot, matched, price, fees, qty, direction));
+            remaining = remaining.subtract(matched);
+        }
 
-            realizedForThisExec = realizedForThisExec.add(matchBuyLot(buyQ, ex, qty, remainingToSell));
-            remainingToSell = remainingToSell.subtract(matchedQty);
+        // Whatever is left opens a position on this side, carrying its share of the fees
+        if (remaining.signum() > 0) {
+            BigDecimal feeShare = remaining.compareTo(qty) == 0 ? fees
+                    : fees.multiply(remaining).divide(qty, SCALE, ROUND);
+            ownQueues.computeIfAbsent(ex.getInstrumentId(), s -> newOwnLots.get())
+                    .add(new Lot(lotId, remaining, price, feeShare));
         }
         return realizedForThisExec;
     }
 
-    private BigDecimal matchBuyLot(Deque<Lot> buyQ, Executions ex,
-                                   BigDecimal sellQty, BigDecimal remainingToSell) {
-        Lot buyLot = buyQ.peekFirst();
-        BigDecimal matched = buyLot.getQty().min(remainingToSell);
-
+    private BigDecimal matchLot(LotReliefStrategy lots, Lot lot, BigDecimal matched, BigDecimal price,
+                                BigDecimal fees, BigDecimal execQty, int direction) {
         // Allocate fees proportionally for matched quantity
-        BigDecimal buyFeeAlloc = buyLot.getFees().multiply(matched).divide(buyLot.getQty(), SCALE, ROUND);
-        BigDecimal sellFeeAlloc = safe(ex.getFees()).multiply(matched).divide(sellQty, SCALE, ROUND);
+        BigDecimal lotFeeAlloc = lot.getFees().multiply(matched).divide(lot.getQty(), SCALE, ROUND);
+        BigDecimal execFeeAlloc = fees.multiply(matched).divide(execQty, SCALE, ROUND);
 
         // Realized PnL = (Sell price - Buy price) * matched qty - fees
-        BigDecimal pnl = safe(ex.getExecutedPrice()).subtract(buyLot.getPrice())
-                .multiply(matched).subtract(buyFeeAlloc).subtract(sellFeeAlloc);
+        BigDecimal priceDiff = direction > 0 ? price.subtract(lot.getPrice()) : lot.getPrice().subtract(price);
+        BigDecimal pnl = priceDiff.multiply(matched).subtract(lotFeeAlloc).subtract(execFeeAlloc);
 
-        // Adjust or remove buy lot based on matched quantity
-        if (buyLot.getQty().compareTo(matched) == 0) {
-            buyQ.removeFirst();
+        // Adjust or remove the lot based on matched quantity
+        if (lot.getQty().compareTo(matched) == 0) {
+            lots.poll();
         } else {
-            Lot newLot = new Lot(buyLot.getId(),
-                    buyLot.getQty().subtract(matched),
-                    buyLot.getPrice(),
-                    buyLot.getFees().subtract(buyFeeAlloc));
-            buyQ.removeFirst();
-            buyQ.addFirst(newLot);
+            lots.replaceHead(new Lot(lot.getId(),
+                    lot.getQty().subtract(matched),
+                    lot.getPrice(),
+                    lot.getFees().subtract(lotFeeAlloc)));
         }
-
         return pnl;
     }
 
+    private String lotId(Order order, Executions ex) {
+        String exId = (ex.getExecutionId() != null ? ex.getExecutionId()
+                : (ex.getId() != null ? ex.getId().toString() : "x"));
+        return (order.getId() != null ? order.getId().toString() : "o") + "-" + exId;
+    }
+
     private BigDecimal safe(BigDecimal value) {
         return value == null ? BigDecimal.ZERO : value;
     }
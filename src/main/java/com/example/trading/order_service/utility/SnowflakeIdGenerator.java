@@ -0,0 +1,77 @@
+package com.example.trading.order_service.utility;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit id generator (Snowflake layout):
+ * 41 bits of milliseconds since 2024-01-01 UTC, 10 bits of node id and a 12 bit per-millisecond sequence.
+ *
+ * Ids are assigned in memory before the INSERT, so they are known without a flush and
+ * inserts can be batched, and they stay roughly time-sortable for index locality.
+ * Each running instance needs its own node id (snowflake.node-id, passed through spring.jpa.properties).
+ * If the clock steps back, ids keep counting up from the last one issued instead of repeating.
+ * Generators with the same node id share one sequence per JVM, so ids issued outside Hibernate
+ * (e.g. iceberg slice ids) never collide with entity ids.
+ */
+public class SnowflakeIdGenerator implements BeforeExecutionGenerator {
+
+    public static final String NODE_ID_SETTING = "snowflake.node-id";
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    // nodeId -> (millis since epoch << SEQUENCE_BITS) | sequence of the last id issued
+    private static final Map<Long, AtomicLong> LAST_TICKS = new ConcurrentHashMap<>();
+
+    private final long nodeId;
+    private final AtomicLong lastTick;
+
+    // Hibernate creates @SnowflakeId generators through Spring's bean container, which autowires this one
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${spring.jpa.properties.snowflake.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Snowflake node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.lastTick = LAST_TICKS.computeIfAbsent(nodeId, id -> new AtomicLong());
+    }
+
+    // Called by Hibernate for fields annotated with @SnowflakeId when no bean container is configured
+    public SnowflakeIdGenerator(SnowflakeId config, Member member, GeneratorCreationContext context) {
+        this(context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(NODE_ID_SETTING, value -> Long.parseLong(value.toString()), 0L));
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long tick = lastTick.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.trading.order_service.utility;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Resting stop and trailing-stop orders of one instrument, sorted by how far the price has to move to trigger them.
+ * Not thread-safe: the owner serializes access per instrument.
+ *
+ * Prices are mapped to x = price for the sell side and x = -price for the buy side, so both sides
+ * trigger when x falls to a level and the same code serves both.
+ * Plain stops sit in a max-heap by stop level: a tick pops only the stops it triggers.
+ * Trailing stops are grouped in buckets by watermark (highest x seen since arming). A tick above some
+ * watermarks merges those buckets into one at the new watermark, smaller into larger, so raising every
+ * trailing stop costs O(log n) amortized per order instead of touching each order on each tick.
+ * Inside a bucket, stops are heaps by trail amount and by trail percent, smallest first, and the
+ * buckets sit in a max-heap by the x at which their nearest stop triggers.
+ *
+ * Removed stops are only marked and skipped when popped; the heaps are compacted once they hold
+ * more removed stops than live ones.
+ */
+public final class StopTriggerBook {
+
+    public enum Kind {
+        STOP,               // level = stop price
+        TRAILING_AMOUNT,    // level = trail distance in price units
+        TRAILING_PERCENT    // level = trail distance as a fraction of the watermark, 0.05 = 5%
+    }
+
+    private static final int MIN_COMPACT = 1024;
+
+    private final Side sells = new Side(1);
+    private final Side buys = new Side(-1);
+    private final Map<Long, Stop> live = new HashMap<>();
+    private double lastPrice = Double.NaN;
+    private int removed;
+
+    /**
+     * Arms a stop. Trailing stops start trailing from the last price seen by the book, or from the next tick.
+     */
+    public Stop add(long orderId, boolean buy, Kind kind, double level) {
+        remove(orderId);
+        Stop stop = new Stop(orderId, buy, kind, level);
+        live.put(orderId, stop);
+        (buy ? buys : sells).add(stop, lastPrice);
+        return stop;
+    }
+
+    /**
+     * @return true if the stop was still resting
+     */
+    public boolean remove(long orderId) {
+        Stop stop = live.remove(orderId);
+        if (stop == null) {
+            return false;
+        }
+        stop.removed = true;
+        if (++removed >= MIN_COMPACT && removed > live.size()) {
+            sells.compact();
+            buys.compact();
+            removed = 0;
+        }
+        return true;
+    }
+
+    public boolean contains(long orderId) {
+        return live.containsKey(orderId);
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    /**
+     * Applies a tick: raises trailing stops and moves every stop the price reached into triggered.
+     *
+     * @return number of stops triggered
+     */
+    public int onPrice(double price, List<Stop> triggered) {
+        lastPrice = price;
+        int before = triggered.size();
+        sells.onPrice(price, triggered);
+        buys.onPrice(-price, triggered);
+        return triggered.size() - before;
+    }
+
+    public static final class Stop {
+        private final long orderId;
+        private final boolean buy;
+        private final Kind kind;
+        private final double level;
+        private double key;             // STOP: x at which it triggers
+        private double triggerPrice;
+        private boolean removed;
+
+        private Stop(long orderId, boolean buy, Kind kind, double level) {
+            this.orderId = orderId;
+            this.buy = buy;
+            this.kind = kind;
+            this.level = level;
+        }
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public boolean isBuy() {
+            return buy;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public double getTriggerPrice() {
+            return triggerPrice;
+        }
+    }
+
+    private final class Side {
+        private final int sign;
+        private final PriorityQueue<Stop> stops = new PriorityQueue<>((a, b) -> Double.compare(b.key, a.key));
+        private final TreeMap<Double, Bucket> trailing = new TreeMap<>();
+        // Entries of buckets that were merged, emptied or rescheduled since are skipped when popped
+        private final PriorityQueue<Trigger> triggers = new PriorityQueue<>((a, b) -> Double.compare(b.x, a.x));
+
+        private Side(int sign) {
+            this.sign = sign;
+        }
+
+        private void add(Stop stop, double lastPrice) {
+            if (stop.kind == Kind.STOP) {
+                stop.key = sign * stop.level;
+                stops.add(stop);
+                return;
+            }
+            double watermark = Double.isNaN(lastPrice) ? Double.NEGATIVE_INFINITY : sign * lastPrice;
+            Bucket bucket = trailing.computeIfAbsent(watermark, Bucket::new);
+            bucket.add(stop);
+            schedule(bucket);
+        }
+
+        private void onPrice(double x, List<Stop> triggered) {
+            while (!stops.isEmpty() && x <= stops.peek().key) {
+                Stop stop = stops.poll();
+                fire(stop, sign * stop.key, triggered);
+            }
+            if (trailing.isEmpty()) {
+                return;
+            }
+
+            // 1. New extreme: every bucket below it now trails from x
+            if (trailing.firstKey() < x) {
+                Bucket raised = trailing.pollFirstEntry().getValue();
+                while (!trailing.isEmpty() && trailing.firstKey() <= x) {
+                    raised = raised.merge(trailing.pollFirstEntry().getValue());
+                }
+                raised.watermark = x;
+                trailing.put(x, raised);
+                schedule(raised);
+            }
+
+            // 2. Pop the stops whose trail distance the price has now covered
+            while (!triggers.isEmpty() && x <= triggers.peek().x) {
+                Trigger trigger = triggers.poll();
+                Bucket bucket = trigger.bucket;
+                if (trigger.version != bucket.version) {
+                    continue;
+                }
+                double at;
+                while (!bucket.amounts.isEmpty() && x <= (at = bucket.amountTrigger())) {
+                    fire(bucket.amounts.poll(), sign * at, triggered);
+                }
+                while (!bucket.percents.isEmpty() && x <= (at = bucket.percentTrigger())) {
+                    fire(bucket.percents.poll(), sign * at, triggered);
+                }
+                if (bucket.isEmpty()) {
+                    bucket.version++;
+                    trailing.remove(bucket.watermark, bucket);
+                } else {
+                    schedule(bucket);
+                }
+            }
+            if (triggers.size() > MIN_COMPACT + 2 * trailing.size()) {
+                rebuildTriggers();
+            }
+        }
+
+        private void schedule(Bucket bucket) {
+            bucket.version++;
+            triggers.add(new Trigger(bucket.trigger(), bucket, bucket.version));
+        }
+
+        private void rebuildTriggers() {
+            triggers.clear();
+            trailing.values().forEach(this::schedule);
+        }
+
+        private void fire(Stop stop, double triggerPrice, List<Stop> triggered) {
+            if (stop.removed) {
+                removed--;
+                return;
+            }
+            live.remove(stop.orderId);
+            stop.triggerPrice = triggerPrice;
+            triggered.add(stop);
+        }
+
+        private void compact() {
+            stops.removeIf(s -> s.removed);
+            trailing.values().removeIf(bucket -> {
+                bucket.amounts.removeIf(s -> s.removed);
+                bucket.percents.removeIf(s -> s.removed);
+                return bucket.isEmpty();
+            });
+            rebuildTriggers();
+        }
+    }
+
+    private record Trigger(double x, Bucket bucket, int version) {
+    }
+
+    private static final class Bucket {
+        private static final Comparator<Stop> BY_LEVEL = Comparator.comparingDouble(s -> s.level);
+
+        private double watermark;
+        private int version;
+        private PriorityQueue<Stop> amounts = new PriorityQueue<>(BY_LEVEL);
+        private PriorityQueue<Stop> percents = new PriorityQueue<>(BY_LEVEL);
+
+        private Bucket(double watermark) {
+            this.watermark = watermark;
+        }
+
+        private void add(Stop stop) {
+            (stop.kind == Kind.TRAILING_PERCENT ? percents : amounts).add(stop);
+        }
+
+        private boolean isEmpty() {
+            return amounts.isEmpty() && percents.isEmpty();
+        }
+
+        // x at or below which the nearest stop of each heap triggers
+        private double amountTrigger() {
+            return watermark - amounts.peek().level;
+        }
+
+        private double percentTrigger() {
+            return watermark - percents.peek().level * Math.abs(watermark);
+        }
+
+        private double trigger() {
+            double x = Double.NEGATIVE_INFINITY;
+            if (!amounts.isEmpty()) {
+                x = amountTrigger();
+            }
+            if (!percents.isEmpty()) {
+                x = Math.max(x, percentTrigger());
+            }
+            return x;
+        }
+
+        private int size() {
+            return amounts.size() + percents.size();
+        }
+
+        // Moves the smaller bucket's stops into the larger one and returns the larger
+        private Bucket merge(Bucket other) {
+            Bucket big = size() >= other.size() ? this : other;
+            Bucket small = big == this ? other : this;
+            big.amounts.addAll(small.amounts);
+            big.percents.addAll(small.percents);
+            small.version++;
+            return big;
+        }
+    }
+}
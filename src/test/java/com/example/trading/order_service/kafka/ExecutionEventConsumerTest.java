@@ -0,0 +1,158 @@
+package com.example.trading.order_service.kafka;
+
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.dto.EventEnvelope;
+import com.example.trading.order_service.entity.Executions;
+import com.example.trading.order_service.entity.Order;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.repository.executionRepository;
+import com.example.trading.order_service.service.FeeEngine;
+import com.example.trading.order_service.service.FundsReservationService;
+import com.example.trading.order_service.service.IcebergSlicer;
+import com.example.trading.order_service.service.OrderStatusNotificationService;
+import com.example.trading.order_service.service.PnlStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionEventConsumerTest {
+
+    private static final long ORDER_ID = 42L;
+    private static final OffsetDateTime READ_AT = OffsetDateTime.parse("2026-01-05T10:00:00Z");
+    private static final OffsetDateTime AMENDED_AT = OffsetDateTime.parse("2026-01-05T10:00:01Z");
+
+    private final OrderRepository orderRepo = mock(OrderRepository.class);
+    private final executionRepository executionRepo = mock(executionRepository.class);
+    private final IcebergSlicer icebergSlicer = mock(IcebergSlicer.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+
+    private ExecutionEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new ExecutionEventConsumer(orderRepo, mock(OrderStatusNotificationService.class), mock(PnlStreamService.class),
+                mock(FundsReservationService.class), mock(ApplicationEventPublisher.class),
+                icebergSlicer, mock(FeeEngine.class), executionRepo);
+        when(executionRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void fillWritesOnlyFillColumnsAndKeepsPendingReplace() {
+        Order order = order(OrderStatus.PENDING, "10", "100", READ_AT);
+        order.setReplaceQuantity(new BigDecimal("15"));
+        order.setReplaceLimitPrice(new BigDecimal("99"));
+        when(icebergSlicer.findOrder(ORDER_ID)).thenReturn(Optional.of(order));
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(READ_AT), any())).thenReturn(1);
+
+        consumer.consumeExecutionEvent(fill("PARTIALLY_FILLED", "4", "100"), "42", ack);
+
+        verify(orderRepo).applyFill(eq(ORDER_ID), eq(new BigDecimal("4")), eq(new BigDecimal("100")), any(),
+                eq(OrderStatus.PARTIALLY_FILLED), any(), eq(READ_AT), any());
+        verify(orderRepo, never()).save(any());
+        verify(orderRepo, never()).setReplace(any(), any(), any(), any());
+        verify(executionRepo).save(any(Executions.class));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void fillRacingAnAmendIsRecomputedFromTheAmendedOrder() {
+        Order stale = order(OrderStatus.PENDING, "10", "100", READ_AT);
+        Order amended = order(OrderStatus.PENDING, "20", "101", AMENDED_AT);
+        when(icebergSlicer.findOrder(ORDER_ID)).thenReturn(Optional.of(stale), Optional.of(amended));
+        when(icebergSlicer.isSlice(any(), eq(ORDER_ID))).thenReturn(true);
+        when(icebergSlicer.parentStatus(any(), any())).thenCallRealMethod();
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(READ_AT), any())).thenReturn(0);
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(AMENDED_AT), any())).thenReturn(1);
+
+        // Would fill the stale 10 lot, but only half fills the amended 20 lot
+        consumer.consumeExecutionEvent(fill("FILLED", "10", "100"), "42", ack);
+
+        verify(orderRepo).applyFill(eq(ORDER_ID), eq(new BigDecimal("10")), any(), any(),
+                eq(OrderStatus.PARTIALLY_FILLED), any(), eq(AMENDED_AT), any());
+        verify(orderRepo, never()).save(any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void fillRacingACancelRequestKeepsPendingCancel() {
+        Order pending = order(OrderStatus.PENDING, "10", "100", READ_AT);
+        Order cancelling = order(OrderStatus.PENDING_CANCEL, "10", "100", AMENDED_AT);
+        when(icebergSlicer.findOrder(ORDER_ID)).thenReturn(Optional.of(pending), Optional.of(cancelling));
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(READ_AT), any())).thenReturn(0);
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(AMENDED_AT), any())).thenReturn(1);
+
+        consumer.consumeExecutionEvent(fill("PARTIALLY_FILLED", "3", "100"), "42", ack);
+
+        verify(orderRepo).applyFill(eq(ORDER_ID), eq(new BigDecimal("3")), any(), any(),
+                eq(OrderStatus.PENDING_CANCEL), any(), eq(AMENDED_AT), any());
+    }
+
+    @Test
+    void fillOnOrderCancelledMeanwhileIsSkipped() {
+        Order pending = order(OrderStatus.PENDING, "10", "100", READ_AT);
+        Order cancelled = order(OrderStatus.CANCELLED, "10", "100", AMENDED_AT);
+        when(icebergSlicer.findOrder(ORDER_ID)).thenReturn(Optional.of(pending), Optional.of(cancelled));
+        when(orderRepo.applyFill(eq(ORDER_ID), any(), any(), any(), any(), any(), eq(READ_AT), any())).thenReturn(0);
+
+        consumer.consumeExecutionEvent(fill("PARTIALLY_FILLED", "3", "100"), "42", ack);
+
+        verify(orderRepo, times(1)).applyFill(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(executionRepo, never()).save(any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void fillThatKeepsLosingTheRaceIsRetriedByKafka() {
+        when(icebergSlicer.findOrder(ORDER_ID))
+                .thenAnswer(inv -> Optional.of(order(OrderStatus.PENDING, "10", "100", READ_AT)));
+
+        assertThatThrownBy(() -> consumer.consumeExecutionEvent(fill("PARTIALLY_FILLED", "3", "100"), "42", ack))
+                .isInstanceOf(IllegalStateException.class);
+        verify(executionRepo, never()).save(any());
+        verify(ack, never()).acknowledge();
+    }
+
+    private static Order order(OrderStatus status, String quantity, String limitPrice, OffsetDateTime updatedAt) {
+        return Order.builder()
+                .id(ORDER_ID)
+                .userId(7L)
+                .instrumentId("AAPL")
+                .instrumentSymbol("AAPL")
+                .orderSide(OrderSide.BUY)
+                .type(OrderType.LIMIT)
+                .status(status)
+                .totalQuantity(new BigDecimal(quantity))
+                .filledQuantity(BigDecimal.ZERO)
+                .limitPrice(new BigDecimal(limitPrice))
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private static EventEnvelope<Map<String, Object>> fill(String status, String quantity, String price) {
+        Map<String, Object> payload = Map.of(
+                "orderId", Long.toString(ORDER_ID),
+                "status", status,
+                "quantity", quantity,
+                "price", price,
+                "notionalValue", new BigDecimal(quantity).multiply(new BigDecimal(price)).toPlainString(),
+                "counterOrderId", "exec-1");
+        return new EventEnvelope<>("ExecutionReported", "v1", "c-1", "exchange", "2026-01-05T10:00:00Z", payload);
+    }
+}
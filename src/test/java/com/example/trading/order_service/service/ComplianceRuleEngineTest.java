@@ -0,0 +1,157 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderType;
+import com.example.trading.order_service.dto.compliance.ComplianceDecision;
+import com.example.trading.order_service.entity.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ComplianceRuleEngineTest {
+
+    private static final String RULES = """
+            {
+              "version": "1",
+              "rules": [
+                {"id": "blocked-users", "type": "BLOCKED_USERS", "userIds": [911, 13], "reason": "User is blocked."},
+                {"id": "halted", "type": "BLOCKED_SYMBOLS", "symbols": ["HALTED"]},
+                {"id": "max-notional", "type": "MAX_NOTIONAL", "maxNotional": 1000},
+                {"id": "no-stops-on-penny", "type": "ORDER_TYPE_RESTRICTION", "orderTypes": ["STOP_MARKET"], "symbols": ["PENNY"]},
+                {"id": "off", "type": "BLOCKED_SYMBOLS", "symbols": ["AAPL"], "enabled": false}
+              ]
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void compilesEnabledRulesOnly() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+
+        assertThat(engine.info().getVersion()).isEqualTo("1");
+        assertThat(engine.info().getActiveRules())
+                .containsExactly("blocked-users", "halted", "max-notional", "no-stops-on-penny");
+    }
+
+    @Test
+    void approvesAnOrderNoRuleMatches() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+
+        assertThat(engine.evaluate(order(7L, "AAPL", OrderType.LIMIT, "500")).isApproved()).isTrue();
+    }
+
+    @Test
+    void rejectsWithTheFirstRuleThatFires() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+
+        assertRejected(engine.evaluate(order(13L, "HALTED", OrderType.LIMIT, "500")), "blocked-users");
+        assertThat(engine.evaluate(order(13L, "AAPL", OrderType.LIMIT, "500")).getReason()).isEqualTo("User is blocked.");
+        assertRejected(engine.evaluate(order(7L, "HALTED", OrderType.LIMIT, "500")), "halted");
+        assertRejected(engine.evaluate(order(7L, "AAPL", OrderType.LIMIT, "1000.01")), "max-notional");
+        assertRejected(engine.evaluate(order(7L, "PENNY", OrderType.STOP_MARKET, "10")), "no-stops-on-penny");
+        assertThat(engine.evaluate(order(7L, "AAPL", OrderType.STOP_MARKET, "10")).isApproved()).isTrue();
+        assertThat(meterRegistry.counter("compliance.rule.fired", "rule", "blocked-users").count()).isEqualTo(2);
+    }
+
+    @Test
+    void defaultsTheReasonToTheRuleId() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+
+        assertThat(engine.evaluate(order(7L, "HALTED", OrderType.LIMIT, "10")).getReason())
+                .isEqualTo("Rejected by compliance rule halted");
+    }
+
+    @Test
+    void refusesToStartWithARuleMissingItsFields() {
+        assertInvalid("""
+                {"version": "1", "rules": [{"id": "users", "type": "BLOCKED_USERS"}]}
+                """, "users", "userIds");
+        assertInvalid("""
+                {"version": "1", "rules": [{"id": "cap", "type": "MAX_NOTIONAL"}]}
+                """, "cap", "maxNotional");
+        assertInvalid("""
+                {"version": "1", "rules": [{"id": "types", "type": "ORDER_TYPE_RESTRICTION", "orderTypes": []}]}
+                """, "types", "orderTypes");
+        assertInvalid("""
+                {"version": "1", "rules": [{"type": "BLOCKED_SYMBOLS", "symbols": ["X"]}]}
+                """, "a rule", "id");
+        assertInvalid("""
+                {"version": "1", "rules": [{"id": "hours", "type": "TRADING_HOURS", "open": "9:30am", "close": "16:00"}]}
+                """, "hours", "open");
+        assertInvalid("""
+                {"version": "1", "rules": [{"id": "hours", "type": "TRADING_HOURS", "open": "09:30", "close": "16:00", "zone": "Mars/Olympus"}]}
+                """, "hours", "zone");
+    }
+
+    @Test
+    void reloadSwapsInAChangedFile() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+        assertThat(engine.reload()).isFalse();
+
+        write("""
+                {"version": "2", "rules": [{"id": "halted", "type": "BLOCKED_SYMBOLS", "symbols": ["AAPL"]}]}
+                """);
+
+        assertThat(engine.reload()).isTrue();
+        assertThat(engine.info().getVersion()).isEqualTo("2");
+        assertRejected(engine.evaluate(order(7L, "AAPL", OrderType.LIMIT, "10")), "halted");
+        assertThat(engine.evaluate(order(13L, "MSFT", OrderType.LIMIT, "10")).isApproved()).isTrue();
+    }
+
+    @Test
+    void invalidReloadKeepsTheCurrentRules() throws IOException {
+        ComplianceRuleEngine engine = engine(RULES);
+
+        write("""
+                {"version": "2", "rules": [{"id": "cap", "type": "MAX_NOTIONAL"}]}
+                """);
+
+        assertThatThrownBy(engine::reload).isInstanceOf(IllegalStateException.class);
+        engine.reloadIfChanged();
+        assertThat(engine.info().getVersion()).isEqualTo("1");
+        assertRejected(engine.evaluate(order(13L, "AAPL", OrderType.LIMIT, "10")), "blocked-users");
+    }
+
+    private ComplianceRuleEngine engine(String json) throws IOException {
+        Path file = write(json);
+        return new ComplianceRuleEngine(new DefaultResourceLoader(), new ObjectMapper(), meterRegistry,
+                file.toUri().toString());
+    }
+
+    private Path write(String json) throws IOException {
+        return Files.writeString(dir.resolve("compliance-rules.json"), json);
+    }
+
+    private void assertInvalid(String json, String ruleId, String field) {
+        assertThatThrownBy(() -> engine(json))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Compliance rule " + ruleId + " has a missing or invalid " + field);
+    }
+
+    private static void assertRejected(ComplianceDecision decision, String ruleId) {
+        assertThat(decision.isApproved()).isFalse();
+        assertThat(decision.getRuleId()).isEqualTo(ruleId);
+    }
+
+    private static Order order(Long userId, String symbol, OrderType type, String notional) {
+        return Order.builder()
+                .userId(userId)
+                .instrumentSymbol(symbol)
+                .type(type)
+                .notionalValue(new BigDecimal(notional))
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.Enums.OrderSide;
+import com.example.trading.order_service.Enums.OrderStatus;
+import com.example.trading.order_service.dto.WalletBalance;
+import com.example.trading.order_service.entity.Wallet;
+import com.example.trading.order_service.repository.OrderRepository;
+import com.example.trading.order_service.repository.OrderRepository.OpenOrderView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FundsReservationServiceTest {
+
+    private static final long ACCOUNT = 7L;
+
+    private final WalletClient walletClient = mock(WalletClient.class);
+    private final OrderRepository orderRepo = mock(OrderRepository.class);
+    private FundsReservationService funds;
+
+    @BeforeEach
+    void setUp() {
+        when(walletClient.getWallet(anyLong())).thenReturn(new Wallet(ACCOUNT, ACCOUNT, new BigDecimal("1000")));
+        funds = new FundsReservationService(walletClient, orderRepo, 60_000, 100);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserveTakesFromAvailableOncePerOrder() {
+        assertThat(funds.reserve(ACCOUNT, 1L, new BigDecimal("300"))).isTrue();
+        assertThat(funds.reserve(ACCOUNT, 1L, new BigDecimal("300"))).isTrue();
+
+        assertBalance("700", "300");
+    }
+
+    @Test
+    void reserveRefusesWhatAvailableDoesNotCover() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("800"));
+
+        assertThat(funds.reserve(ACCOUNT, 2L, new BigDecimal("300"))).isFalse();
+        assertBalance("200", "800");
+    }
+
+    @Test
+    void adjustMovesOnlyTheDifference() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("300"));
+
+        assertThat(funds.adjust(ACCOUNT, 1L, new BigDecimal("500"))).isTrue();
+        assertBalance("500", "500");
+        assertThat(funds.adjust(ACCOUNT, 1L, new BigDecimal("100"))).isTrue();
+        assertBalance("900", "100");
+        assertThat(funds.adjust(ACCOUNT, 1L, new BigDecimal("1200"))).isFalse();
+        assertBalance("900", "100");
+    }
+
+    @Test
+    void releaseReturnsWhatIsStillReserved() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("300"));
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("100"), false);
+
+        funds.release(1L);
+        funds.release(1L);
+
+        assertBalance("900", "0");
+    }
+
+    @Test
+    void settleBuyDrawsOnTheReservationAndReleasesTheRestOnTheFinalFill() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("300"));
+
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("100"), false);
+        assertBalance("700", "200");
+        funds.settleBuy(ACCOUNT, 1L, "e-2", new BigDecimal("150"), true);
+        assertBalance("750", "0");
+
+        verify(walletClient).settle(ACCOUNT, 1L, "e-1", new BigDecimal("100"));
+        verify(walletClient).settle(ACCOUNT, 1L, "e-2", new BigDecimal("150"));
+    }
+
+    @Test
+    void settleBuyAboveTheReservationTakesTheExcessFromAvailable() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("100"));
+
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("130"), true);
+
+        assertBalance("870", "0");
+    }
+
+    @Test
+    void settleSellCreditsTheProceeds() {
+        funds.getBalance(ACCOUNT);
+
+        funds.settleSell(ACCOUNT, 2L, "e-1", new BigDecimal("250"));
+
+        assertBalance("1250", "0");
+        verify(walletClient).settle(ACCOUNT, 2L, "e-1", new BigDecimal("-250"));
+    }
+
+    @Test
+    void redeliveredExecutionIsSettledOnce() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("300"));
+
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("100"), false);
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("100"), false);
+
+        assertBalance("700", "200");
+        verify(walletClient, times(1)).settle(any(), any(), any(), any());
+    }
+
+    @Test
+    void settlementWaitsForTheTransactionToCommit() {
+        funds.reserve(ACCOUNT, 1L, new BigDecimal("300"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("100"), false);
+
+        verify(walletClient, never()).settle(any(), any(), any(), any());
+        assertBalance("700", "300");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(walletClient).settle(ACCOUNT, 1L, "e-1", new BigDecimal("100"));
+        assertBalance("700", "200");
+    }
+
+    @Test
+    void loadRestoresReservationsOfOpenBuyOrders() {
+        List<OpenOrderView> open = List.of(
+                openOrder(1L, OrderSide.BUY, "10", "4", "50"),
+                openOrder(2L, OrderSide.SELL, "10", "0", "50"),
+                openOrder(3L, OrderSide.BUY, "10", "0", null));   // no limit price, not restored
+        when(orderRepo.findOpenByStatusIn(any())).thenReturn(open);
+
+        funds.load();
+
+        assertBalance("700", "300");
+        // The restored reservation is drawn on by the next fill
+        funds.settleBuy(ACCOUNT, 1L, "e-1", new BigDecimal("300"), true);
+        assertBalance("700", "0");
+        verify(orderRepo).findOpenByStatusIn(eq(EnumSet.of(OrderStatus.PENDING_COMPLIANCE,
+                OrderStatus.APPROVED, OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED, OrderStatus.PENDING_CANCEL)));
+    }
+
+    private void assertBalance(String available, String reserved) {
+        WalletBalance balance = funds.getBalance(ACCOUNT);
+        assertThat(balance.getAvailable()).isEqualByComparingTo(available);
+        assertThat(balance.getReserved()).isEqualByComparingTo(reserved);
+    }
+
+    private static OpenOrderView openOrder(Long id, OrderSide side, String total, String filled, String limitPrice) {
+        OpenOrderView view = mock(OpenOrderView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getUserId()).thenReturn(ACCOUNT);
+        when(view.getOrderSide()).thenReturn(side);
+        when(view.getTotalQuantity()).thenReturn(new BigDecimal(total));
+        when(view.getFilledQuantity()).thenReturn(new BigDecimal(filled));
+        when(view.getLimitPrice()).thenReturn(limitPrice != null ? new BigDecimal(limitPrice) : null);
+        return view;
+    }
+}
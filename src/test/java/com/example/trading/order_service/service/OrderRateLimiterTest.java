@@ -0,0 +1,129 @@
+package com.example.trading.order_service.service;
+
+import com.example.trading.order_service.config.RateLimitProperties;
+import com.example.trading.order_service.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderRateLimiterTest {
+
+    private static final long USER = 7L;
+
+    private final RateLimitProperties props = new RateLimitProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // 100ms per order for the user, 1s per order per instrument
+        props.getTiers().put("standard", tier(10, 2));
+        props.getPerInstrument().setOrdersPerSecond(1);
+        props.getPerInstrument().setBurst(2);
+        props.getBulk().setOrdersPerSecond(10);
+        props.getBulk().setBurst(5);
+        limiter = new OrderRateLimiter(props, meterRegistry);
+    }
+
+    @Test
+    void allowsTheBurstThenRejectsUntilRefilled() throws InterruptedException {
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+
+        long wait = limiter.tryAcquire(USER, "AAPL");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(meterRegistry.counter("orders.rate_limit.rejected", "scope", "user", "tier", "standard").count())
+                .isEqualTo(1);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+    }
+
+    @Test
+    void bucketsAreKeptPerUser() {
+        limiter.tryAcquire(USER, "AAPL");
+        limiter.tryAcquire(USER, "AAPL");
+
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isPositive();
+        assertThat(limiter.tryAcquire(8L, "AAPL")).isZero();
+    }
+
+    @Test
+    void acquireThrowsWithARetryAfter() {
+        limiter.acquire(USER, "AAPL");
+        limiter.acquire(USER, "AAPL");
+
+        assertThatThrownBy(() -> limiter.acquire(USER, "AAPL"))
+                .isInstanceOf(RateLimitExceededException.class)
+                .satisfies(e -> assertThat(((RateLimitExceededException) e).getRetryAfterSeconds()).isEqualTo(1));
+    }
+
+    @Test
+    void instrumentLimitRejectsBeforeTheUserLimit() {
+        props.getPerInstrument().setEnabled(true);
+        props.getTiers().put("standard", tier(100, 10));
+
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isPositive();
+        assertThat(limiter.tryAcquire(USER, "MSFT")).isZero();
+    }
+
+    @Test
+    void userRejectionRefundsTheInstrumentToken() throws InterruptedException {
+        props.getPerInstrument().setEnabled(true);
+
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+        assertThat(limiter.tryAcquire(USER, "MSFT")).isZero();
+        long wait = limiter.tryAcquire(USER, "AAPL");   // takes AAPL's second token, then hits the user limit
+        assertThat(wait).isPositive();
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(20));
+
+        // Without the refund AAPL would now wait most of a second for its instrument bucket
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+    }
+
+    @Test
+    void bulkBasketIsChargedAllOrNothing() {
+        assertThat(limiter.tryAcquireBulk(USER, 4)).isZero();
+        assertThat(limiter.tryAcquireBulk(USER, 2)).isPositive();
+        assertThat(limiter.tryAcquireBulk(USER, 1)).isZero();
+        assertThat(limiter.tryAcquireBulk(8L, 6)).isPositive();   // larger than the burst, never allowed
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        props.setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(USER, "AAPL")).isZero();
+        }
+        assertThat(limiter.tryAcquireBulk(USER, 100)).isZero();
+    }
+
+    @Test
+    void evictsOnlyRefilledBuckets() throws InterruptedException {
+        limiter.tryAcquire(USER, "AAPL");
+        limiter.tryAcquire(USER, "AAPL");
+        limiter.evictIdleBuckets();
+        assertThat(limiter.tryAcquire(USER, "AAPL")).isPositive();   // still drained, so kept
+
+        TimeUnit.MILLISECONDS.sleep(220);
+        limiter.evictIdleBuckets();
+        assertThat(meterRegistry.get("orders.rate_limit.buckets").gauge().value()).isZero();
+    }
+
+    private static RateLimitProperties.Tier tier(double ordersPerSecond, int burst) {
+        RateLimitProperties.Tier tier = new RateLimitProperties.Tier();
+        tier.setOrdersPerSecond(ordersPerSecond);
+        tier.setBurst(burst);
+        return tier;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.trading.order_service.utility;
+
+import com.example.trading.order_service.Enums.LotReliefMethod;
+import com.example.trading.order_service.dto.pnl.Lot;
+import com.example.trading.order_service.entity.Executions;
+import com.example.trading.order_service.entity.Order;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SellMatcherTest {
+
+    private static final String SYMBOL = "AAPL";
+
+    private final SellMatcher matcher = new SellMatcher();
+    private final Map<String, LotReliefStrategy> buyQueues = new HashMap<>();
+    private final Map<String, LotReliefStrategy> sellQueues = new HashMap<>();
+    private long nextId = 1;
+
+    @Test
+    void fifoRelievesTheOldestLotFirst() {
+        buy(LotReliefMethod.FIFO, "10", "100");
+        buy(LotReliefMethod.FIFO, "10", "110");
+
+        BigDecimal realized = sell("15", "120");
+
+        assertThat(realized).isEqualByComparingTo("250");   // 10 x 20 + 5 x 10
+        assertThat(buyQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "5", "110"));
+    }
+
+    @Test
+    void lifoRelievesTheNewestLotFirst() {
+        buy(LotReliefMethod.LIFO, "10", "100");
+        buy(LotReliefMethod.LIFO, "10", "110");
+
+        BigDecimal realized = sell("15", "120");
+
+        assertThat(realized).isEqualByComparingTo("200");   // 10 x 10 + 5 x 20
+        assertThat(buyQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "5", "100"));
+    }
+
+    @Test
+    void hifoRelievesTheHighestCostLotFirst() {
+        buy(LotReliefMethod.HIFO, "10", "100");
+        buy(LotReliefMethod.HIFO, "10", "120");
+        buy(LotReliefMethod.HIFO, "10", "110");
+
+        BigDecimal realized = sell("15", "130");
+
+        assertThat(realized).isEqualByComparingTo("200");   // 10 x 10 + 5 x 20
+        assertThat(buyQueues.get(SYMBOL).openLots()).satisfiesExactly(
+                lot -> assertLot(lot, "5", "110"),
+                lot -> assertLot(lot, "10", "100"));
+    }
+
+    @Test
+    void averageCostRelievesAtThePooledPrice() {
+        buy(LotReliefMethod.AVERAGE_COST, "10", "100");
+        buy(LotReliefMethod.AVERAGE_COST, "10", "110");
+
+        BigDecimal realized = sell("5", "120");
+
+        assertThat(realized).isEqualByComparingTo("75");    // 5 x (120 - 105)
+        assertThat(buyQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "15", "105"));
+    }
+
+    @Test
+    void partialReliefKeepsTheRestOfTheLotAndItsFees() {
+        buy(LotReliefMethod.FIFO, "10", "100", "10");
+
+        BigDecimal realized = sell("5", "110", "2");
+
+        assertThat(realized).isEqualByComparingTo("43");    // 5 x 10 - 5 lot fees - 2 sell fees
+        Lot rest = buyQueues.get(SYMBOL).peek();
+        assertLot(rest, "5", "100");
+        assertThat(rest.getFees()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void sellingMoreThanHeldOpensAShortLot() {
+        buy(LotReliefMethod.FIFO, "5", "100");
+
+        BigDecimal realized = sell("8", "120");
+
+        assertThat(realized).isEqualByComparingTo("100");   // only the 5 held are realized
+        assertThat(buyQueues.get(SYMBOL).isEmpty()).isTrue();
+        assertThat(sellQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "3", "120"));
+    }
+
+    @Test
+    void buyCoversShortLotsBeforeOpeningALong() {
+        assertThat(sell("5", "100")).isEqualByComparingTo("0");
+
+        BigDecimal realized = buy(LotReliefMethod.FIFO, "8", "90");
+
+        assertThat(realized).isEqualByComparingTo("50");    // 5 x (100 - 90)
+        assertThat(sellQueues.get(SYMBOL).isEmpty()).isTrue();
+        assertThat(buyQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "3", "90"));
+    }
+
+    @Test
+    void partialCoverLeavesTheRestShort() {
+        sell("10", "100");
+
+        BigDecimal realized = buy(LotReliefMethod.FIFO, "4", "105");
+
+        assertThat(realized).isEqualByComparingTo("-20");   // 4 x (100 - 105)
+        assertThat(buyQueues).doesNotContainKey(SYMBOL);
+        assertThat(sellQueues.get(SYMBOL).openLots()).singleElement()
+                .satisfies(lot -> assertLot(lot, "6", "100"));
+    }
+
+    private BigDecimal buy(LotReliefMethod method, String qty, String price) {
+        return buy(method, qty, price, "0");
+    }
+
+    private BigDecimal buy(LotReliefMethod method, String qty, String price, String fees) {
+        return matcher.processBuy(order(), execution(qty, price, fees), buyQueues, sellQueues,
+                () -> LotReliefStrategy.of(method));
+    }
+
+    private BigDecimal sell(String qty, String price) {
+        return sell(qty, price, "0");
+    }
+
+    private BigDecimal sell(String qty, String price, String fees) {
+        return matcher.processSell(order(), execution(qty, price, fees), buyQueues, sellQueues);
+    }
+
+    private Order order() {
+        return Order.builder().id(nextId++).build();
+    }
+
+    private Executions execution(String qty, String price, String fees) {
+        return Executions.builder()
+                .executionId("exec-" + nextId)
+                .instrumentId(SYMBOL)
+                .quantity(new BigDecimal(qty))
+                .executedPrice(new BigDecimal(price))
+                .fees(new BigDecimal(fees))
+                .build();
+    }
+
+    private static void assertLot(Lot lot, String qty, String price) {
+        assertThat(lot.getQty()).isEqualByComparingTo(qty);
+        assertThat(lot.getPrice()).isEqualByComparingTo(price);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.trading.order_service.utility;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one tick against a book of resting stops, with the price on a random walk.
+ * Triggered stops are re-armed around the current price so the book size stays constant.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.example.trading.order_service.utility.StopTriggerBookBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StopTriggerBookBenchmark {
+
+    private static final double START_PRICE = 100.0;
+
+    @Param({"1000", "100000"})
+    private int stops;
+
+    // Share of the book that is trailing rather than fixed stops
+    @Param({"0.0", "0.5"})
+    private double trailingShare;
+
+    private StopTriggerBook book;
+    private SplittableRandom random;
+    private List<StopTriggerBook.Stop> triggered;
+    private double price;
+    private long nextOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        book = new StopTriggerBook();
+        random = new SplittableRandom(42);
+        triggered = new ArrayList<>();
+        price = START_PRICE;
+        book.onPrice(price, triggered);
+        for (int i = 0; i < stops; i++) {
+            arm();
+        }
+    }
+
+    @Benchmark
+    public void tick(Blackhole bh) {
+        price = Math.max(1.0, price + random.nextGaussian() * 0.05);
+        triggered.clear();
+        int fired = book.onPrice(price, triggered);
+        for (int i = 0; i < fired; i++) {
+            arm();
+        }
+        bh.consume(fired);
+    }
+
+    private void arm() {
+        boolean buy = random.nextBoolean();
+        if (random.nextDouble() < trailingShare) {
+            if (random.nextBoolean()) {
+                book.add(nextOrderId++, buy, StopTriggerBook.Kind.TRAILING_AMOUNT, 0.5 + random.nextDouble() * 5);
+            } else {
+                book.add(nextOrderId++, buy, StopTriggerBook.Kind.TRAILING_PERCENT, 0.005 + random.nextDouble() * 0.05);
+            }
+            return;
+        }
+        double distance = 0.1 + random.nextDouble() * 10;
+        book.add(nextOrderId++, buy, StopTriggerBook.Kind.STOP, buy ? price + distance : price - distance);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StopTriggerBookBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
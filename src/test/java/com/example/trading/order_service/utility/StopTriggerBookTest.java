@@ -0,0 +1,159 @@
+package com.example.trading.order_service.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StopTriggerBookTest {
+
+    private final StopTriggerBook book = new StopTriggerBook();
+
+    @Test
+    void sellStopTriggersWhenPriceFallsToLevel() {
+        book.add(1, false, StopTriggerBook.Kind.STOP, 95);
+
+        assertThat(tick(96)).isEmpty();
+        List<StopTriggerBook.Stop> triggered = tick(94);
+
+        assertThat(triggered).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(1L);
+        assertThat(triggered.get(0).getTriggerPrice()).isEqualTo(95);
+        assertThat(book.size()).isZero();
+        assertThat(tick(90)).isEmpty();
+    }
+
+    @Test
+    void buyStopTriggersWhenPriceRisesToLevel() {
+        book.add(1, true, StopTriggerBook.Kind.STOP, 105);
+        book.add(2, true, StopTriggerBook.Kind.STOP, 110);
+
+        assertThat(tick(104)).isEmpty();
+        assertThat(tick(105)).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(1L);
+        assertThat(book.contains(2)).isTrue();
+        assertThat(tick(111)).extracting(StopTriggerBook.Stop::getTriggerPrice).containsExactly(110.0);
+    }
+
+    @Test
+    void amountTrailingSellStopFollowsTheHigh() {
+        tick(100);
+        book.add(1, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 2);
+
+        assertThat(tick(98.5)).isEmpty();
+        assertThat(tick(103)).isEmpty();
+        assertThat(tick(101.5)).isEmpty();   // the trigger moved up from 98 to 101
+        List<StopTriggerBook.Stop> triggered = tick(100.5);
+
+        assertThat(triggered).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(1L);
+        assertThat(triggered.get(0).getTriggerPrice()).isEqualTo(101);
+    }
+
+    @Test
+    void percentTrailingBuyStopFollowsTheLow() {
+        tick(100);
+        book.add(1, true, StopTriggerBook.Kind.TRAILING_PERCENT, 0.05);
+
+        assertThat(tick(104)).isEmpty();
+        assertThat(tick(90)).isEmpty();
+        assertThat(tick(94)).isEmpty();      // trails 5% above the low of 90
+        List<StopTriggerBook.Stop> triggered = tick(94.6);
+
+        assertThat(triggered).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(1L);
+        assertThat(triggered.get(0).getTriggerPrice()).isCloseTo(94.5, within(1e-9));
+    }
+
+    @Test
+    void trailingStopWithoutPriorPriceStartsFromFirstTick() {
+        book.add(1, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 5);
+        book.add(2, true, StopTriggerBook.Kind.TRAILING_PERCENT, 0.10);
+
+        assertThat(tick(100)).isEmpty();
+        assertThat(tick(96)).isEmpty();
+        assertThat(tick(95)).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(1L);
+        // The buy stop trails 10% above the low of 95
+        assertThat(tick(104)).isEmpty();
+        assertThat(tick(105)).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(2L);
+    }
+
+    @Test
+    void removedStopsNeverTriggerAndCompactionKeepsTheRest() {
+        tick(100);
+        int count = 3000;
+        for (int i = 0; i < count; i++) {
+            StopTriggerBook.Kind kind = switch (i % 3) {
+                case 0 -> StopTriggerBook.Kind.STOP;
+                case 1 -> StopTriggerBook.Kind.TRAILING_AMOUNT;
+                default -> StopTriggerBook.Kind.TRAILING_PERCENT;
+            };
+            double level = switch (kind) {
+                case STOP -> 90 - (i % 10);
+                case TRAILING_AMOUNT -> 1 + (i % 10);
+                case TRAILING_PERCENT -> 0.01 + (i % 10) / 100.0;
+            };
+            book.add(i, false, kind, level);
+        }
+        Set<Long> kept = new HashSet<>();
+        for (long i = 0; i < count; i++) {
+            if (i % 4 == 0) {
+                kept.add(i);
+            } else {
+                assertThat(book.remove(i)).isTrue();
+            }
+        }
+        assertThat(book.remove(1)).isFalse();
+        assertThat(book.size()).isEqualTo(kept.size());
+
+        Set<Long> triggered = new HashSet<>();
+        tick(101).forEach(s -> triggered.add(s.getOrderId()));
+        tick(1).forEach(s -> triggered.add(s.getOrderId()));
+
+        assertThat(triggered).isEqualTo(kept);
+        assertThat(book.size()).isZero();
+    }
+
+    @Test
+    void mergedBucketsTriggerEachStopAtItsOwnDistance() {
+        tick(100);
+        book.add(1, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 3);
+        tick(98);
+        book.add(2, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 1);
+        book.add(3, false, StopTriggerBook.Kind.TRAILING_PERCENT, 0.02);
+
+        // Both buckets now trail from 102
+        assertThat(tick(102)).isEmpty();
+        List<StopTriggerBook.Stop> first = tick(100.5);
+        assertThat(first).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(2L);
+        assertThat(first.get(0).getTriggerPrice()).isEqualTo(101);
+
+        List<StopTriggerBook.Stop> second = tick(99.5);
+        assertThat(second).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(3L);
+        assertThat(second.get(0).getTriggerPrice()).isCloseTo(99.96, within(1e-9));
+
+        assertThat(tick(99.2)).isEmpty();
+        assertThat(tick(99)).extracting(StopTriggerBook.Stop::getTriggerPrice).containsExactly(99.0);
+        assertThat(book.size()).isZero();
+    }
+
+    @Test
+    void removedStopInMergedBucketIsSkipped() {
+        tick(100);
+        book.add(1, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 2);
+        tick(99);
+        book.add(2, false, StopTriggerBook.Kind.TRAILING_AMOUNT, 2);
+        book.remove(1);
+
+        tick(105);
+        assertThat(tick(103)).extracting(StopTriggerBook.Stop::getOrderId).containsExactly(2L);
+        assertThat(book.size()).isZero();
+    }
+
+    private List<StopTriggerBook.Stop> tick(double price) {
+        List<StopTriggerBook.Stop> triggered = new ArrayList<>();
+        book.onPrice(price, triggered);
+        return triggered;
+    }
+}